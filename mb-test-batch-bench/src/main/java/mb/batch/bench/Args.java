@@ -0,0 +1,25 @@
+package mb.batch.bench;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code --name=value} command line arguments.
+ */
+final class Args {
+
+	private Args() {
+	}
+
+	static Map<String, String> parse(String[] args) {
+		Map<String, String> parsed = new LinkedHashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+				throw new IllegalArgumentException("Expected --name=value, got " + arg);
+			}
+			int eq = arg.indexOf('=');
+			parsed.put(arg.substring(2, eq), arg.substring(eq + 1));
+		}
+		return parsed;
+	}
+}
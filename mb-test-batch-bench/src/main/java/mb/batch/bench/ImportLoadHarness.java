@@ -0,0 +1,126 @@
+package mb.batch.bench;
+
+import mb.batch.transaction.TransactionBatchProcessorApplication;
+import org.springframework.batch.core.job.Job;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs an import job of the batch application end to end against its embedded H2 and reports wall
+ * time, inserted rows per second, peak heap (sampled every 20 ms) and GC activity of the job run,
+ * application startup excluded.
+ * <p>
+ * Without {@code --input} a file is generated first, with the options of {@link TransactionFileGenerator}.
+ * {@code --job} selects the job (default importTransactionsJob); {@code --app.*}, {@code --spring.*} and
+ * {@code --logging.*} arguments are passed on to the application.
+ * <pre>
+ * java -Xmx1g -cp target/benchmarks.jar mb.batch.bench.ImportLoadHarness \
+ *     --rows=1000000 --accounts=50000 --customers=20000 --skew=1.1 \
+ *     --app.batch.import-transactions.chunk-size=1000
+ * </pre>
+ */
+public final class ImportLoadHarness {
+
+	private static final long HEAP_SAMPLE_MILLIS = 20;
+
+	private ImportLoadHarness() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> parsed = Args.parse(args);
+		String jobName = parsed.getOrDefault("job", "importTransactionsJob");
+
+		Path input;
+		if (parsed.containsKey("input")) {
+			input = Path.of(parsed.get("input"));
+		} else {
+			input = Path.of(parsed.getOrDefault("out", "target/load-harness-input.txt"));
+			TransactionFileGenerator.Options options = TransactionFileGenerator.Options.from(parsed);
+			long lines = new TransactionFileGenerator(options).write(input);
+			System.out.printf("[LOAD] generated file=%s lines=%d options=%s%n", input.toAbsolutePath(), lines, options);
+		}
+
+		// jobs are started below, after the mb-test-be tables exist. The input goes in as the default input
+		// resource: the jobs have an incrementer, so JobOperator.start ignores the parameters it is given
+		List<String> appArgs = new ArrayList<>(List.of("--spring.batch.job.enabled=false",
+				"--app.batch.import-transactions.input-resource=file:" + input.toAbsolutePath()));
+		parsed.forEach((name, value) -> {
+			if (name.startsWith("app.") || name.startsWith("spring.") || name.startsWith("logging.")) {
+				appArgs.add("--" + name + "=" + value);
+			}
+		});
+
+		try (ConfigurableApplicationContext context = new SpringApplication(TransactionBatchProcessorApplication.class)
+				.run(appArgs.toArray(String[]::new))) {
+			DataSource dataSource = context.getBean(DataSource.class);
+			new ResourceDatabasePopulator(new ClassPathResource("schema-be.sql")).execute(dataSource);
+
+			Job job = context.getBean(jobName, Job.class);
+			JobOperator jobOperator = context.getBean(JobOperator.class);
+
+			System.gc();
+			MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+			AtomicLong peakHeap = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+			ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "load-harness-heap");
+				thread.setDaemon(true);
+				return thread;
+			});
+			sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+					0, HEAP_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+
+			long gcCountBefore = gcCount();
+			long gcMillisBefore = gcMillis();
+			long start = System.nanoTime();
+			JobExecution execution = jobOperator.startNextInstance(job);
+			long wallMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+			sampler.shutdownNow();
+
+			long rows = new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM \"TRANSACTION\"", Long.class);
+			for (StepExecution step : execution.getStepExecutions()) {
+				System.out.printf("[LOAD] step=%s status=%s read=%d written=%d skips=%d commits=%d%n",
+						step.getStepName(), step.getStatus(), step.getReadCount(), step.getWriteCount(),
+						step.getSkipCount(), step.getCommitCount());
+			}
+			System.out.printf("[LOAD] job=%s status=%s rows=%d wallMs=%d rowsPerSec=%.0f peakHeapMb=%d gcCount=%d gcMs=%d maxHeapMb=%d%n",
+					jobName, execution.getStatus(), rows, wallMillis, rows * 1000.0 / wallMillis,
+					peakHeap.get() >> 20, gcCount() - gcCountBefore, gcMillis() - gcMillisBefore,
+					Runtime.getRuntime().maxMemory() >> 20);
+		}
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(0, gc.getCollectionTime());
+		}
+		return millis;
+	}
+}
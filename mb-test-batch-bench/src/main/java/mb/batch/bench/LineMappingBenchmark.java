@@ -0,0 +1,154 @@
+package mb.batch.bench;
+
+import mb.batch.transaction.batch.TransactionImportBatchConfig;
+import mb.batch.transaction.batch.TransactionLineParser;
+import mb.batch.transaction.dto.TransactionFileRow;
+import mb.batch.transaction.util.TrimBlankLineRecordSeparatorPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+import org.springframework.batch.infrastructure.item.file.transform.DelimitedLineTokenizer;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lines per second of the read side of the import, one stage at a time. Run with {@code -prof gc}
+ * for the allocation rate ({@code gc.alloc.rate.norm} is bytes per line).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(LineMappingBenchmark.LINES)
+public class LineMappingBenchmark {
+
+	static final int LINES = 1024;
+
+	private String[] records;
+	private String[] fileLines;
+	private String[] amounts;
+	private String[] dates;
+	private String[] times;
+
+	private DelimitedLineTokenizer tokenizer;
+	private LineMapper<TransactionFileRow> lineMapper;
+	private TransactionLineParser byteParser;
+	private TrimBlankLineRecordSeparatorPolicy separatorPolicy;
+
+	private ByteBuffer buffer;
+	private int[] lineStarts;
+	private int[] lineEnds;
+
+	@Setup
+	public void setup() {
+		List<String> generated = TransactionLines.records(LINES, 1000, 42);
+		records = generated.toArray(String[]::new);
+		fileLines = TransactionLines.withBlankLines(generated).toArray(String[]::new);
+
+		amounts = new String[LINES];
+		dates = new String[LINES];
+		times = new String[LINES];
+		for (int i = 0; i < LINES; i++) {
+			String[] fields = records[i].split("\\|");
+			amounts[i] = fields[1];
+			dates[i] = fields[3];
+			times[i] = fields[4];
+		}
+
+		// same settings as TransactionImportBatchConfig#transactionLineMapper
+		tokenizer = new DelimitedLineTokenizer();
+		tokenizer.setDelimiter("|");
+		tokenizer.setNames("ACCOUNT_NUMBER", "TRX_AMOUNT", "DESCRIPTION", "TRX_DATE", "TRX_TIME", "CUSTOMER_ID");
+		tokenizer.setStrict(false);
+
+		lineMapper = new TransactionImportBatchConfig().transactionLineMapper();
+		byteParser = new TransactionLineParser(lineMapper);
+		separatorPolicy = new TrimBlankLineRecordSeparatorPolicy();
+
+		byte[] bytes = TransactionLines.utf8(generated);
+		buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+		lineStarts = new int[LINES];
+		lineEnds = new int[LINES];
+		int line = 0;
+		int start = 0;
+		for (int i = 0; i < bytes.length; i++) {
+			if (bytes[i] == '\n') {
+				lineStarts[line] = start;
+				lineEnds[line++] = i;
+				start = i + 1;
+			}
+		}
+	}
+
+	/**
+	 * Splitting into a FieldSet only.
+	 */
+	@Benchmark
+	public void tokenize(Blackhole bh) {
+		for (String record : records) {
+			bh.consume(tokenizer.tokenize(record));
+		}
+	}
+
+	/**
+	 * Amount, date and time parsing of already split fields, as in mapFieldSet.
+	 */
+	@Benchmark
+	public void parseAmountDateTime(Blackhole bh) {
+		for (int i = 0; i < LINES; i++) {
+			bh.consume(new BigDecimal(amounts[i].trim()));
+			bh.consume(LocalDate.parse(dates[i]));
+			bh.consume(LocalTime.parse(times[i]));
+		}
+	}
+
+	/**
+	 * Tokenizing, field mapping and parsing: the FlatFileItemReader path (classpath, URL and gzip input).
+	 */
+	@Benchmark
+	public void lineMapper(Blackhole bh) throws Exception {
+		for (int i = 0; i < LINES; i++) {
+			bh.consume(lineMapper.mapLine(records[i], i + 1));
+		}
+	}
+
+	/**
+	 * The same records through the byte parser of MappedTransactionFileReader (plain files).
+	 */
+	@Benchmark
+	public void byteParser(Blackhole bh) throws Exception {
+		for (int i = 0; i < LINES; i++) {
+			bh.consume(byteParser.parse(buffer, lineStarts[i], lineEnds[i], i + 1));
+		}
+	}
+
+	/**
+	 * Record separation over the file layout, where every other line is blank.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(2 * LINES)
+	public void recordSeparatorPolicy(Blackhole bh) {
+		for (String line : fileLines) {
+			if (separatorPolicy.isEndOfRecord(line)) {
+				bh.consume(separatorPolicy.postProcess(line));
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package mb.batch.bench;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mb.batch.transaction.batch.TransactionImportBatchConfig;
+import mb.batch.transaction.batch.TransactionImportProcessor;
+import mb.batch.transaction.batch.TransactionKeyResolver;
+import mb.batch.transaction.dto.TransactionFileRow;
+import mb.batch.transaction.dto.TransactionInsertRow;
+import mb.batch.transaction.util.TransactionImportMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second through {@link TransactionImportProcessor} and the per-chunk id resolution of
+ * {@link TransactionKeyResolver} (called by the writer), against an embedded H2 that already holds
+ * every user profile and account:
+ * <ul>
+ *   <li>{@code warm}: all keys cached, no database access</li>
+ *   <li>{@code cold}: caches emptied before every chunk, as after a restart; every chunk MERGEs
+ *       and selects its keys</li>
+ * </ul>
+ * The processor logs every row at INFO; the benchmark's logback.xml turns that off.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(ProcessorBenchmark.CHUNK_SIZE)
+public class ProcessorBenchmark {
+
+	// app.batch.import-transactions.chunk-size default
+	static final int CHUNK_SIZE = 100;
+
+	private static final int ROWS = 10_000;
+
+	@Param({"warm", "cold"})
+	public String cache;
+
+	@Param({"1000"})
+	public int accounts;
+
+	private HikariDataSource dataSource;
+	private TransactionImportProcessor processor;
+	private TransactionKeyResolver keyResolver;
+	private TransactionFileRow[] rows;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:h2:mem:bench-" + cache + ";DB_CLOSE_DELAY=-1");
+		dataSource.setUsername("sa");
+		dataSource.setMaximumPoolSize(4);
+
+		new ResourceDatabasePopulator(new ClassPathResource("schema-be.sql")).execute(dataSource);
+		NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(dataSource);
+
+		processor = new TransactionImportProcessor();
+		keyResolver = new TransactionKeyResolver(jdbc, new DataSourceTransactionManager(dataSource),
+				new TransactionImportMetrics(new SimpleMeterRegistry()), 2 * accounts);
+
+		LineMapper<TransactionFileRow> lineMapper = new TransactionImportBatchConfig().transactionLineMapper();
+		List<String> records = TransactionLines.records(ROWS, accounts, 42);
+		rows = new TransactionFileRow[ROWS];
+		for (int i = 0; i < ROWS; i++) {
+			rows[i] = lineMapper.mapLine(records.get(i), i + 1);
+		}
+
+		// first pass creates every key; the warm run keeps the caches it leaves behind
+		for (int i = 0; i < ROWS / CHUNK_SIZE; i++) {
+			processAndResolve();
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void emptyCaches() {
+		if ("cold".equals(cache)) {
+			keyResolver.getUserProfileIdCache().clear();
+			keyResolver.getAccountIdCache().clear();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		dataSource.close();
+	}
+
+	@Benchmark
+	public Chunk<TransactionInsertRow> processAndResolve() {
+		List<TransactionInsertRow> items = new ArrayList<>(CHUNK_SIZE);
+		for (int i = 0; i < CHUNK_SIZE; i++) {
+			items.add(processor.process(rows[next]));
+			next = (next + 1) % ROWS;
+		}
+		Chunk<TransactionInsertRow> chunk = new Chunk<>(items);
+		keyResolver.resolve(chunk);
+		return chunk;
+	}
+}
@@ -0,0 +1,187 @@
+package mb.batch.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a transaction file in the format of data/transactions-source.txt (header line, then
+ * ACCOUNT_NUMBER|TRX_AMOUNT|DESCRIPTION|TRX_DATE|TRX_TIME|CUSTOMER_ID records), gzip-compressed when
+ * the target ends with {@code .gz}.
+ * <p>
+ * Account popularity follows a Zipf distribution with exponent {@code skew} (0 = uniform); account
+ * {@code i} always belongs to customer {@code i % customers}. Every blank line and bad row is
+ * quarantined as a read skip of the import, and the import steps allow {@code skip-limit} (500) skips:
+ * keep {@code rows * (blankLineRatio + badRowRatio)} below that unless the skip limit is what you test.
+ * <pre>
+ * java -cp target/benchmarks.jar mb.batch.bench.TransactionFileGenerator \
+ *     --out=target/transactions-1m.txt --rows=1000000 --accounts=50000 --customers=20000 --skew=1.1
+ * </pre>
+ */
+public final class TransactionFileGenerator {
+
+	private static final String HEADER = "ACCOUNT_NUMBER|TRX_AMOUNT|DESCRIPTION|TRX_DATE|TRX_TIME|CUSTOMER_ID";
+
+	private static final String[] DESCRIPTIONS = {
+			"FUND TRANSFER", "ATM WITHDRWAL", "BILL PAYMENT", "3rd Party FUND TRANSFER"
+	};
+
+	private static final long FIRST_ACCOUNT_NUMBER = 8872838283L;
+	private static final int FIRST_CUSTOMER_ID = 100;
+
+	/**
+	 * @param blankLineRatio probability of a blank line after a record
+	 * @param badRowRatio    share of records with a missing field, a bad amount or an impossible date
+	 */
+	public record Options(long rows, int accounts, int customers, double skew,
+						  double blankLineRatio, double badRowRatio, long seed) {
+
+		public Options {
+			if (rows < 0 || accounts < 1 || customers < 1 || customers > accounts || skew < 0
+					|| blankLineRatio < 0 || blankLineRatio > 1 || badRowRatio < 0 || badRowRatio > 1) {
+				throw new IllegalArgumentException("Invalid generator options: rows=" + rows + " accounts=" + accounts
+						+ " customers=" + customers + " skew=" + skew + " blankLineRatio=" + blankLineRatio
+						+ " badRowRatio=" + badRowRatio);
+			}
+		}
+
+		static Options from(Map<String, String> args) {
+			return new Options(
+					Long.parseLong(args.getOrDefault("rows", "100000")),
+					Integer.parseInt(args.getOrDefault("accounts", "10000")),
+					Integer.parseInt(args.getOrDefault("customers", "4000")),
+					Double.parseDouble(args.getOrDefault("skew", "0")),
+					Double.parseDouble(args.getOrDefault("blank-line-ratio", "0")),
+					Double.parseDouble(args.getOrDefault("bad-row-ratio", "0")),
+					Long.parseLong(args.getOrDefault("seed", "42")));
+		}
+	}
+
+	private final Options options;
+	private final double[] cumulative; // null when uniform
+
+	public TransactionFileGenerator(Options options) {
+		this.options = options;
+		this.cumulative = options.skew() == 0 ? null : zipfCumulative(options.accounts(), options.skew());
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> parsed = Args.parse(args);
+		Path out = Path.of(parsed.getOrDefault("out", "target/transactions-generated.txt"));
+		Options options = Options.from(parsed);
+
+		long start = System.nanoTime();
+		long lines = new TransactionFileGenerator(options).write(out);
+		System.out.printf("[GENERATE] file=%s lines=%d bytes=%d elapsedMs=%d options=%s%n",
+				out.toAbsolutePath(), lines, Files.size(out), (System.nanoTime() - start) / 1_000_000, options);
+	}
+
+	/**
+	 * @return number of lines written, header included
+	 */
+	public long write(Path out) throws IOException {
+		if (out.getParent() != null) {
+			Files.createDirectories(out.getParent());
+		}
+		SplittableRandom random = new SplittableRandom(options.seed());
+		long lines = 0;
+		try (OutputStream os = open(out);
+			 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), 1 << 16)) {
+			writer.write(HEADER);
+			writer.newLine();
+			lines++;
+
+			StringBuilder line = new StringBuilder(96);
+			for (long i = 0; i < options.rows(); i++) {
+				line.setLength(0);
+				record(random, line);
+				writer.append(line).append('\n');
+				lines++;
+				if (random.nextDouble() < options.blankLineRatio()) {
+					writer.append('\n');
+					lines++;
+				}
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * The records of {@link #write} as strings, without header and blank lines.
+	 */
+	List<String> records() {
+		SplittableRandom random = new SplittableRandom(options.seed());
+		List<String> records = new ArrayList<>((int) options.rows());
+		StringBuilder line = new StringBuilder(96);
+		for (long i = 0; i < options.rows(); i++) {
+			line.setLength(0);
+			record(random, line);
+			records.add(line.toString());
+		}
+		return records;
+	}
+
+	private OutputStream open(Path out) throws IOException {
+		OutputStream os = Files.newOutputStream(out);
+		return out.getFileName().toString().endsWith(".gz") ? new GZIPOutputStream(os, 1 << 16) : os;
+	}
+
+	private void record(SplittableRandom random, StringBuilder line) {
+		int account = nextAccount(random);
+		String accountNumber = Long.toString(FIRST_ACCOUNT_NUMBER + account);
+		String customerId = Integer.toString(FIRST_CUSTOMER_ID + account % options.customers());
+		String amount = random.nextInt(1, 1_300_000) + "." + twoDigits(random.nextInt(100));
+		String date = "2019-" + twoDigits(random.nextInt(1, 13)) + "-" + twoDigits(random.nextInt(1, 29));
+		String time = twoDigits(random.nextInt(24)) + ":" + twoDigits(random.nextInt(60)) + ":" + twoDigits(random.nextInt(60));
+
+		if (random.nextDouble() < options.badRowRatio()) {
+			switch (random.nextInt(3)) {
+				case 0 -> customerId = "";
+				case 1 -> amount = amount.replace('.', 'x');
+				default -> date = "2019-13-45";
+			}
+		}
+
+		line.append(accountNumber).append('|')
+				.append(amount).append('|')
+				.append(DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]).append('|')
+				.append(date).append('|')
+				.append(time).append('|')
+				.append(customerId);
+	}
+
+	private int nextAccount(SplittableRandom random) {
+		if (cumulative == null) {
+			return random.nextInt(options.accounts());
+		}
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		return Math.min(index < 0 ? -index - 1 : index, options.accounts() - 1);
+	}
+
+	private static double[] zipfCumulative(int n, double s) {
+		double[] cumulative = new double[n];
+		double sum = 0;
+		for (int k = 0; k < n; k++) {
+			sum += 1 / Math.pow(k + 1, s);
+			cumulative[k] = sum;
+		}
+		for (int k = 0; k < n; k++) {
+			cumulative[k] /= sum;
+		}
+		return cumulative;
+	}
+
+	private static String twoDigits(int value) {
+		return value < 10 ? "0" + value : Integer.toString(value);
+	}
+}
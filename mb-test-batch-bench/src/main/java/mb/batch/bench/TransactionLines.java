@@ -0,0 +1,35 @@
+package mb.batch.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark input from {@link TransactionFileGenerator}: uniform accounts, four per customer, no bad rows.
+ */
+final class TransactionLines {
+
+	private TransactionLines() {
+	}
+
+	static List<String> records(int count, int accounts, long seed) {
+		return new TransactionFileGenerator(new TransactionFileGenerator.Options(
+				count, accounts, Math.max(1, accounts / 4), 0, 0, 0, seed)).records();
+	}
+
+	/**
+	 * Records separated by blank lines, as in the source file, without the header.
+	 */
+	static List<String> withBlankLines(List<String> records) {
+		List<String> lines = new ArrayList<>(records.size() * 2);
+		for (String record : records) {
+			lines.add(record);
+			lines.add("");
+		}
+		return lines;
+	}
+
+	static byte[] utf8(List<String> lines) {
+		return (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+	}
+}
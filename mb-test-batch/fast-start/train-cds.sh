@@ -0,0 +1,19 @@
+#!/bin/sh
+# Extracts an AOT-processed boot jar (mvn -Pfast-start package) and records its AppCDS archive with
+# one import of <training input>. The archive is only valid for this JVM and this directory layout:
+# run the result from <destination> with the same java as below.
+#
+#   train-cds.sh <app.jar> <destination> <training input file>
+#   cd <destination> && java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar app.jar ...
+set -eu
+
+JAR=$1
+DEST=$2
+INPUT=$(cd "$(dirname "$3")" && pwd)/$(basename "$3")
+
+java -Djarmode=tools -jar "$JAR" extract --force --destination "$DEST"
+cd "$DEST"
+java -XX:ArchiveClassesAtExit=application.jsa -Dspring.aot.enabled=true \
+  -jar "$(basename "$JAR")" \
+  --spring.profiles.active=training \
+  --app.batch.import-transactions.input-resource="file:$INPUT"
@@ -0,0 +1,137 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.dto.TransactionFileRow;
+import mb.batch.transaction.dto.TransactionInsertRow;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.listener.ChunkListener;
+import org.springframework.batch.core.listener.ItemWriteListener;
+import org.springframework.batch.core.listener.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.repeat.policy.SimpleCompletionPolicy;
+
+/**
+ * Chunk completion policy whose size follows the measured write + commit time of the previous chunks
+ * ({@code app.batch.import-transactions.adaptive-chunk-size}).
+ * <p>
+ * After every committed chunk the size is set so that the next write + commit takes about
+ * {@code targetMillis}, changing by at most a factor of 2 per chunk and staying within [min, max].
+ * Process and write skips make the fault-tolerant step roll back and rescan the whole chunk item by
+ * item, so while the recent rate of those skips is above {@link #MAX_SKIP_RATE} the size is halved
+ * instead. Read skips cost nothing extra and are ignored.
+ * <p>
+ * Holds per-step state: every step instance needs its own policy. The size of the current chunk is
+ * published as the {@link #CHUNK_SIZE_KEY} attribute of the chunk context; the last size is kept in
+ * the step execution context so that a restart continues with it.
+ */
+@Slf4j
+public class AdaptiveChunkSizePolicy extends SimpleCompletionPolicy implements
+		ChunkListener<TransactionFileRow, TransactionInsertRow>,
+		ItemWriteListener<TransactionInsertRow>,
+		StepExecutionListener {
+
+	public static final String CHUNK_SIZE_KEY = "adaptiveChunkSize";
+
+	/** Share of items skipped in process/write (exponentially averaged) above which chunks shrink. */
+	static final double MAX_SKIP_RATE = 0.01;
+
+	/** Weight of the latest chunk in the averaged skip rate. */
+	private static final double SKIP_RATE_ALPHA = 0.3;
+
+	private final int initialSize;
+	private final int minSize;
+	private final int maxSize;
+	private final long targetNanos;
+
+	private double skipRate;
+	private long writeStartNanos;
+	private long writtenBefore;
+	private long rescanSkipsBefore;
+	private long readBefore;
+
+	public AdaptiveChunkSizePolicy(int initialSize, int minSize, int maxSize, long targetMillis) {
+		if (minSize < 1 || minSize > maxSize || targetMillis < 1) {
+			throw new IllegalArgumentException("Invalid adaptive chunk size bounds: min=" + minSize
+					+ " max=" + maxSize + " targetMillis=" + targetMillis);
+		}
+		this.initialSize = clamp(initialSize, minSize, maxSize);
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.targetNanos = targetMillis * 1_000_000;
+		setChunkSize(this.initialSize);
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		skipRate = 0;
+		setChunkSize(clamp(stepExecution.getExecutionContext().getInt(CHUNK_SIZE_KEY, initialSize), minSize, maxSize));
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		log.info("[CHUNK-SIZE] step={} final={} bounds={}..{} skipRate={}",
+				stepExecution.getStepName(), getChunkSize(), minSize, maxSize, String.format("%.4f", skipRate));
+		return null;
+	}
+
+	@Override
+	@SuppressWarnings("removal")
+	public void beforeChunk(ChunkContext context) {
+		StepExecution stepExecution = context.getStepContext().getStepExecution();
+		writeStartNanos = 0;
+		writtenBefore = stepExecution.getWriteCount();
+		rescanSkipsBefore = stepExecution.getProcessSkipCount() + stepExecution.getWriteSkipCount();
+		readBefore = stepExecution.getReadCount();
+		context.setAttribute(CHUNK_SIZE_KEY, getChunkSize());
+	}
+
+	@Override
+	public void beforeWrite(Chunk<? extends TransactionInsertRow> items) {
+		// a failed write is rescanned item by item: measure from the first attempt
+		if (writeStartNanos == 0) {
+			writeStartNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Called after the chunk transaction has committed.
+	 */
+	@Override
+	@SuppressWarnings("removal")
+	public void afterChunk(ChunkContext context) {
+		StepExecution stepExecution = context.getStepContext().getStepExecution();
+		long written = stepExecution.getWriteCount() - writtenBefore;
+		long rescanSkips = stepExecution.getProcessSkipCount() + stepExecution.getWriteSkipCount() - rescanSkipsBefore;
+		long read = stepExecution.getReadCount() - readBefore;
+		if (written == 0 || writeStartNanos == 0) {
+			return;
+		}
+
+		long elapsedNanos = Math.max(1, System.nanoTime() - writeStartNanos);
+		skipRate = SKIP_RATE_ALPHA * ((double) rescanSkips / Math.max(1, read)) + (1 - SKIP_RATE_ALPHA) * skipRate;
+
+		int size = getChunkSize();
+		int next;
+		if (skipRate > MAX_SKIP_RATE) {
+			next = size / 2;
+		} else {
+			long scaled = (long) ((double) targetNanos * written / elapsedNanos);
+			next = (int) Math.min(Math.max(scaled, size / 2), 2L * size);
+		}
+		next = clamp(next, minSize, maxSize);
+
+		if (next != size) {
+			log.debug("[CHUNK-SIZE] step={} written={} writeCommitMs={} skipRate={} size={} -> {}",
+					stepExecution.getStepName(), written, elapsedNanos / 1_000_000,
+					String.format("%.4f", skipRate), size, next);
+			setChunkSize(next);
+		}
+		stepExecution.getExecutionContext().putInt(CHUNK_SIZE_KEY, next);
+	}
+
+	private static int clamp(int value, int min, int max) {
+		return Math.max(min, Math.min(max, value));
+	}
+}
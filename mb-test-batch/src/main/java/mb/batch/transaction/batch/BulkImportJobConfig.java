@@ -0,0 +1,70 @@
+package mb.batch.transaction.batch;
+
+import mb.batch.transaction.util.GzipResource;
+import mb.batch.transaction.util.TransactionImportLoggingListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.Job;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.parameters.RunIdIncrementer;
+import org.springframework.batch.core.listener.StepExecutionListener;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.Step;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+
+/**
+ * Alternative to {@link TransactionImportBatchConfig#importTransactionsJob} for large trusted files,
+ * see {@link TransactionBulkLoadTasklet}. The input file must be reachable under the same path by the H2 server.
+ */
+@Configuration
+public class BulkImportJobConfig {
+
+    // keep DAILY_ACCOUNT_SUMMARY up to date while importing
+    @Value("${app.batch.import-transactions.daily-summary:true}")
+    private boolean dailySummary;
+
+    @Bean
+    public Job importTransactionsBulkJob(JobRepository jobRepository, Step bulkLoadTransactionsStep) {
+        return new JobBuilder("importTransactionsBulkJob", jobRepository)
+                .incrementer(new RunIdIncrementer())
+                .start(bulkLoadTransactionsStep)
+                .build();
+    }
+
+    @Bean
+    public Step bulkLoadTransactionsStep(
+            JobRepository jobRepository,
+            PlatformTransactionManager transactionManager,
+            TransactionBulkLoadTasklet transactionBulkLoadTasklet,
+            TransactionImportLoggingListener loggingListener
+    ) {
+        return new StepBuilder("bulkLoadTransactionsStep", jobRepository)
+                .tasklet(transactionBulkLoadTasklet, transactionManager)
+                .stream(transactionBulkLoadTasklet)
+                .listener((StepExecutionListener) loggingListener)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public TransactionBulkLoadTasklet transactionBulkLoadTasklet(
+            ImportInputs importInputs,
+            NamedParameterJdbcTemplate jdbc,
+            RecordQuarantine recordQuarantine,
+            @Value("#{jobParameters['inputResource']}") String inputResource
+    ) throws IOException {
+        Resource resource = importInputs.resolve(inputResource);
+        if (GzipResource.isGzip(resource)) {
+            throw new IllegalStateException("Bulk load cannot read compressed input " + resource.getDescription());
+        }
+        return new TransactionBulkLoadTasklet(jdbc, recordQuarantine, resource.getFile().getAbsolutePath(),
+                importInputs.linesToSkip(), dailySummary);
+    }
+}
@@ -0,0 +1,47 @@
+package mb.batch.transaction.batch;
+
+import org.springframework.batch.core.step.StepContribution;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A {@link StepContribution} per chunk transaction, for code that counts skips or filtered items but is
+ * not handed the step's own contribution (item writers). The counts are applied
+ * to the step execution when the chunk commits and dropped when it rolls back, like the step's own.
+ * Must be used on the thread that runs the chunk transaction.
+ */
+final class ChunkContributions {
+
+	private record Key(StepExecution stepExecution) {
+	}
+
+	private ChunkContributions() {
+	}
+
+	/**
+	 * The contribution of the current chunk transaction of {@code stepExecution}, created on first use.
+	 */
+	static StepContribution current(StepExecution stepExecution) {
+		Key key = new Key(stepExecution);
+		StepContribution contribution = (StepContribution) TransactionSynchronizationManager.getResource(key);
+		if (contribution != null) {
+			return contribution;
+		}
+
+		StepContribution created = stepExecution.createStepContribution();
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				stepExecution.apply(created);
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(key);
+			}
+		});
+		TransactionSynchronizationManager.bindResource(key, created);
+		return created;
+	}
+}
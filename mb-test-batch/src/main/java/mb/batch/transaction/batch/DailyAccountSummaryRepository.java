@@ -0,0 +1,166 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.dto.TransactionInsertRow;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * DAILY_ACCOUNT_SUMMARY access (table created by schema-import.sql): per account and transaction date,
+ * the number of transactions and their total amount.
+ * <p>
+ * The import adds the rows it inserts with {@link #add}; the statements join the caller's transaction,
+ * so a rolled back chunk rolls back its share of the totals as well.
+ */
+@Slf4j
+@Component
+public class DailyAccountSummaryRepository {
+
+	private static final String ADD = """
+			MERGE INTO DAILY_ACCOUNT_SUMMARY s
+			USING (VALUES (CAST(:accountId AS BIGINT), CAST(:trxDate AS DATE),
+			               CAST(:count AS BIGINT), CAST(:total AS NUMERIC(38,2)))) d (ACCOUNT_ID, TRX_DATE, CNT, TOTAL)
+			ON s.ACCOUNT_ID = d.ACCOUNT_ID AND s.TRX_DATE = d.TRX_DATE
+			WHEN MATCHED THEN UPDATE SET
+			  TRANSACTION_COUNT = s.TRANSACTION_COUNT + d.CNT,
+			  TOTAL_AMOUNT = s.TOTAL_AMOUNT + d.TOTAL,
+			  UPDATED_AT = :now
+			WHEN NOT MATCHED THEN INSERT (ACCOUNT_ID, TRX_DATE, TRANSACTION_COUNT, TOTAL_AMOUNT, UPDATED_AT)
+			  VALUES (d.ACCOUNT_ID, d.TRX_DATE, d.CNT, d.TOTAL, :now)
+			""";
+
+	// H2 has no FULL OUTER JOIN: summary rows that are wrong or stale, then days missing from the summary
+	private static final String MISMATCHES = """
+			WITH ACTUAL AS (
+			  SELECT ACCOUNT_ID, TRX_DATE, COUNT(*) AS CNT, SUM(AMOUNT) AS TOTAL
+			  FROM "TRANSACTION" GROUP BY ACCOUNT_ID, TRX_DATE
+			)
+			SELECT s.ACCOUNT_ID, s.TRX_DATE, s.TRANSACTION_COUNT, s.TOTAL_AMOUNT, a.CNT, a.TOTAL
+			FROM DAILY_ACCOUNT_SUMMARY s
+			LEFT JOIN ACTUAL a ON a.ACCOUNT_ID = s.ACCOUNT_ID AND a.TRX_DATE = s.TRX_DATE
+			WHERE a.ACCOUNT_ID IS NULL OR a.CNT <> s.TRANSACTION_COUNT OR a.TOTAL <> s.TOTAL_AMOUNT
+			UNION ALL
+			SELECT a.ACCOUNT_ID, a.TRX_DATE, NULL, NULL, a.CNT, a.TOTAL
+			FROM ACTUAL a
+			WHERE NOT EXISTS (
+			  SELECT 1 FROM DAILY_ACCOUNT_SUMMARY s WHERE s.ACCOUNT_ID = a.ACCOUNT_ID AND s.TRX_DATE = a.TRX_DATE
+			)
+			ORDER BY 1, 2
+			""";
+
+	private static final String REBUILD = """
+			INSERT INTO DAILY_ACCOUNT_SUMMARY (ACCOUNT_ID, TRX_DATE, TRANSACTION_COUNT, TOTAL_AMOUNT, UPDATED_AT)
+			SELECT ACCOUNT_ID, TRX_DATE, COUNT(*), SUM(AMOUNT), :now
+			FROM "TRANSACTION" GROUP BY ACCOUNT_ID, TRX_DATE
+			""";
+
+	/**
+	 * Two transactions that add the same new account and day both take the NOT MATCHED branch, and
+	 * the later insert fails with a duplicate key once the earlier one commits. The batch then rolls
+	 * back to a savepoint and is repeated: the row is committed by now and its MERGE updates it.
+	 */
+	private static final int ADD_ATTEMPTS = 3;
+
+	private final NamedParameterJdbcTemplate jdbc;
+
+	/** A savepoint in the caller's transaction around each attempt of {@link #add}. */
+	private final TransactionTemplate addAttemptTx;
+
+	public DailyAccountSummaryRepository(NamedParameterJdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+		this.jdbc = jdbc;
+		this.addAttemptTx = new TransactionTemplate(transactionManager);
+		this.addAttemptTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+	}
+
+	/**
+	 * Adds the given inserted transactions to the summary, one MERGE per account and day.
+	 * <p>
+	 * The MERGEs run in (accountId, trxDate) order: concurrent writers (partitions, files) then lock
+	 * the summary rows they share in the same order and wait for each other instead of deadlocking.
+	 */
+	public void add(List<? extends TransactionInsertRow> inserted) {
+		if (inserted.isEmpty()) return;
+
+		Map<Key, Totals> deltas = new TreeMap<>(Key.ORDER);
+		for (TransactionInsertRow row : inserted) {
+			deltas.computeIfAbsent(new Key(row.getAccountId(), row.getTrxDate()), k -> new Totals())
+					.add(row.getAmount());
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		SqlParameterSource[] params = deltas.entrySet().stream()
+				.map(e -> new MapSqlParameterSource()
+						.addValue("accountId", e.getKey().accountId())
+						.addValue("trxDate", e.getKey().trxDate())
+						.addValue("count", e.getValue().count)
+						.addValue("total", e.getValue().total)
+						.addValue("now", now))
+				.toArray(SqlParameterSource[]::new);
+		for (int attempt = 1; ; attempt++) {
+			try {
+				addAttemptTx.executeWithoutResult(status -> jdbc.batchUpdate(ADD, params));
+				return;
+			} catch (DuplicateKeyException e) {
+				if (attempt == ADD_ATTEMPTS) throw e;
+				log.info("[SUMMARY] concurrent insert of the same account and day, repeating the MERGEs attempt={}", attempt);
+			}
+		}
+	}
+
+	/**
+	 * Compares every summary row with a recompute from "TRANSACTION"; rows missing on either side
+	 * have null counts there.
+	 */
+	public List<Mismatch> findMismatches() {
+		return jdbc.query(MISMATCHES, Map.of(), (rs, rowNum) -> new Mismatch(
+				rs.getLong(1),
+				rs.getObject(2, LocalDate.class),
+				rs.getObject(3, Long.class),
+				rs.getBigDecimal(4),
+				rs.getObject(5, Long.class),
+				rs.getBigDecimal(6)));
+	}
+
+	/**
+	 * Replaces the whole summary with a recompute from "TRANSACTION".
+	 *
+	 * @return number of summary rows written
+	 */
+	public int rebuild() {
+		jdbc.update("DELETE FROM DAILY_ACCOUNT_SUMMARY", Map.of());
+		return jdbc.update(REBUILD, Map.of("now", LocalDateTime.now()));
+	}
+
+	public record Mismatch(long accountId, LocalDate trxDate,
+						   Long summaryCount, BigDecimal summaryTotal,
+						   Long actualCount, BigDecimal actualTotal) {
+	}
+
+	private record Key(Long accountId, LocalDate trxDate) {
+		static final Comparator<Key> ORDER = Comparator.comparing(Key::accountId).thenComparing(Key::trxDate);
+	}
+
+	private static final class Totals {
+		long count;
+		BigDecimal total = BigDecimal.ZERO;
+
+		void add(BigDecimal amount) {
+			count++;
+			total = total.add(amount);
+		}
+	}
+}
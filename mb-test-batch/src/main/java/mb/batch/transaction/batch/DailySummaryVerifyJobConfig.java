@@ -0,0 +1,49 @@
+package mb.batch.transaction.batch;
+
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.Job;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.parameters.RunIdIncrementer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.Step;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * On demand: checks DAILY_ACCOUNT_SUMMARY against the transactions, see {@link DailySummaryVerifyTasklet}.
+ * Job parameter {@code repair=true} rebuilds the summary when it differs.
+ */
+@Configuration
+public class DailySummaryVerifyJobConfig {
+
+    @Bean
+    public Job verifyDailySummaryJob(JobRepository jobRepository, Step verifyDailySummaryStep) {
+        return new JobBuilder("verifyDailySummaryJob", jobRepository)
+                .incrementer(new RunIdIncrementer())
+                .start(verifyDailySummaryStep)
+                .build();
+    }
+
+    @Bean
+    public Step verifyDailySummaryStep(
+            JobRepository jobRepository,
+            PlatformTransactionManager transactionManager,
+            DailySummaryVerifyTasklet dailySummaryVerifyTasklet
+    ) {
+        return new StepBuilder("verifyDailySummaryStep", jobRepository)
+                .tasklet(dailySummaryVerifyTasklet, transactionManager)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public DailySummaryVerifyTasklet dailySummaryVerifyTasklet(
+            DailyAccountSummaryRepository summaryRepository,
+            @Value("#{jobParameters['repair']}") String repair
+    ) {
+        return new DailySummaryVerifyTasklet(summaryRepository, Boolean.parseBoolean(repair));
+    }
+}
@@ -0,0 +1,54 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.StepContribution;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.infrastructure.repeat.RepeatStatus;
+
+import java.util.List;
+
+/**
+ * Compares DAILY_ACCOUNT_SUMMARY with a full recompute from "TRANSACTION" and fails if they differ.
+ * With {@code repair} the summary is rebuilt instead.
+ * <p>
+ * Only the import jobs maintain the summary: transactions created through the API show up as
+ * mismatches until the next repair.
+ */
+@Slf4j
+public class DailySummaryVerifyTasklet implements Tasklet {
+
+	private static final int MAX_LOGGED = 100;
+
+	private final DailyAccountSummaryRepository summaryRepository;
+	private final boolean repair;
+
+	public DailySummaryVerifyTasklet(DailyAccountSummaryRepository summaryRepository, boolean repair) {
+		this.summaryRepository = summaryRepository;
+		this.repair = repair;
+	}
+
+	@Override
+	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+		long start = System.nanoTime();
+		List<DailyAccountSummaryRepository.Mismatch> mismatches = summaryRepository.findMismatches();
+		for (DailyAccountSummaryRepository.Mismatch m : mismatches.subList(0, Math.min(MAX_LOGGED, mismatches.size()))) {
+			log.warn("[SUMMARY-VERIFY] mismatch accountId={} date={} summary={}/{} actual={}/{}",
+					m.accountId(), m.trxDate(), m.summaryCount(), m.summaryTotal(), m.actualCount(), m.actualTotal());
+		}
+		log.info("[SUMMARY-VERIFY] mismatches={} repair={} elapsedMs={}",
+				mismatches.size(), repair, (System.nanoTime() - start) / 1_000_000);
+
+		if (mismatches.isEmpty()) {
+			return RepeatStatus.FINISHED;
+		}
+		if (!repair) {
+			throw new IllegalStateException("DAILY_ACCOUNT_SUMMARY differs from TRANSACTION in "
+					+ mismatches.size() + " account days; run again with repair=true to rebuild it");
+		}
+		int rows = summaryRepository.rebuild();
+		contribution.incrementWriteCount(rows);
+		log.info("[SUMMARY-VERIFY] rebuilt rows={}", rows);
+		return RepeatStatus.FINISHED;
+	}
+}
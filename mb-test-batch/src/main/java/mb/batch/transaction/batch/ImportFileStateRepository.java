@@ -0,0 +1,62 @@
+package mb.batch.transaction.batch;
+
+import mb.batch.transaction.dto.ImportFileState;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * IMPORT_FILE_STATE access (table created by schema-import.sql).
+ */
+@Component
+public class ImportFileStateRepository {
+
+	private final NamedParameterJdbcTemplate jdbc;
+
+	public ImportFileStateRepository(NamedParameterJdbcTemplate jdbc) {
+		this.jdbc = jdbc;
+	}
+
+	public Optional<ImportFileState> find(String resource) {
+		return jdbc.query(
+				"""
+				SELECT RESOURCE, SIZE_BYTES, LAST_MODIFIED, PREFIX_CRC32C, COMMITTED_OFFSET, COMMITTED_LINE
+				FROM IMPORT_FILE_STATE
+				WHERE RESOURCE = :resource
+				""",
+				Map.of("resource", resource),
+				(rs, rowNum) -> ImportFileState.builder()
+						.resource(rs.getString("RESOURCE"))
+						.sizeBytes(rs.getLong("SIZE_BYTES"))
+						.lastModified(rs.getLong("LAST_MODIFIED"))
+						.prefixCrc32c(rs.getLong("PREFIX_CRC32C"))
+						.committedOffset(rs.getLong("COMMITTED_OFFSET"))
+						.committedLine(rs.getLong("COMMITTED_LINE"))
+						.build()
+		).stream().findFirst();
+	}
+
+	public void save(ImportFileState state) {
+		Map<String, Object> params = new HashMap<>();
+		params.put("resource", state.getResource());
+		params.put("sizeBytes", state.getSizeBytes());
+		params.put("lastModified", state.getLastModified());
+		params.put("prefixCrc32c", state.getPrefixCrc32c());
+		params.put("committedOffset", state.getCommittedOffset());
+		params.put("committedLine", state.getCommittedLine());
+		params.put("updatedAt", LocalDateTime.now());
+
+		jdbc.update(
+				"""
+				MERGE INTO IMPORT_FILE_STATE (RESOURCE, SIZE_BYTES, LAST_MODIFIED, PREFIX_CRC32C, COMMITTED_OFFSET, COMMITTED_LINE, UPDATED_AT)
+				KEY (RESOURCE)
+				VALUES (:resource, :sizeBytes, :lastModified, :prefixCrc32c, :committedOffset, :committedLine, :updatedAt)
+				""",
+				params
+		);
+	}
+}
@@ -0,0 +1,128 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.dto.TransactionFileRow;
+import mb.batch.transaction.util.GzipResource;
+import mb.batch.transaction.util.PreviewingBufferedReaderFactory;
+import org.springframework.batch.infrastructure.item.ItemStreamReader;
+import org.springframework.batch.infrastructure.item.file.FlatFileItemReader;
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Locates the input of an import job ({@code inputResource} job parameter or the configured default)
+ * and builds the line-by-line reader the jobs share for compressed and non-file inputs.
+ */
+@Slf4j
+@Component
+public class ImportInputs {
+
+    private final ResourcePatternResolver resolver;
+    private final String defaultInputResource;
+    private final int linesToSkip;
+
+    public ImportInputs(
+            ResourcePatternResolver resolver,
+            @Value("${app.batch.import-transactions.input-resource:file:/data/transactions-source.txt}") String defaultInputResource,
+            @Value("${app.batch.import-transactions.lines-to-skip:1}") int linesToSkip
+    ) {
+        this.resolver = resolver;
+        this.defaultInputResource = defaultInputResource;
+        this.linesToSkip = linesToSkip;
+    }
+
+    public int linesToSkip() {
+        return linesToSkip;
+    }
+
+    public String locationOf(String inputResource) {
+        return (inputResource == null || inputResource.isBlank())
+                ? defaultInputResource
+                : inputResource;
+    }
+
+    public Resource resolve(String inputResource) {
+        String location = locationOf(inputResource);
+        Resource resource = resolver.getResource(location);
+
+        // ---- Resource diagnostics ----
+        log.info("[READER] jobParam.inputResource='{}' default='{}' resolved='{}'",
+                inputResource, defaultInputResource, location);
+        log.info("[READER] resource='{}' exists={} readable={}",
+                resource.getDescription(), resource.exists(), resource.isReadable());
+        try {
+            log.info("[READER] uri={}", resource.getURI());
+        } catch (Exception e) {
+            log.warn("[READER] cannot get URI: {}", e.toString());
+        }
+        try {
+            if (resource.isFile()) {
+                var f = resource.getFile();
+                log.info("[READER] filePath={} sizeBytes={} lastModified={}",
+                        f.getAbsolutePath(), f.length(), Instant.ofEpochMilli(f.lastModified()));
+            }
+        } catch (Exception e) {
+            log.warn("[READER] cannot access file metadata: {}", e.toString());
+        }
+        // ----------------------------
+
+        return resource;
+    }
+
+    /**
+     * Reads line by line through a FlatFileItemReader feeding {@link QuarantiningLineReader}, from the start.
+     */
+    public ItemStreamReader<TransactionFileRow> lineReader(
+            Resource resource,
+            LineMapper<TransactionFileRow> transactionLineMapper,
+            RecordQuarantine recordQuarantine
+    ) {
+        if (GzipResource.isGzip(resource)) {
+            FlatFileItemReader<QuarantiningLineReader.NumberedLine> lines = flatFileReader(new GzipResource(resource));
+            // preview while reading: opening the stream twice means inflating the head twice
+            lines.setBufferedReaderFactory(new PreviewingBufferedReaderFactory(GzipResource.BUFFER_SIZE, 10));
+            return new QuarantiningLineReader(lines, new TransactionLineParser(transactionLineMapper), recordQuarantine);
+        }
+        previewFirstLines(resource, 10);
+        return new QuarantiningLineReader(flatFileReader(resource),
+                new TransactionLineParser(transactionLineMapper), recordQuarantine);
+    }
+
+    public void previewFirstLines(Resource resource, int maxLines) {
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            for (int i = 1; i <= maxLines; i++) {
+                String line = br.readLine();
+                if (line == null) break;
+                log.info("[READER-PREVIEW] {}: [{}]", i, line);
+            }
+        } catch (Exception e) {
+            log.warn("[READER-PREVIEW] failed: {}", e.toString());
+        }
+    }
+
+    private FlatFileItemReader<QuarantiningLineReader.NumberedLine> flatFileReader(Resource resource) {
+        FlatFileItemReader<QuarantiningLineReader.NumberedLine> reader =
+                new FlatFileItemReader<>(resource, QuarantiningLineReader.NumberedLine::new);
+        reader.setName("transactionFileReader");
+
+        // fail fast if file missing (default is true, keeping explicit)
+        reader.setStrict(true);
+
+        reader.setLinesToSkip(linesToSkip);
+        reader.setSkippedLinesCallback(line -> log.info("[READER] skippedHeader='{}'", line));
+
+        // IMPORTANT FIX: DO NOT use RecordSeparatorPolicy for “blank lines between records”
+        // reader.setRecordSeparatorPolicy(new TrimBlankLineRecordSeparatorPolicy());
+
+        return reader;
+    }
+}
@@ -0,0 +1,131 @@
+package mb.batch.transaction.batch;
+
+import mb.batch.transaction.dto.TransactionFileRow;
+import mb.batch.transaction.dto.TransactionInsertRow;
+import mb.batch.transaction.exception.InvalidTransactionRecordException;
+import mb.batch.transaction.util.TransactionImportLoggingListener;
+import mb.batch.transaction.util.TransactionImportSkipListener;
+import org.springframework.batch.core.listener.ChunkListener;
+import org.springframework.batch.core.listener.ItemProcessListener;
+import org.springframework.batch.core.listener.ItemReadListener;
+import org.springframework.batch.core.listener.ItemWriteListener;
+import org.springframework.batch.core.listener.StepExecutionListener;
+import org.springframework.batch.core.listener.StepListener;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.Step;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.infrastructure.item.ItemStreamReader;
+import org.springframework.batch.infrastructure.item.file.FlatFileParseException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Builds the chunk step every import job reads its input with: reader, {@link TransactionImportProcessor},
+ * {@link TransactionImportWriter}, skip policy and listeners, with a fixed or an adaptive chunk size.
+ */
+@Component
+public class ImportStepFactory {
+
+    private final JobRepository jobRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionImportProcessor processor;
+    private final TransactionImportWriter writer;
+    private final TransactionImportSkipListener skipListener;
+    private final TransactionImportLoggingListener loggingListener;
+    private final int chunkSize;
+    private final int skipLimit;
+    private final boolean adaptiveChunkSize;
+    private final int chunkSizeMin;
+    private final int chunkSizeMax;
+    private final long chunkTargetMillis;
+
+    public ImportStepFactory(
+            JobRepository jobRepository,
+            PlatformTransactionManager transactionManager,
+            TransactionImportProcessor processor,
+            TransactionImportWriter writer,
+            TransactionImportSkipListener skipListener,
+            TransactionImportLoggingListener loggingListener,
+            @Value("${app.batch.import-transactions.chunk-size:100}") int chunkSize,
+            // read skips include the lines sent to the quarantine
+            @Value("${app.batch.import-transactions.skip-limit:500}") int skipLimit,
+            // see AdaptiveChunkSizePolicy; chunk-size is the initial size
+            @Value("${app.batch.import-transactions.adaptive-chunk-size:false}") boolean adaptiveChunkSize,
+            @Value("${app.batch.import-transactions.chunk-size-min:10}") int chunkSizeMin,
+            @Value("${app.batch.import-transactions.chunk-size-max:5000}") int chunkSizeMax,
+            @Value("${app.batch.import-transactions.chunk-target-millis:250}") long chunkTargetMillis
+    ) {
+        this.jobRepository = jobRepository;
+        this.transactionManager = transactionManager;
+        this.processor = processor;
+        this.writer = writer;
+        this.skipListener = skipListener;
+        this.loggingListener = loggingListener;
+        this.chunkSize = chunkSize;
+        this.skipLimit = skipLimit;
+        this.adaptiveChunkSize = adaptiveChunkSize;
+        this.chunkSizeMin = chunkSizeMin;
+        this.chunkSizeMax = chunkSizeMax;
+        this.chunkTargetMillis = chunkTargetMillis;
+    }
+
+    public Step importStep(String name, ItemStreamReader<TransactionFileRow> reader, StepExecutionListener... stepListeners) {
+        if (adaptiveChunkSize) {
+            return adaptiveImportStep(name, reader, stepListeners);
+        }
+
+        var builder = new StepBuilder(name, jobRepository)
+                .<TransactionFileRow, TransactionInsertRow>chunk(chunkSize)
+                .transactionManager(transactionManager)
+                .reader(reader)
+                .processor(processor)
+                .writer(writer)
+                // cast selects listener(StepListener), which also registers the read/process/write callbacks;
+                // the inherited listener(StepExecutionListener) overload only registers beforeStep/afterStep
+                .listener((StepListener) loggingListener)
+                .faultTolerant()
+                .skipLimit(skipLimit)
+                .skip(FlatFileParseException.class)
+                .skip(InvalidTransactionRecordException.class)
+                .skipListener(skipListener);
+        for (StepExecutionListener stepListener : stepListeners) {
+            builder.listener(stepListener);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Same step as {@link #importStep} on the older TaskletStep implementation, which is the one that
+     * accepts a completion policy: the chunk-oriented step of Spring Batch 6 only supports a fixed size.
+     */
+    @SuppressWarnings("removal")
+    private Step adaptiveImportStep(String name, ItemStreamReader<TransactionFileRow> reader, StepExecutionListener... stepListeners) {
+        AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(chunkSize, chunkSizeMin, chunkSizeMax, chunkTargetMillis);
+
+        var builder = new StepBuilder(name, jobRepository)
+                .<TransactionFileRow, TransactionInsertRow>chunk(policy, transactionManager)
+                .reader(reader)
+                .processor(processor)
+                .writer(writer)
+                // listener(Object) only picks up annotated methods here: register every callback type.
+                // Chunk callbacks run in registration order, the policy picks the size the logging listener logs.
+                .listener((ChunkListener<?, ?>) policy)
+                .listener((ItemWriteListener<TransactionInsertRow>) policy)
+                .listener((StepExecutionListener) policy)
+                .listener((ChunkListener<?, ?>) loggingListener)
+                .listener((ItemReadListener<TransactionFileRow>) loggingListener)
+                .listener((ItemProcessListener<TransactionFileRow, TransactionInsertRow>) loggingListener)
+                .listener((ItemWriteListener<TransactionInsertRow>) loggingListener)
+                .listener((StepExecutionListener) loggingListener)
+                .faultTolerant()
+                .skipLimit(skipLimit)
+                .skip(FlatFileParseException.class)
+                .skip(InvalidTransactionRecordException.class)
+                .listener(skipListener);
+        for (StepExecutionListener stepListener : stepListeners) {
+            builder.listener(stepListener);
+        }
+        return builder.build();
+    }
+}
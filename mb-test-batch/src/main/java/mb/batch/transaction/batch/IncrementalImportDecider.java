@@ -0,0 +1,148 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.dto.ImportFileState;
+import mb.batch.transaction.util.FileChecksums;
+import mb.batch.transaction.util.GzipResource;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
+import org.springframework.batch.core.job.parameters.JobParameters;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Incremental mode ({@code app.batch.import-transactions.incremental}, or the job parameter
+ * {@code incremental} where given): compares the input file with
+ * its IMPORT_FILE_STATE fingerprint and decides where the import starts.
+ * <ul>
+ *     <li>UNCHANGED - everything up to the end of the file was imported already, the step is skipped</li>
+ *     <li>APPEND - the imported prefix is intact, reading resumes at the stored offset and line number</li>
+ *     <li>CHANGED - the imported prefix differs (edited, truncated, replaced), full re-import</li>
+ *     <li>FULL - first import of the file, non-file or compressed resource, or incremental mode off</li>
+ * </ul>
+ * The start offset, start line and file path are put into the job execution context for the reader
+ * and for {@link mb.batch.transaction.util.ImportFileStateListener}.
+ * <p>
+ * The reader stops at the last complete line, since the file may still be appended to. An
+ * unterminated last line is imported once the file is the same size and age as after the previous run:
+ * nobody has written to it since, so the line is complete without its newline.
+ */
+@Slf4j
+@Component
+public class IncrementalImportDecider implements JobExecutionDecider {
+
+	public static final String START_OFFSET_KEY = "importStartOffset";
+	public static final String START_LINE_KEY = "importStartLine";
+	public static final String FILE_KEY = "importFile";
+	public static final String INCLUDE_UNTERMINATED_KEY = "importIncludeUnterminated";
+
+	public static final FlowExecutionStatus FULL = new FlowExecutionStatus("FULL");
+	public static final FlowExecutionStatus APPEND = new FlowExecutionStatus("APPEND");
+	public static final FlowExecutionStatus CHANGED = new FlowExecutionStatus("CHANGED");
+	public static final FlowExecutionStatus UNCHANGED = new FlowExecutionStatus("UNCHANGED");
+
+	private final ResourcePatternResolver resolver;
+	private final ImportFileStateRepository stateRepository;
+	private final boolean incremental;
+	private final String defaultInputResource;
+
+	public IncrementalImportDecider(
+			ResourcePatternResolver resolver,
+			ImportFileStateRepository stateRepository,
+			@Value("${app.batch.import-transactions.incremental:false}") boolean incremental,
+			@Value("${app.batch.import-transactions.input-resource:file:/data/transactions-source.txt}") String defaultInputResource
+	) {
+		this.resolver = resolver;
+		this.stateRepository = stateRepository;
+		this.incremental = incremental;
+		this.defaultInputResource = defaultInputResource;
+	}
+
+	@Override
+	public FlowExecutionStatus decide(JobExecution jobExecution, StepExecution stepExecution) {
+		ExecutionContext ctx = jobExecution.getExecutionContext();
+		ctx.putLong(START_OFFSET_KEY, 0L);
+		ctx.putLong(START_LINE_KEY, 0L);
+		ctx.put(INCLUDE_UNTERMINATED_KEY, false);
+		if (!isIncremental(jobExecution.getJobParameters())) {
+			return FULL;
+		}
+
+		String inputResource = jobExecution.getJobParameters().getString("inputResource");
+		String location = (inputResource == null || inputResource.isBlank()) ? defaultInputResource : inputResource;
+		Resource resource = resolver.getResource(location);
+		if (!resource.isFile() || GzipResource.isGzip(resource)) {
+			log.warn("[INCREMENTAL] resource='{}' is not a plain uncompressed file, importing in full", resource.getDescription());
+			return FULL;
+		}
+
+		try {
+			Path path = resource.getFile().toPath().toAbsolutePath();
+			long size = Files.size(path);
+			long lastModified = Files.getLastModifiedTime(path).toMillis();
+			ctx.putString(FILE_KEY, path.toString());
+
+			Optional<ImportFileState> stored = stateRepository.find(path.toString());
+			FlowExecutionStatus status = stored
+					.map(state -> compare(state, path, size, lastModified))
+					.orElse(FULL);
+			if (status == APPEND) {
+				ImportFileState state = stored.get();
+				ctx.putLong(START_OFFSET_KEY, state.getCommittedOffset());
+				ctx.putLong(START_LINE_KEY, state.getCommittedLine());
+				if (size == state.getSizeBytes() && lastModified == state.getLastModified()) {
+					log.info("[INCREMENTAL] file={} unchanged since the last run, importing its {} remaining bytes "
+							+ "including an unterminated last line", path, size - state.getCommittedOffset());
+					ctx.put(INCLUDE_UNTERMINATED_KEY, true);
+				}
+			}
+
+			log.info("[INCREMENTAL] file={} status={} size={} lastModified={} storedSize={} committedOffset={} committedLine={}",
+					path, status.getName(), size, lastModified,
+					stored.map(ImportFileState::getSizeBytes).orElse(null),
+					stored.map(ImportFileState::getCommittedOffset).orElse(null),
+					stored.map(ImportFileState::getCommittedLine).orElse(null));
+			return status;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot fingerprint " + location, e);
+		}
+	}
+
+	/**
+	 * The job parameter {@code incremental} (set by the daemon trigger) overrides the property.
+	 */
+	public boolean isIncremental(JobParameters jobParameters) {
+		String parameter = jobParameters.getString("incremental");
+		return parameter == null ? incremental : Boolean.parseBoolean(parameter);
+	}
+
+	private FlowExecutionStatus compare(ImportFileState state, Path path, long size, long lastModified) {
+		long committed = state.getCommittedOffset();
+		if (committed > size) {
+			return CHANGED;
+		}
+		if (size == state.getSizeBytes() && lastModified == state.getLastModified() && committed == size) {
+			// untouched since the last complete import: no need to hash
+			return UNCHANGED;
+		}
+		try {
+			if (FileChecksums.crc32c(path, committed) != state.getPrefixCrc32c()) {
+				return CHANGED;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot checksum " + path, e);
+		}
+		return committed == size ? UNCHANGED : APPEND;
+	}
+}
@@ -0,0 +1,226 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.dto.TransactionFileRow;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.infrastructure.item.ItemStreamException;
+import org.springframework.batch.infrastructure.item.ItemStreamReader;
+import org.springframework.batch.infrastructure.item.ItemStreamSupport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads pipe-delimited transaction records from a memory-mapped file, optionally limited to the
+ * byte range [startOffset, endOffset) of one partition.
+ * <p>
+ * Behaves like the FlatFileItemReader + transactionLineMapper pair it replaces: header lines are
+ * skipped, '#' lines are comments. Blank and malformed lines are not thrown but handed to the
+ * {@link RecordQuarantine} with the physical line number (counted from the start of the range),
+ * and reading goes on with the next line. The byte offset and line number are saved in the
+ * {@link ExecutionContext}, so a restart resumes at the last committed line without re-reading the file.
+ * <p>
+ * For files that are appended to ({@link #setCompleteLinesOnly}), the range ends after the last line
+ * terminator: a line that is still being written is left for the next run instead of being imported
+ * half. {@link #setStartLine} continues the line numbers of an earlier run that stopped at startOffset.
+ */
+@Slf4j
+public class MappedTransactionFileReader extends ItemStreamSupport implements ItemStreamReader<TransactionFileRow> {
+
+	public static final String OFFSET_KEY = "offset";
+	public static final String LINE_KEY = "line";
+
+	/** Mapped window size; lines may not be longer than this. */
+	private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+	private final Path path;
+	private final TransactionLineParser parser;
+	private final RecordQuarantine quarantine;
+	private final long startOffset;
+	private final long requestedEndOffset;
+	private final int linesToSkip;
+	private final long windowSize;
+	private int startLine;
+	private boolean completeLinesOnly;
+
+	private FileChannel channel;
+	private MappedByteBuffer window;
+	private long windowStart;
+	private long endOffset;
+
+	private long position;
+	private int lineNumber;
+
+	/**
+	 * @param endOffset exclusive end of the range, or -1 for end of file
+	 */
+	public MappedTransactionFileReader(Path path, TransactionLineParser parser, RecordQuarantine quarantine,
+									   long startOffset, long endOffset, int linesToSkip) {
+		this(path, parser, quarantine, startOffset, endOffset, linesToSkip, WINDOW_SIZE);
+	}
+
+	// tests map small windows to cross window boundaries
+	MappedTransactionFileReader(Path path, TransactionLineParser parser, RecordQuarantine quarantine,
+								long startOffset, long endOffset, int linesToSkip, long windowSize) {
+		this.path = path;
+		this.parser = parser;
+		this.quarantine = quarantine;
+		this.startOffset = startOffset;
+		this.requestedEndOffset = endOffset;
+		this.linesToSkip = linesToSkip;
+		this.windowSize = windowSize;
+	}
+
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * @param startLine number of lines before startOffset, so that line numbers count from the start of the file
+	 */
+	public void setStartLine(int startLine) {
+		this.startLine = startLine;
+	}
+
+	/**
+	 * @param completeLinesOnly ignore bytes after the last '\n' of the range (a line still being appended)
+	 */
+	public void setCompleteLinesOnly(boolean completeLinesOnly) {
+		this.completeLinesOnly = completeLinesOnly;
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		position = executionContext.getLong(getExecutionContextKey(OFFSET_KEY), startOffset);
+		lineNumber = executionContext.getInt(getExecutionContextKey(LINE_KEY), startLine);
+		try {
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+			long size = channel.size();
+			endOffset = requestedEndOffset < 0 ? size : Math.min(requestedEndOffset, size);
+			if (completeLinesOnly && endOffset > position) {
+				long complete = afterLastLineEnd(position, endOffset);
+				if (complete < endOffset) {
+					log.warn("[READER] leaving {} bytes of an unterminated last line unimported until the file is unchanged for a run",
+							endOffset - complete);
+				}
+				endOffset = complete;
+			}
+		} catch (IOException e) {
+			throw new ItemStreamException("Cannot open " + path, e);
+		}
+
+		window = null;
+		quarantine.open(executionContext);
+
+		log.info("[READER] mapped file={} range={}..{} resumeOffset={} resumeLine={}",
+				path, startOffset, endOffset, position, lineNumber);
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+		executionContext.putInt(getExecutionContextKey(LINE_KEY), lineNumber);
+		quarantine.update(executionContext);
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+		window = null;
+		quarantine.close();
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				throw new ItemStreamException("Cannot close " + path, e);
+			} finally {
+				channel = null;
+			}
+		}
+	}
+
+	@Override
+	public TransactionFileRow read() throws Exception {
+		while (position < endOffset) {
+			if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+				mapWindowAt(position);
+			}
+			int from = (int) (position - windowStart);
+			int to = lineEnd(from);
+			if (to < 0 && windowStart + window.limit() < endOffset) {
+				// line crosses the window boundary: remap starting at this line
+				mapWindowAt(position);
+				from = 0;
+				to = lineEnd(0);
+				if (to < 0 && window.limit() < endOffset - windowStart) {
+					throw new IllegalStateException("Line at offset " + position + " is longer than " + windowSize + " bytes");
+				}
+			}
+			if (to < 0) {
+				// last line of the range without a terminator
+				to = window.limit();
+			}
+			int contentEnd = (to > from && window.get(to - 1) == '\r') ? to - 1 : to;
+
+			position = Math.min(windowStart + to + 1, endOffset);
+			lineNumber++;
+
+			if (lineNumber <= linesToSkip) {
+				log.info("[READER] skippedHeader='{}'", decode(from, contentEnd));
+				continue;
+			}
+			if (contentEnd > from && window.get(from) == '#') {
+				continue;
+			}
+
+			TransactionFileRow row = parser.parse(window, from, contentEnd, lineNumber);
+			if (row != null) {
+				return row;
+			}
+			quarantine.reject(lineNumber, parser.getRejectReason(), decode(from, contentEnd));
+		}
+		return null;
+	}
+
+	private void mapWindowAt(long offset) throws IOException {
+		windowStart = offset;
+		window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, endOffset - offset));
+	}
+
+	/** Offset just past the last '\n' in [from, to), or {@code from} if there is none. */
+	private long afterLastLineEnd(long from, long to) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long end = to;
+		while (end > from) {
+			long start = Math.max(from, end - buffer.capacity());
+			buffer.clear().limit((int) (end - start));
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, start + buffer.position()) < 0) break;
+			}
+			for (int i = buffer.position() - 1; i >= 0; i--) {
+				if (buffer.get(i) == '\n') return start + i + 1;
+			}
+			end = start;
+		}
+		return from;
+	}
+
+	/** Index of the next '\n' at or after {@code from} in the window, or -1. */
+	private int lineEnd(int from) {
+		int limit = window.limit();
+		for (int i = from; i < limit; i++) {
+			if (window.get(i) == '\n') return i;
+		}
+		return -1;
+	}
+
+	private String decode(int from, int to) {
+		byte[] bytes = new byte[to - from];
+		window.get(from, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,107 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.dto.TransactionFileRow;
+import mb.batch.transaction.util.ImportedFileMover;
+import mb.batch.transaction.util.TransactionIdCachePrewarmListener;
+import mb.batch.transaction.util.TransactionImportLoggingListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.Job;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.parameters.RunIdIncrementer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.Step;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.infrastructure.item.ItemStreamReader;
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * Imports every file matched by the {@code inputResource} pattern (e.g. {@code file:/data/incoming/*.txt}),
+ * up to {@code file-concurrency} files at a time, see {@link TransactionFilePartitioner}.
+ * Each file has its own worker step execution; restarting a failed job only imports the files that
+ * failed, see {@link ImportedFileMover}.
+ */
+@Slf4j
+@Configuration
+public class MultiFileImportJobConfig {
+
+    // files imported at the same time, same pool budget as grid-size
+    @Value("${app.batch.import-transactions.file-concurrency:4}")
+    private int fileConcurrency;
+
+    @Bean
+    public Job importTransactionsMultiFileJob(JobRepository jobRepository, Step importTransactionsFilesManagerStep) {
+        return new JobBuilder("importTransactionsMultiFileJob", jobRepository)
+                .incrementer(new RunIdIncrementer())
+                .start(importTransactionsFilesManagerStep)
+                .build();
+    }
+
+    @Bean
+    public Step importTransactionsFilesManagerStep(
+            JobRepository jobRepository,
+            TransactionFilePartitioner transactionFilePartitioner,
+            Step importTransactionsFileWorkerStep,
+            TransactionImportLoggingListener loggingListener,
+            TransactionIdCachePrewarmListener prewarmListener
+    ) {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("import-file-");
+        taskExecutor.setConcurrencyLimit(fileConcurrency);
+
+        return new StepBuilder("importTransactionsFilesManagerStep", jobRepository)
+                .partitioner("importTransactionsFileWorkerStep", transactionFilePartitioner)
+                .step(importTransactionsFileWorkerStep)
+                .taskExecutor(taskExecutor)
+                .listener(loggingListener)
+                .listener(prewarmListener)
+                .build();
+    }
+
+    @Bean
+    public Step importTransactionsFileWorkerStep(
+            ImportStepFactory importStepFactory,
+            ItemStreamReader<TransactionFileRow> transactionInputFileReader,
+            ImportedFileMover importedFileMover
+    ) {
+        // moved once the step has closed the file, not from afterStep
+        return new PerExecutionStep("importTransactionsFileWorkerStep", () -> importStepFactory.importStep(
+                "importTransactionsFileWorkerStep", transactionInputFileReader),
+                importedFileMover::move);
+    }
+
+    @Bean
+    @StepScope
+    public TransactionFilePartitioner transactionFilePartitioner(
+            ResourcePatternResolver resolver,
+            ImportInputs importInputs,
+            @Value("#{jobParameters['inputResource']}") String inputResource,
+            @Value("#{stepExecution}") StepExecution stepExecution
+    ) {
+        return new TransactionFilePartitioner(resolver, importInputs.locationOf(inputResource), stepExecution);
+    }
+
+    /**
+     * Reads the file of one {@link TransactionFilePartitioner} partition (header skipped, compressed
+     * files supported, no incremental offset). Not memory-mapped: a mapping outlives the closed channel
+     * until it is garbage collected, and on Windows a mapped file cannot be moved, which
+     * {@link ImportedFileMover} does right after the worker.
+     */
+    @Bean
+    @StepScope
+    public ItemStreamReader<TransactionFileRow> transactionInputFileReader(
+            ImportInputs importInputs,
+            LineMapper<TransactionFileRow> transactionLineMapper,
+            RecordQuarantine recordQuarantine,
+            @Value("#{stepExecutionContext['inputFile']}") String inputFile
+    ) {
+        log.info("[READER] file='{}'", inputFile);
+        return importInputs.lineReader(new FileSystemResource(inputFile), transactionLineMapper, recordQuarantine);
+    }
+}
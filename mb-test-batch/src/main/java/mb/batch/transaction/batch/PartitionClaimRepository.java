@@ -0,0 +1,77 @@
+package mb.batch.transaction.batch;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Worker side of {@link RepositoryPartitionHandler}: claims published partitions straight from
+ * BATCH_STEP_EXECUTION. The claim is a conditional update of the row (STARTING to STARTED), so of
+ * several workers racing for a partition exactly one sees an update count of 1; the row lock of that
+ * update makes the others wait and then find the status changed.
+ */
+@Component
+public class PartitionClaimRepository {
+
+	/**
+	 * A claimed worker step execution.
+	 */
+	public record Claim(long jobExecutionId, long stepExecutionId, String stepName) {
+	}
+
+	private final NamedParameterJdbcTemplate jdbc;
+
+	public PartitionClaimRepository(NamedParameterJdbcTemplate jdbc) {
+		this.jdbc = jdbc;
+	}
+
+	/**
+	 * Claims the oldest unclaimed execution of {@code stepName} (partition names are
+	 * {@code stepName:partitionN}) whose job execution is still running.
+	 */
+	public Optional<Claim> claim(String stepName) {
+		List<Claim> candidates = jdbc.query(
+				"""
+				SELECT s.JOB_EXECUTION_ID, s.STEP_EXECUTION_ID, s.STEP_NAME
+				FROM BATCH_STEP_EXECUTION s
+				JOIN BATCH_JOB_EXECUTION j ON j.JOB_EXECUTION_ID = s.JOB_EXECUTION_ID
+				WHERE s.STEP_NAME LIKE :stepName AND s.STATUS = 'STARTING' AND j.STATUS IN ('STARTING', 'STARTED')
+				ORDER BY s.STEP_EXECUTION_ID
+				""",
+				Map.of("stepName", stepName + ":%"),
+				(rs, rowNum) -> new Claim(rs.getLong(1), rs.getLong(2), rs.getString(3)));
+
+		for (Claim candidate : candidates) {
+			int claimed = jdbc.update(
+					"""
+					UPDATE BATCH_STEP_EXECUTION
+					SET STATUS = 'STARTED', VERSION = VERSION + 1, LAST_UPDATED = :now
+					WHERE STEP_EXECUTION_ID = :id AND STATUS = 'STARTING'
+					""",
+					Map.of("id", candidate.stepExecutionId(), "now", LocalDateTime.now()));
+			if (claimed == 1) {
+				return Optional.of(candidate);
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Refreshes LAST_UPDATED of the executions this worker is running, which tells the manager they
+	 * are alive.
+	 */
+	public void heartbeat(Collection<Long> stepExecutionIds) {
+		if (stepExecutionIds.isEmpty()) return;
+		jdbc.update(
+				"""
+				UPDATE BATCH_STEP_EXECUTION SET LAST_UPDATED = :now
+				WHERE STEP_EXECUTION_ID IN (:ids) AND STATUS = 'STARTED'
+				""",
+				Map.of("ids", stepExecutionIds, "now", LocalDateTime.now()));
+	}
+}
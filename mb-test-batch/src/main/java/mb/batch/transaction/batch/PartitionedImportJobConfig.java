@@ -0,0 +1,84 @@
+package mb.batch.transaction.batch;
+
+import mb.batch.transaction.dto.TransactionFileRow;
+import mb.batch.transaction.util.SortedInputCleanupListener;
+import mb.batch.transaction.util.TransactionIdCachePrewarmListener;
+import mb.batch.transaction.util.TransactionImportLoggingListener;
+import org.springframework.batch.core.job.Job;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.parameters.RunIdIncrementer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.Step;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.infrastructure.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * Same import as {@link TransactionImportBatchConfig#importTransactionsJob}, but the input file is split into
+ * {@code grid-size} line-aligned byte ranges that are imported concurrently.
+ */
+@Configuration
+public class PartitionedImportJobConfig {
+
+    // see TransactionSortTasklet
+    @Value("${app.batch.import-transactions.sort-input:false}")
+    private boolean sortInput;
+
+    // keep below half of the datasource pool: each worker holds its chunk connection plus one for upserts
+    @Value("${app.batch.import-transactions.grid-size:4}")
+    private int gridSize;
+
+    @Bean
+    public Job importTransactionsPartitionedJob(
+            JobRepository jobRepository,
+            Step sortTransactionsStep,
+            Step importTransactionsManagerStep,
+            SortedInputCleanupListener sortedInputCleanupListener
+    ) {
+        JobBuilder builder = new JobBuilder("importTransactionsPartitionedJob", jobRepository)
+                .incrementer(new RunIdIncrementer());
+        if (!sortInput) {
+            return builder.start(importTransactionsManagerStep).build();
+        }
+        // the sorted copy is a plain file: compressed input can be partitioned this way
+        return builder
+                .listener(sortedInputCleanupListener)
+                .start(sortTransactionsStep)
+                .next(importTransactionsManagerStep)
+                .build();
+    }
+
+    @Bean
+    public Step importTransactionsManagerStep(
+            JobRepository jobRepository,
+            TransactionFileRangePartitioner transactionFileRangePartitioner,
+            Step importTransactionsWorkerStep,
+            TransactionImportLoggingListener loggingListener,
+            TransactionIdCachePrewarmListener prewarmListener
+    ) {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("import-partition-");
+        taskExecutor.setConcurrencyLimit(gridSize);
+
+        return new StepBuilder("importTransactionsManagerStep", jobRepository)
+                .partitioner("importTransactionsWorkerStep", transactionFileRangePartitioner)
+                .step(importTransactionsWorkerStep)
+                .gridSize(gridSize)
+                .taskExecutor(taskExecutor)
+                .listener(loggingListener)
+                // warm once here rather than in every worker
+                .listener(prewarmListener)
+                .build();
+    }
+
+    @Bean
+    public Step importTransactionsWorkerStep(
+            ImportStepFactory importStepFactory,
+            ItemStreamReader<TransactionFileRow> transactionRangeReader
+    ) {
+        return new PerExecutionStep("importTransactionsWorkerStep", () -> importStepFactory.importStep(
+                "importTransactionsWorkerStep", transactionRangeReader));
+    }
+}
@@ -0,0 +1,44 @@
+package mb.batch.transaction.batch;
+
+import org.springframework.batch.core.job.JobInterruptedException;
+import org.springframework.batch.core.step.Step;
+import org.springframework.batch.core.step.StepExecution;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Builds a fresh delegate step for every execution.
+ * ChunkOrientedStep keeps its end-of-input flag in the step instance, so partitions that share one
+ * instance concurrently stop each other early. Worker steps are therefore wrapped in this class.
+ * <p>
+ * {@code afterExecution} runs once the delegate has finished completely, i.e. after its streams are
+ * closed and its status is saved, unlike a StepExecutionListener's afterStep.
+ */
+public class PerExecutionStep implements Step {
+
+	private final String name;
+	private final Supplier<Step> factory;
+	private final Consumer<StepExecution> afterExecution;
+
+	public PerExecutionStep(String name, Supplier<Step> factory) {
+		this(name, factory, stepExecution -> { });
+	}
+
+	public PerExecutionStep(String name, Supplier<Step> factory, Consumer<StepExecution> afterExecution) {
+		this.name = name;
+		this.factory = factory;
+		this.afterExecution = afterExecution;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void execute(StepExecution stepExecution) throws JobInterruptedException {
+		factory.get().execute(stepExecution);
+		afterExecution.accept(stepExecution);
+	}
+}
@@ -0,0 +1,70 @@
+package mb.batch.transaction.batch;
+
+import mb.batch.transaction.dto.TransactionFileRow;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.infrastructure.item.ItemStreamException;
+import org.springframework.batch.infrastructure.item.ItemStreamReader;
+import org.springframework.batch.infrastructure.item.file.FlatFileItemReader;
+
+/**
+ * The line-by-line counterpart of {@link MappedTransactionFileReader} for inputs that cannot be
+ * mapped (compressed files, classpath, URL): a FlatFileItemReader supplies the raw lines with their
+ * line numbers, the {@link TransactionLineParser} maps them, and rejected lines go to the
+ * {@link RecordQuarantine} instead of being thrown.
+ * <p>
+ * The delegate counts every line it hands out, rejected or not, so a restart by item count resumes
+ * after the last committed line as before.
+ */
+public class QuarantiningLineReader implements ItemStreamReader<TransactionFileRow> {
+
+	private final FlatFileItemReader<NumberedLine> delegate;
+	private final TransactionLineParser parser;
+	private final RecordQuarantine quarantine;
+
+	public QuarantiningLineReader(FlatFileItemReader<NumberedLine> delegate, TransactionLineParser parser,
+								  RecordQuarantine quarantine) {
+		this.delegate = delegate;
+		this.parser = parser;
+		this.quarantine = quarantine;
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		delegate.open(executionContext);
+		quarantine.open(executionContext);
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		delegate.update(executionContext);
+		quarantine.update(executionContext);
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+		try {
+			delegate.close();
+		} finally {
+			quarantine.close();
+		}
+	}
+
+	@Override
+	public TransactionFileRow read() throws Exception {
+		NumberedLine line;
+		while ((line = delegate.read()) != null) {
+			TransactionFileRow row = parser.parse(line.text(), line.number());
+			if (row != null) {
+				return row;
+			}
+			quarantine.reject(line.number(), parser.getRejectReason(), line.text());
+		}
+		return null;
+	}
+
+	/**
+	 * A physical line of the input and its 1-based number.
+	 */
+	public record NumberedLine(String text, int number) {
+	}
+}
@@ -0,0 +1,99 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.dto.RejectedRecord;
+import mb.batch.transaction.util.TransactionImportMetrics;
+import org.springframework.batch.core.step.StepContribution;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.infrastructure.item.ItemStreamException;
+import org.springframework.batch.infrastructure.item.file.FlatFileItemWriter;
+import org.springframework.batch.infrastructure.item.file.builder.FlatFileItemWriterBuilder;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Path;
+
+/**
+ * Quarantine file for the input lines a reader rejects: {@code LINE_NUMBER|REASON|INPUT}, one file
+ * per step execution (and partition), removed again if nothing was rejected.
+ * <p>
+ * Lines go to a buffered, non-transactional writer that is flushed when a chunk commits. A restart
+ * truncates the file to the last committed position, which is where the reader resumes, so every
+ * line is quarantined once. A reader that is not re-invoked after a rollback keeps its rejects.
+ * <p>
+ * A reject counts as a read skip of the chunk's {@link ChunkContributions contribution}, exactly like
+ * the FlatFileParseException it replaces, and fails the step once the step's committed skips plus those
+ * of the current chunk exceed {@code skipLimit}. Like the chunk's other counts, the skips of a chunk
+ * that rolls back are dropped (its lines stay in the file). A step that never ends (the
+ * streaming import) calls {@link #startWindow()} instead, so that the limit applies to the rejects
+ * since then. Owned by the reader, which forwards open/update/close.
+ */
+@Slf4j
+public class RecordQuarantine {
+
+	private final Path file;
+	private final FlatFileItemWriter<RejectedRecord> writer;
+	private final StepExecution stepExecution;
+	private final TransactionImportMetrics metrics;
+	private final int skipLimit;
+
+	private long rejected;
+	// rejects since startWindow(), -1 while the limit applies to the whole step
+	private long windowRejected = -1;
+
+	public RecordQuarantine(Path file, StepExecution stepExecution, TransactionImportMetrics metrics, int skipLimit) {
+		this.file = file;
+		this.stepExecution = stepExecution;
+		this.metrics = metrics;
+		this.skipLimit = skipLimit;
+		this.writer = new FlatFileItemWriterBuilder<RejectedRecord>()
+				.name("transactionQuarantine")
+				.resource(new FileSystemResource(file))
+				.lineAggregator(r -> r.lineNumber() + "|" + r.reason().label() + "|" + r.input())
+				.headerCallback(w -> w.write("LINE_NUMBER|REASON|INPUT"))
+				// rejects of a rolled back chunk are not read again
+				.transactional(false)
+				.shouldDeleteIfEmpty(true)
+				.build();
+	}
+
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		writer.open(executionContext);
+		rejected = 0;
+		windowRejected = -1;
+	}
+
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		writer.update(executionContext);
+	}
+
+	public void close() throws ItemStreamException {
+		writer.close();
+		if (rejected > 0) {
+			log.info("[QUARANTINE] file={} rejected={}", file, rejected);
+		}
+	}
+
+	/**
+	 * From now on, the skip limit applies to the rejects after this call only.
+	 */
+	public void startWindow() {
+		windowRejected = 0;
+	}
+
+	public void reject(int lineNumber, RejectedRecord.Reason reason, String input) throws Exception {
+		log.debug("[QUARANTINE] line={} reason={} input={}", lineNumber, reason.label(), input);
+		writer.write(new Chunk<>(new RejectedRecord(lineNumber, reason, input)));
+		rejected++;
+		metrics.rejected(reason);
+
+		StepContribution contribution = ChunkContributions.current(stepExecution);
+		contribution.incrementReadSkipCount();
+		boolean exceeded = windowRejected < 0 ? contribution.getStepSkipCount() > skipLimit : ++windowRejected > skipLimit;
+		if (exceeded) {
+			throw new IllegalStateException("Skip limit of " + skipLimit + " exceeded at line " + lineNumber
+					+ " (" + reason.label() + "); rejected lines so far are in " + file);
+		}
+	}
+}
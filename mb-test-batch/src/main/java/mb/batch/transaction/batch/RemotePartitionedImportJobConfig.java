@@ -0,0 +1,75 @@
+package mb.batch.transaction.batch;
+
+import mb.batch.transaction.dto.TransactionFileRow;
+import mb.batch.transaction.util.TransactionImportLoggingListener;
+import org.springframework.batch.core.job.Job;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.parameters.RunIdIncrementer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.Step;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.infrastructure.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Same ranges as {@link PartitionedImportJobConfig}, imported by worker JVMs
+ * ({@code app.batch.worker.enabled}, see {@link mb.batch.transaction.daemon.PartitionWorker}) that
+ * share this job repository; no message broker involved, see {@link RepositoryPartitionHandler}.
+ * The input is not sorted first: a sorted copy would only exist on the manager.
+ */
+@Configuration
+public class RemotePartitionedImportJobConfig {
+
+    @Value("${app.batch.import-transactions.remote-grid-size:8}")
+    private int remoteGridSize;
+
+    @Value("${app.batch.import-transactions.remote-poll-millis:2000}")
+    private long remotePollMillis;
+
+    // keep well above app.batch.worker.heartbeat-millis
+    @Value("${app.batch.import-transactions.worker-timeout-millis:60000}")
+    private long workerTimeoutMillis;
+
+    @Value("${app.batch.import-transactions.max-failovers:3}")
+    private int maxFailovers;
+
+    @Bean
+    public Job importTransactionsRemotePartitionedJob(JobRepository jobRepository, Step importTransactionsRemoteManagerStep) {
+        return new JobBuilder("importTransactionsRemotePartitionedJob", jobRepository)
+                .incrementer(new RunIdIncrementer())
+                .start(importTransactionsRemoteManagerStep)
+                .build();
+    }
+
+    @Bean
+    public Step importTransactionsRemoteManagerStep(
+            JobRepository jobRepository,
+            TransactionFileRangePartitioner transactionFileRangePartitioner,
+            TransactionImportLoggingListener loggingListener
+    ) {
+        RepositoryPartitionHandler partitionHandler = new RepositoryPartitionHandler(jobRepository, remoteGridSize,
+                Duration.ofMillis(remotePollMillis), Duration.ofMillis(workerTimeoutMillis), maxFailovers);
+
+        return new StepBuilder("importTransactionsRemoteManagerStep", jobRepository)
+                .partitioner("importTransactionsRemoteWorkerStep", transactionFileRangePartitioner)
+                .partitionHandler(partitionHandler)
+                .listener(loggingListener)
+                .build();
+    }
+
+    /**
+     * Runs in the worker JVMs.
+     */
+    @Bean
+    public Step importTransactionsRemoteWorkerStep(
+            ImportStepFactory importStepFactory,
+            ItemStreamReader<TransactionFileRow> transactionRangeReader
+    ) {
+        return new PerExecutionStep("importTransactionsRemoteWorkerStep", () -> importStepFactory.importStep(
+                "importTransactionsRemoteWorkerStep", transactionRangeReader));
+    }
+}
@@ -0,0 +1,134 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.partition.PartitionHandler;
+import org.springframework.batch.core.partition.StepExecutionSplitter;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Manager side of the broker-less remote partitioning: the partitions are only written to the job
+ * repository (worker step executions with status STARTING and their file range in the execution
+ * context), and any JVM running a {@link PartitionClaimRepository#claim claiming}
+ * {@code PartitionWorker} picks them up from there. This handler then polls the repository until
+ * every worker step execution has finished and hands them to the partition step, which aggregates
+ * their counts and status.
+ * <p>
+ * A worker step execution that has not been updated for {@code workerTimeout} (workers refresh
+ * LAST_UPDATED every heartbeat and chunk commit) is taken to belong to a dead worker: it goes back
+ * to STARTING, so another worker claims it and resumes from its last committed chunk. A stale worker
+ * that comes back fails on the version change at its next commit. After {@code maxFailovers} such
+ * resets a partition is failed instead.
+ * <p>
+ * Worker timestamps are compared with this JVM's clock: the clocks of all JVMs must agree well
+ * within the timeout.
+ */
+@Slf4j
+public class RepositoryPartitionHandler implements PartitionHandler {
+
+	private final JobRepository jobRepository;
+	private final int gridSize;
+	private final Duration pollInterval;
+	private final Duration workerTimeout;
+	private final int maxFailovers;
+
+	public RepositoryPartitionHandler(JobRepository jobRepository, int gridSize, Duration pollInterval,
+									  Duration workerTimeout, int maxFailovers) {
+		this.jobRepository = jobRepository;
+		this.gridSize = gridSize;
+		this.pollInterval = pollInterval;
+		this.workerTimeout = workerTimeout;
+		this.maxFailovers = maxFailovers;
+	}
+
+	@Override
+	public Collection<StepExecution> handle(StepExecutionSplitter stepSplitter, StepExecution managerStepExecution) throws Exception {
+		Set<StepExecution> partitions = stepSplitter.split(managerStepExecution, gridSize);
+		long jobExecutionId = managerStepExecution.getJobExecution().getId();
+		log.info("[REMOTE] published partitions={} step={} jobExecutionId={}",
+				partitions.size(), stepSplitter.getStepName(), jobExecutionId);
+
+		Map<Long, Integer> failovers = new HashMap<>();
+		List<StepExecution> running = new ArrayList<>(partitions);
+		List<StepExecution> finished = new ArrayList<>();
+		long lastReport = 0;
+		while (!running.isEmpty()) {
+			Thread.sleep(pollInterval.toMillis());
+
+			int unclaimed = 0;
+			List<StepExecution> stillRunning = new ArrayList<>();
+			for (StepExecution partition : running) {
+				StepExecution current = jobRepository.getStepExecution(jobExecutionId, partition.getId());
+				if (current == null) {
+					throw new IllegalStateException("Worker step execution " + partition.getId() + " disappeared");
+				}
+				if (!current.getStatus().isRunning()) {
+					log.info("[REMOTE] partition={} status={} written={}", current.getStepName(),
+							current.getStatus(), current.getWriteCount());
+					finished.add(current);
+				} else if (current.getStatus() == BatchStatus.STARTING) {
+					unclaimed++;
+					stillRunning.add(current);
+				} else if (isStale(current) && failOver(current, failovers)) {
+					(current.getStatus().isRunning() ? stillRunning : finished).add(current);
+				} else {
+					stillRunning.add(current);
+				}
+			}
+			running = stillRunning;
+
+			if (unclaimed > 0 && System.currentTimeMillis() - lastReport > workerTimeout.toMillis()) {
+				log.info("[REMOTE] waiting for workers: unclaimed={} running={} finished={}",
+						unclaimed, running.size() - unclaimed, finished.size());
+				lastReport = System.currentTimeMillis();
+			}
+		}
+		return finished;
+	}
+
+	private boolean isStale(StepExecution execution) {
+		LocalDateTime lastUpdated = execution.getLastUpdated() != null ? execution.getLastUpdated() : execution.getStartTime();
+		return lastUpdated != null && lastUpdated.plus(workerTimeout).isBefore(LocalDateTime.now());
+	}
+
+	/**
+	 * Returns false if the worker updated the execution after it was read: it is alive after all and
+	 * the execution is polled again on the next cycle.
+	 */
+	private boolean failOver(StepExecution execution, Map<Long, Integer> failovers) {
+		int attempt = failovers.getOrDefault(execution.getId(), 0) + 1;
+		if (attempt > maxFailovers) {
+			log.error("[REMOTE] partition={} lost its worker {} times, failing it", execution.getStepName(), attempt);
+			execution.setStatus(BatchStatus.FAILED);
+			execution.setExitStatus(ExitStatus.FAILED.addExitDescription("Worker lost " + attempt + " times"));
+			execution.setEndTime(LocalDateTime.now());
+		} else {
+			log.warn("[REMOTE] partition={} no update since {}, handing it to another worker (failover {}/{})",
+					execution.getStepName(), execution.getLastUpdated(), attempt, maxFailovers);
+			execution.setStatus(BatchStatus.STARTING);
+			execution.setExitStatus(ExitStatus.UNKNOWN.addExitDescription("Worker lost, failover " + attempt));
+		}
+		try {
+			// bumps the version: the lost worker can no longer update this execution
+			jobRepository.update(execution);
+		} catch (OptimisticLockingFailureException e) {
+			log.info("[REMOTE] partition={} was updated by its worker during failover, polling it again",
+					execution.getStepName());
+			return false;
+		}
+		failovers.put(execution.getId(), attempt);
+		return true;
+	}
+}
@@ -0,0 +1,103 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the chunk as one JDBC batch and, when the batch fails, reads the per-statement results of
+ * the {@link BatchUpdateException} instead of failing the chunk: only the rows without a result are
+ * executed again, one by one, and those that violate a constraint again are returned by
+ * {@link #getLastFailures()} with update count {@link Statement#EXECUTE_FAILED}. The rows that went
+ * through stay in the chunk transaction, so the step never sees the error and neither rolls back
+ * nor scans the chunk item by item.
+ * <p>
+ * Relies on the database keeping the transaction usable after a failed statement (H2 does;
+ * PostgreSQL would need a savepoint per row). Any other error fails the write as before.
+ */
+@Slf4j
+public class RowIsolatingJdbcBatchItemWriter<T> extends UpdateCountingJdbcBatchItemWriter<T> {
+
+	public record RowFailure<T>(int index, T item, DataIntegrityViolationException error) {
+	}
+
+	private List<RowFailure<T>> lastFailures = List.of();
+
+	/**
+	 * Rows of the last {@link #write} that were not written, in chunk order.
+	 */
+	public List<RowFailure<T>> getLastFailures() {
+		return lastFailures;
+	}
+
+	@Override
+	public void write(Chunk<? extends T> chunk) throws Exception {
+		lastFailures = List.of();
+		if (chunk.isEmpty()) {
+			return;
+		}
+		List<? extends T> items = chunk.getItems();
+		ParsedSql parsedSql = usingNamedParameters ? NamedParameterUtils.parseSqlStatement(sql) : null;
+		String jdbcSql = usingNamedParameters ? NamedParameterUtils.substituteNamedParameters(parsedSql, null) : sql;
+
+		int[] updateCounts = namedParameterJdbcTemplate.getJdbcOperations().execute(jdbcSql,
+				(PreparedStatementCallback<int[]>) ps -> {
+					for (T item : items) {
+						setValues(ps, parsedSql, item);
+						ps.addBatch();
+					}
+					try {
+						return ps.executeBatch();
+					} catch (BatchUpdateException e) {
+						// drivers that stop at the first failure return fewer counts: the rest did not run
+						int[] counts = Arrays.copyOf(e.getUpdateCounts(), items.size());
+						Arrays.fill(counts, e.getUpdateCounts().length, items.size(), Statement.EXECUTE_FAILED);
+						log.debug("[WRITE] batch of {} failed at {} statement(s): {}", items.size(),
+								Arrays.stream(counts).filter(c -> c == Statement.EXECUTE_FAILED).count(), e.getMessage());
+						return counts;
+					}
+				});
+
+		List<RowFailure<T>> failures = new ArrayList<>();
+		for (int i = 0; i < items.size(); i++) {
+			if (updateCounts[i] != Statement.EXECUTE_FAILED) continue;
+			T item = items.get(i);
+			try {
+				updateCounts[i] = writeOne(parsedSql, item);
+			} catch (DataIntegrityViolationException e) {
+				failures.add(new RowFailure<>(i, item, e));
+			}
+		}
+		lastFailures = failures;
+		processUpdateCounts(updateCounts);
+	}
+
+	private int writeOne(ParsedSql parsedSql, T item) {
+		if (usingNamedParameters) {
+			return namedParameterJdbcTemplate.update(sql, itemSqlParameterSourceProvider.createSqlParameterSource(item));
+		}
+		return namedParameterJdbcTemplate.getJdbcOperations().update(sql, ps -> itemPreparedStatementSetter.setValues(item, ps));
+	}
+
+	private void setValues(PreparedStatement ps, ParsedSql parsedSql, T item) throws SQLException {
+		if (usingNamedParameters) {
+			SqlParameterSource source = itemSqlParameterSourceProvider.createSqlParameterSource(item);
+			new ArgumentPreparedStatementSetter(NamedParameterUtils.buildValueArray(parsedSql, source, null)).setValues(ps);
+		} else {
+			itemPreparedStatementSetter.setValues(item, ps);
+		}
+	}
+}
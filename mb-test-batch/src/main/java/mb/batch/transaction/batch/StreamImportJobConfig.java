@@ -0,0 +1,85 @@
+package mb.batch.transaction.batch;
+
+import mb.batch.transaction.dto.TransactionFileRow;
+import mb.batch.transaction.util.TransactionImportLoggingListener;
+import mb.batch.transaction.util.TransactionImportMetrics;
+import mb.batch.transaction.util.TransactionImportSkipListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.Job;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.parameters.RunIdIncrementer;
+import org.springframework.batch.core.listener.StepExecutionListener;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.Step;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Long-running import of a file that keeps growing (or a named pipe), see {@link TransactionStreamTasklet}.
+ * Runs until it is stopped; started again, it continues after the last committed line.
+ */
+@Configuration
+public class StreamImportJobConfig {
+
+    // a micro-batch ends after this many lines or this long after its first line
+    @Value("${app.batch.import-transactions.stream-batch-size:500}")
+    private int streamBatchSize;
+
+    @Value("${app.batch.import-transactions.stream-batch-millis:200}")
+    private long streamBatchMillis;
+
+    // how often the end of the followed file is checked for new lines
+    @Value("${app.batch.import-transactions.stream-poll-millis:50}")
+    private long streamPollMillis;
+
+    @Bean
+    public Job importTransactionsStreamJob(JobRepository jobRepository, Step streamTransactionsStep) {
+        return new JobBuilder("importTransactionsStreamJob", jobRepository)
+                .incrementer(new RunIdIncrementer())
+                .start(streamTransactionsStep)
+                .build();
+    }
+
+    @Bean
+    public Step streamTransactionsStep(
+            JobRepository jobRepository,
+            PlatformTransactionManager transactionManager,
+            TransactionStreamTasklet transactionStreamTasklet,
+            TransactionImportLoggingListener loggingListener
+    ) {
+        return new StepBuilder("streamTransactionsStep", jobRepository)
+                .tasklet(transactionStreamTasklet, transactionManager)
+                .stream(transactionStreamTasklet)
+                .listener((StepExecutionListener) loggingListener)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public TransactionStreamTasklet transactionStreamTasklet(
+            ResourcePatternResolver resolver,
+            ImportInputs importInputs,
+            LineMapper<TransactionFileRow> transactionLineMapper,
+            RecordQuarantine recordQuarantine,
+            TransactionImportProcessor processor,
+            TransactionImportWriter writer,
+            TransactionImportSkipListener skipListener,
+            ImportFileStateRepository stateRepository,
+            TransactionImportMetrics metrics,
+            @Value("#{jobParameters['inputResource']}") String inputResource
+    ) throws IOException {
+        // the file may not exist yet, or be a pipe
+        Path file = resolver.getResource(importInputs.locationOf(inputResource)).getFile().toPath();
+        return new TransactionStreamTasklet(file, new TransactionLineParser(transactionLineMapper), recordQuarantine,
+                processor, writer, skipListener, stateRepository, metrics, importInputs.linesToSkip(),
+                streamBatchSize, streamBatchMillis, streamPollMillis);
+    }
+}
@@ -0,0 +1,98 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.Partitioner;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One partition per file matched by a resource pattern such as {@code file:/data/incoming/*.txt}.
+ * Partitions are named after the file, so every file has its own worker step execution in the job
+ * repository.
+ * <p>
+ * The matched files are recorded in the manager step's execution context on the first run; a
+ * restart partitions that same list again, even though finished files have been moved away since,
+ * so only the workers that did not complete run again.
+ */
+@Slf4j
+public class TransactionFilePartitioner implements Partitioner {
+
+	public static final String INPUT_FILE_KEY = "inputFile";
+
+	private static final String FILES_KEY = "matchedFiles";
+	private static final String FILE_SEPARATOR = "\n";
+
+	private final ResourcePatternResolver resolver;
+	private final String pattern;
+	private final StepExecution managerStepExecution;
+
+	public TransactionFilePartitioner(ResourcePatternResolver resolver, String pattern, StepExecution managerStepExecution) {
+		this.resolver = resolver;
+		this.pattern = pattern;
+		this.managerStepExecution = managerStepExecution;
+	}
+
+	@Override
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		ExecutionContext managerCtx = managerStepExecution.getExecutionContext();
+		List<String> files;
+		if (managerCtx.containsKey(FILES_KEY)) {
+			files = Arrays.asList(managerCtx.getString(FILES_KEY).split(FILE_SEPARATOR));
+			log.info("[PARTITION] restart pattern='{}' files={}", pattern, files.size());
+		} else {
+			files = match();
+			managerCtx.putString(FILES_KEY, String.join(FILE_SEPARATOR, files));
+		}
+
+		Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+		int index = 0;
+		for (String file : files) {
+			if (file.isEmpty()) continue;
+			ExecutionContext ctx = new ExecutionContext();
+			ctx.putString(INPUT_FILE_KEY, file);
+			ctx.putInt(TransactionFileRangePartitioner.PARTITION_INDEX_KEY, index);
+			String name = "file-" + Path.of(file).getFileName();
+			// two directories of the pattern may hold the same file name
+			partitions.put(partitions.containsKey(name) ? name + "#" + index : name, ctx);
+
+			log.info("[PARTITION] index={} file={}", index, file);
+			index++;
+		}
+		if (partitions.isEmpty()) {
+			log.warn("[PARTITION] no file matches '{}'", pattern);
+		}
+		return partitions;
+	}
+
+	private List<String> match() {
+		try {
+			Resource[] resources = resolver.getResources(pattern);
+			List<String> files = new ArrayList<>();
+			Arrays.stream(resources)
+					.filter(Resource::isFile)
+					.sorted(Comparator.comparing(Resource::getDescription))
+					.forEach(resource -> {
+						try {
+							files.add(resource.getFile().getAbsolutePath());
+						} catch (IOException e) {
+							throw new UncheckedIOException("Cannot access " + resource.getDescription(), e);
+						}
+					});
+			return files;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot resolve " + pattern, e);
+		}
+	}
+}
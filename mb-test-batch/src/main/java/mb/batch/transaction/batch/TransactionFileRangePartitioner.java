@@ -0,0 +1,112 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.util.GzipResource;
+import org.springframework.batch.core.partition.Partitioner;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cuts one pipe-delimited input file into line-aligned byte ranges, one partition per range.
+ * The header lines are excluded from every range, so worker readers must not skip lines again.
+ * Line numbers reported by a worker are relative to the start of its range.
+ */
+@Slf4j
+public class TransactionFileRangePartitioner implements Partitioner {
+
+	public static final String START_OFFSET_KEY = "startOffset";
+	public static final String END_OFFSET_KEY = "endOffset";
+	public static final String PARTITION_INDEX_KEY = "partitionIndex";
+
+	private static final int SCAN_BUFFER_SIZE = 8192;
+
+	private final Resource resource;
+	private final int linesToSkip;
+
+	public TransactionFileRangePartitioner(Resource resource, int linesToSkip) {
+		this.resource = resource;
+		this.linesToSkip = linesToSkip;
+	}
+
+	@Override
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		if (GzipResource.isGzip(resource)) {
+			throw new IllegalStateException("Partitioned import cannot split compressed input " + resource.getDescription());
+		}
+		Path path;
+		try {
+			path = resource.getFile().toPath();
+		} catch (IOException e) {
+			throw new IllegalStateException("Partitioned import needs a file resource, got " + resource.getDescription(), e);
+		}
+
+		Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long dataStart = 0;
+			for (int i = 0; i < linesToSkip && dataStart < size; i++) {
+				dataStart = nextLineStart(channel, dataStart, size);
+			}
+
+			int grid = Math.max(1, gridSize);
+			long rangeLength = Math.max(1, (size - dataStart + grid - 1) / grid);
+
+			long start = dataStart;
+			int index = 0;
+			while (start < size) {
+				long end = start + rangeLength >= size ? size : nextLineStart(channel, start + rangeLength - 1, size);
+
+				ExecutionContext ctx = new ExecutionContext();
+				ctx.putLong(START_OFFSET_KEY, start);
+				ctx.putLong(END_OFFSET_KEY, end);
+				ctx.putInt(PARTITION_INDEX_KEY, index);
+				partitions.put("partition" + index, ctx);
+
+				log.info("[PARTITION] index={} startOffset={} endOffset={} bytes={}", index, start, end, end - start);
+				start = end;
+				index++;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot partition " + path, e);
+		}
+
+		if (partitions.isEmpty()) {
+			// empty file (or header only): still run one worker so the step reports zero counts
+			ExecutionContext ctx = new ExecutionContext();
+			ctx.putLong(START_OFFSET_KEY, 0L);
+			ctx.putLong(END_OFFSET_KEY, 0L);
+			ctx.putInt(PARTITION_INDEX_KEY, 0);
+			partitions.put("partition0", ctx);
+		}
+		return partitions;
+	}
+
+	/**
+	 * Returns the offset just after the first '\n' found at or after {@code from}, or {@code size} if none.
+	 */
+	private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		long pos = from;
+		while (pos < size) {
+			buf.clear();
+			int n = channel.read(buf, pos);
+			if (n <= 0) break;
+			for (int i = 0; i < n; i++) {
+				if (buf.get(i) == '\n') {
+					return pos + i + 1;
+				}
+			}
+			pos += n;
+		}
+		return size;
+	}
+}
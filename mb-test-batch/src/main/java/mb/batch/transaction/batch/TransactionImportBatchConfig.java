@@ -5,15 +5,22 @@ import lombok.extern.slf4j.Slf4j;
 import mb.batch.transaction.dto.TransactionFileRow;
 import mb.batch.transaction.dto.TransactionInsertRow;
 import mb.batch.transaction.exception.InvalidTransactionRecordException;
-import mb.batch.transaction.util.TransactionImportSkipListener;
+import mb.batch.transaction.util.GzipResource;
+import mb.batch.transaction.util.ImportFileStateListener;
+import mb.batch.transaction.util.SortedInputCleanupListener;
+import mb.batch.transaction.util.TransactionIdCachePrewarmListener;
+import mb.batch.transaction.util.TransactionImportMetrics;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.Job;
+import org.springframework.batch.core.job.JobExecution;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.job.parameters.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.Step;
+import org.springframework.batch.core.step.StepExecution;
 import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.infrastructure.item.ItemStreamReader;
 import org.springframework.batch.infrastructure.item.database.BeanPropertyItemSqlParameterSourceProvider;
-import org.springframework.batch.infrastructure.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.infrastructure.item.file.FlatFileItemReader;
 import org.springframework.batch.infrastructure.item.file.FlatFileParseException;
 import org.springframework.batch.infrastructure.item.file.LineMapper;
@@ -23,66 +30,130 @@ import org.springframework.batch.infrastructure.item.file.transform.FieldSet;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.datasource.init.DataSourceInitializer;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
-import java.time.Instant;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Locale;
 
 @Slf4j
 @Configuration
 @RequiredArgsConstructor
 public class TransactionImportBatchConfig {
 
-    @Value("${app.batch.import-transactions.chunk-size:100}")
-    private int chunkSize;
+    // read skips include the lines sent to the quarantine
+    @Value("${app.batch.import-transactions.skip-limit:500}")
+    private int skipLimit;
 
-    @Value("${app.batch.import-transactions.input-resource:file:/data/transactions-source.txt}")
-    private String defaultInputResource;
+    @Value("${app.batch.import-transactions.quarantine-dir:./quarantine}")
+    private String quarantineDir;
+
+    // see TransactionSortTasklet
+    @Value("${app.batch.import-transactions.sort-input:false}")
+    private boolean sortInput;
+
+    @Value("${app.batch.import-transactions.sort-key:text}")
+    private String sortKey;
+
+    // estimated heap per in-memory run; larger inputs spill sorted runs to sort-temp-dir
+    @Value("${app.batch.import-transactions.sort-run-bytes:67108864}")
+    private long sortRunBytes;
+
+    @Value("${app.batch.import-transactions.sort-temp-dir:${java.io.tmpdir}}")
+    private String sortTempDir;
 
     @Bean
-    public Job importTransactionsJob(JobRepository jobRepository, Step importTransactionsStep) {
-        return new JobBuilder("importTransactionsJob", jobRepository)
-                .incrementer(new RunIdIncrementer())
-                .start(importTransactionsStep)
+    public Job importTransactionsJob(
+            JobRepository jobRepository,
+            IncrementalImportDecider incrementalImportDecider,
+            Step sortTransactionsStep,
+            Step importTransactionsStep,
+            SortedInputCleanupListener sortedInputCleanupListener
+    ) {
+        JobBuilder builder = new JobBuilder("importTransactionsJob", jobRepository)
+                .incrementer(new RunIdIncrementer());
+        if (!sortInput) {
+            return builder
+                    .start(incrementalImportDecider)
+                    .on(IncrementalImportDecider.UNCHANGED.getName()).end()
+                    .from(incrementalImportDecider)
+                    .on("*").to(importTransactionsStep)
+                    .end()
+                    .build();
+        }
+        return builder
+                .listener(sortedInputCleanupListener)
+                .start(incrementalImportDecider)
+                .on(IncrementalImportDecider.UNCHANGED.getName()).end()
+                .from(incrementalImportDecider)
+                .on("*").to(sortTransactionsStep).next(importTransactionsStep)
+                .end()
                 .build();
     }
 
+    /**
+     * Runs before the import step(s) when {@code sort-input} is on, see {@link TransactionSortTasklet}.
+     */
     @Bean
-    public Step importTransactionsStep(
+    public Step sortTransactionsStep(
             JobRepository jobRepository,
             PlatformTransactionManager transactionManager,
-            FlatFileItemReader<TransactionFileRow> transactionFileReader,
-            TransactionImportProcessor processor,
-            JdbcBatchItemWriter<TransactionInsertRow> writer,
-            TransactionImportSkipListener skipListener,
-            mb.batch.transaction.util.TransactionImportLoggingListener loggingListener
+            TransactionSortTasklet transactionSortTasklet
     ) {
-        return new StepBuilder("importTransactionsStep", jobRepository)
-                .<TransactionFileRow, TransactionInsertRow>chunk(chunkSize)
-                .transactionManager(transactionManager)
-                .reader(transactionFileReader)
-                .processor(processor)
-                .writer(writer)
-                .listener(loggingListener)
-                .faultTolerant()
-                .skipLimit(500)
-                .skip(FlatFileParseException.class)
-                .skip(InvalidTransactionRecordException.class)
-                .skipListener(skipListener)
+        return new StepBuilder("sortTransactionsStep", jobRepository)
+                .tasklet(transactionSortTasklet, transactionManager)
                 .build();
     }
 
+    /**
+     * Incremental imports are not sorted: their offsets refer to the input file itself.
+     */
+    @Bean
+    @StepScope
+    public TransactionSortTasklet transactionSortTasklet(
+            ImportInputs importInputs,
+            TransactionImportMetrics metrics,
+            IncrementalImportDecider incrementalImportDecider,
+            @Value("#{stepExecution.jobExecution}") JobExecution jobExecution
+    ) {
+        Resource resource = importInputs.resolve(jobExecution.getJobParameters().getString("inputResource"));
+        boolean incrementalImport = incrementalImportDecider.isIncremental(jobExecution.getJobParameters());
+        if (incrementalImport) {
+            log.warn("[SORT] incremental import: reading '{}' unsorted", resource.getDescription());
+        }
+        return new TransactionSortTasklet(resource, Path.of(sortTempDir), importInputs.linesToSkip(),
+                TransactionSortTasklet.KeyEncoding.valueOf(sortKey.toUpperCase(Locale.ROOT)),
+                sortRunBytes, metrics, !incrementalImport);
+    }
+
+    @Bean
+    public Step importTransactionsStep(
+            ImportStepFactory importStepFactory,
+            ItemStreamReader<TransactionFileRow> transactionFileReader,
+            TransactionIdCachePrewarmListener prewarmListener,
+            ImportFileStateListener importFileStateListener
+    ) {
+        return importStepFactory.importStep("importTransactionsStep", transactionFileReader,
+                prewarmListener, importFileStateListener);
+    }
+
     /**
      * One physical line = one record.
      * Blank lines are SKIPPED by throwing FlatFileParseException (so the reader never returns null early).
+     * The import readers only call it through {@link TransactionLineParser} for quoted lines.
      */
     @Bean
     public LineMapper<TransactionFileRow> transactionLineMapper() {
@@ -104,69 +175,134 @@ public class TransactionImportBatchConfig {
         };
     }
 
+    /**
+     * Rejected input lines of one reader, in
+     * {@code <quarantine-dir>/<input file name>.<job instance id>[.p<partition>].rejects.txt}.
+     * Restarts of the job instance continue the same file.
+     */
     @Bean
-    @org.springframework.batch.core.configuration.annotation.StepScope
-    public FlatFileItemReader<TransactionFileRow> transactionFileReader(
-            ResourcePatternResolver resolver,
+    @StepScope
+    public RecordQuarantine recordQuarantine(
+            ImportInputs importInputs,
+            TransactionImportMetrics metrics,
+            @Value("#{stepExecution}") StepExecution stepExecution,
+            @Value("#{jobParameters['inputResource']}") String inputResource,
+            @Value("#{stepExecutionContext['inputFile']}") String inputFile
+    ) throws IOException {
+        String location = inputFile != null ? inputFile : importInputs.locationOf(inputResource);
+        String inputName = location.substring(Math.max(Math.max(location.lastIndexOf('/'), location.lastIndexOf('\\')),
+                location.lastIndexOf(':')) + 1);
+        String partition = stepExecution.getExecutionContext().containsKey(TransactionFileRangePartitioner.PARTITION_INDEX_KEY)
+                ? ".p" + stepExecution.getExecutionContext().getInt(TransactionFileRangePartitioner.PARTITION_INDEX_KEY)
+                : "";
+
+        Path dir = Files.createDirectories(Path.of(quarantineDir));
+        Path file = dir.resolve(inputName + "." + stepExecution.getJobExecution().getJobInstance().getInstanceId()
+                + partition + ".rejects.txt");
+        return new RecordQuarantine(file, stepExecution, metrics, skipLimit);
+    }
+
+    /**
+     * Plain files are read through {@link MappedTransactionFileReader}; anything else (classpath,
+     * URL, ...) falls back to a FlatFileItemReader feeding {@link QuarantiningLineReader}.
+     * In incremental mode the mapped reader starts at the offset and line chosen by {@link IncrementalImportDecider}
+     * and stops at the last complete line, unless the decider found the file unchanged since the last run.
+     * Rejected lines go to the {@link #recordQuarantine} either way.
+     * <p>
+     * {@code *.gz} inputs are decompressed while they are read; the FlatFileItemReader counts lines
+     * and restarts by item count, which both refer to the decompressed text.
+     */
+    @Bean
+    @StepScope
+    public ItemStreamReader<TransactionFileRow> transactionFileReader(
+            ImportInputs importInputs,
             LineMapper<TransactionFileRow> transactionLineMapper,
-            @Value("#{jobParameters['inputResource']}") String inputResource
-    ) {
-        String location = (inputResource == null || inputResource.isBlank())
-                ? defaultInputResource
-                : inputResource;
-
-        Resource resource = resolver.getResource(location);
-
-        // ---- Resource diagnostics ----
-        log.info("[READER] jobParam.inputResource='{}' default='{}' resolved='{}'",
-                inputResource, defaultInputResource, location);
-        log.info("[READER] resource='{}' exists={} readable={}",
-                resource.getDescription(), resource.exists(), resource.isReadable());
-        try {
-            log.info("[READER] uri={}", resource.getURI());
-        } catch (Exception e) {
-            log.warn("[READER] cannot get URI: {}", e.toString());
-        }
-        try {
-            if (resource.isFile()) {
-                var f = resource.getFile();
-                log.info("[READER] filePath={} sizeBytes={} lastModified={}",
-                        f.getAbsolutePath(), f.length(), Instant.ofEpochMilli(f.lastModified()));
-            }
-        } catch (Exception e) {
-            log.warn("[READER] cannot access file metadata: {}", e.toString());
+            RecordQuarantine recordQuarantine,
+            @Value("#{jobParameters['inputResource']}") String inputResource,
+            @Value("#{jobExecutionContext['importStartOffset']}") Long startOffset,
+            @Value("#{jobExecutionContext['importStartLine']}") Long startLine,
+            @Value("#{jobExecutionContext['importFile']}") String importFile,
+            @Value("#{jobExecutionContext['importIncludeUnterminated']}") Boolean includeUnterminated,
+            @Value("#{jobExecutionContext['sortedInputFile']}") String sortedInputFile
+    ) throws IOException {
+        Resource resource = sortedInputFile != null
+                ? new FileSystemResource(sortedInputFile)
+                : importInputs.resolve(inputResource);
+        return wholeFileReader(importInputs, resource, transactionLineMapper, recordQuarantine,
+                startOffset == null ? 0 : startOffset, startLine == null ? 0 : Math.toIntExact(startLine),
+                importFile != null && !Boolean.TRUE.equals(includeUnterminated));
+    }
+
+    private ItemStreamReader<TransactionFileRow> wholeFileReader(
+            ImportInputs importInputs,
+            Resource resource,
+            LineMapper<TransactionFileRow> transactionLineMapper,
+            RecordQuarantine recordQuarantine,
+            long start,
+            int startLine,
+            boolean completeLinesOnly
+    ) throws IOException {
+        if (GzipResource.isGzip(resource) || !resource.isFile()) {
+            return importInputs.lineReader(resource, transactionLineMapper, recordQuarantine);
         }
-        previewFirstLines(resource, 10);
-        // ----------------------------
+        importInputs.previewFirstLines(resource, 10);
 
-        FlatFileItemReader<TransactionFileRow> reader = new FlatFileItemReader<>(resource, transactionLineMapper);
+        if (start > 0) {
+            log.info("[READER] incremental resume at offset={} line={} (header already imported)", start, startLine);
+        }
+        MappedTransactionFileReader reader = new MappedTransactionFileReader(
+                resource.getFile().toPath(), new TransactionLineParser(transactionLineMapper), recordQuarantine,
+                start, -1, start > 0 ? 0 : importInputs.linesToSkip());
         reader.setName("transactionFileReader");
+        reader.setStartLine(startLine);
+        // the file may still be appended to: leave an unterminated last line for the next run
+        reader.setCompleteLinesOnly(completeLinesOnly);
+        return reader;
+    }
 
-        // fail fast if file missing (default is true, keeping explicit)
-        reader.setStrict(true);
+    @Bean
+    @StepScope
+    public TransactionFileRangePartitioner transactionFileRangePartitioner(
+            ImportInputs importInputs,
+            @Value("#{jobParameters['inputResource']}") String inputResource,
+            @Value("#{jobExecutionContext['sortedInputFile']}") String sortedInputFile
+    ) {
+        Resource resource = sortedInputFile != null
+                ? new FileSystemResource(sortedInputFile)
+                : importInputs.resolve(inputResource);
+        return new TransactionFileRangePartitioner(resource, importInputs.linesToSkip());
+    }
 
-        reader.setLinesToSkip(1);
-        reader.setSkippedLinesCallback(line -> log.info("[READER] skippedHeader='{}'", line));
+    /**
+     * Reads one partition produced by {@link TransactionFileRangePartitioner}.
+     * The range never contains the header, and line numbers restart at 1 for every partition.
+     */
+    @Bean
+    @StepScope
+    public ItemStreamReader<TransactionFileRow> transactionRangeReader(
+            ResourcePatternResolver resolver,
+            ImportInputs importInputs,
+            LineMapper<TransactionFileRow> transactionLineMapper,
+            RecordQuarantine recordQuarantine,
+            @Value("#{jobParameters['inputResource']}") String inputResource,
+            @Value("#{stepExecutionContext['startOffset']}") Long startOffset,
+            @Value("#{stepExecutionContext['endOffset']}") Long endOffset,
+            @Value("#{stepExecutionContext['partitionIndex']}") Integer partitionIndex,
+            @Value("#{jobExecutionContext['sortedInputFile']}") String sortedInputFile
+    ) throws IOException {
+        Resource file = sortedInputFile != null
+                ? new FileSystemResource(sortedInputFile)
+                : resolver.getResource(importInputs.locationOf(inputResource));
 
-        // IMPORTANT FIX: DO NOT use RecordSeparatorPolicy for “blank lines between records”
-        // reader.setRecordSeparatorPolicy(new TrimBlankLineRecordSeparatorPolicy());
+        log.info("[READER] partition={} file='{}' range={}..{}", partitionIndex, file.getDescription(), startOffset, endOffset);
 
+        MappedTransactionFileReader reader = new MappedTransactionFileReader(
+                file.getFile().toPath(), new TransactionLineParser(transactionLineMapper), recordQuarantine,
+                startOffset, endOffset, 0);
+        reader.setName("transactionRangeReader");
         return reader;
     }
 
-    private void previewFirstLines(Resource resource, int maxLines) {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
-            for (int i = 1; i <= maxLines; i++) {
-                String line = br.readLine();
-                if (line == null) break;
-                log.info("[READER-PREVIEW] {}: [{}]", i, line);
-            }
-        } catch (Exception e) {
-            log.warn("[READER-PREVIEW] failed: {}", e.toString());
-        }
-    }
-
     private TransactionFileRow mapFieldSet(FieldSet fs) {
         if (fs == null) {
             // never return null here; treat as parse error (will be skipped via FlatFileParseException)
@@ -209,10 +345,48 @@ public class TransactionImportBatchConfig {
         return raw == null || raw.isBlank() ? BigDecimal.ZERO : new BigDecimal(raw.trim());
     }
 
+    /**
+     * In incremental mode a row is not inserted again if a transaction with the same natural key
+     * (account, date, time, amount, customer) already existed before this job started, so replaying
+     * a file is a no-op while duplicates inside one file are still imported.
+     */
     @Bean
-    public JdbcBatchItemWriter<TransactionInsertRow> transactionWriter(DataSource dataSource) {
-        JdbcBatchItemWriter<TransactionInsertRow> writer = new JdbcBatchItemWriter<>();
+    @StepScope
+    public RowIsolatingJdbcBatchItemWriter<TransactionInsertRow> transactionWriter(
+            DataSource dataSource,
+            IncrementalImportDecider incrementalImportDecider,
+            @Value("#{stepExecution.jobExecution}") JobExecution jobExecution
+    ) {
+        RowIsolatingJdbcBatchItemWriter<TransactionInsertRow> writer = new RowIsolatingJdbcBatchItemWriter<>();
         writer.setDataSource(dataSource);
+        LocalDateTime importStartedAt = jobExecution.getStartTime();
+
+        if (incrementalImportDecider.isIncremental(jobExecution.getJobParameters())) {
+            writer.setSql("""
+                INSERT INTO "TRANSACTION"
+                  (VERSION, ACCOUNT_ID, AMOUNT, DESCRIPTION, TRX_DATE, TRX_TIME, CUSTOMER_ID, CREATED_AT, UPDATED_AT)
+                SELECT :version, :accountId, :amount, :description, :trxDate, :trxTime, :customerId, :createdAt, :updatedAt
+                WHERE NOT EXISTS (
+                  SELECT 1 FROM "TRANSACTION" t
+                  WHERE t.ACCOUNT_ID = :accountId AND t.TRX_DATE = :trxDate AND t.TRX_TIME = :trxTime
+                    AND t.AMOUNT = :amount AND t.CUSTOMER_ID = :customerId AND t.CREATED_AT < :importStartedAt
+                )
+            """);
+            writer.setItemSqlParameterSourceProvider(item -> new MapSqlParameterSource()
+                    .addValue("version", item.getVersion())
+                    .addValue("accountId", item.getAccountId())
+                    .addValue("amount", item.getAmount())
+                    .addValue("description", item.getDescription())
+                    .addValue("trxDate", item.getTrxDate())
+                    .addValue("trxTime", item.getTrxTime())
+                    .addValue("customerId", item.getCustomerId())
+                    .addValue("createdAt", item.getCreatedAt())
+                    .addValue("updatedAt", item.getUpdatedAt())
+                    .addValue("importStartedAt", importStartedAt));
+            // a skipped duplicate updates 0 rows
+            writer.setAssertUpdates(false);
+            return writer;
+        }
 
         // Use uppercase quoted table name to match unquoted-created TRANSACTION in H2 and avoid keyword issues.
         writer.setSql("""
@@ -225,4 +399,12 @@ public class TransactionImportBatchConfig {
         writer.setItemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>());
         return writer;
     }
+
+    @Bean
+    public DataSourceInitializer importSchemaInitializer(DataSource dataSource) {
+        DataSourceInitializer initializer = new DataSourceInitializer();
+        initializer.setDataSource(dataSource);
+        initializer.setDatabasePopulator(new ResourceDatabasePopulator(new ClassPathResource("schema-import.sql")));
+        return initializer;
+    }
 }
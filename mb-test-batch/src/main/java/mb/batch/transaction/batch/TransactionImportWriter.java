@@ -0,0 +1,122 @@
+package mb.batch.transaction.batch;
+
+import mb.batch.transaction.dto.TransactionInsertRow;
+import mb.batch.transaction.util.TransactionImportSkipListener;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.StepContribution;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Resolves account ids for the chunk, inserts the transactions with {@code transactionWriter} and adds
+ * the inserted ones to DAILY_ACCOUNT_SUMMARY, all in the chunk transaction.
+ * <p>
+ * Rows rejected by a constraint are isolated by {@link RowIsolatingJdbcBatchItemWriter}: they are
+ * reported to the skip listener, count as write skips (up to {@code skip-limit}, like the read
+ * skips) and are removed from the chunk; the rest of the chunk commits. The write skips are recorded
+ * in a contribution of the chunk transaction, so a rolled back chunk does not count them.
+ */
+@Component
+public class TransactionImportWriter implements ItemWriter<TransactionInsertRow> {
+
+	private final TransactionKeyResolver keyResolver;
+	private final RowIsolatingJdbcBatchItemWriter<TransactionInsertRow> transactionWriter;
+	private final DailyAccountSummaryRepository summaryRepository;
+	private final TransactionImportSkipListener skipListener;
+	private final boolean dailySummary;
+	private final int skipLimit;
+
+	public TransactionImportWriter(TransactionKeyResolver keyResolver,
+								   RowIsolatingJdbcBatchItemWriter<TransactionInsertRow> transactionWriter,
+								   DailyAccountSummaryRepository summaryRepository,
+								   TransactionImportSkipListener skipListener,
+								   @Value("${app.batch.import-transactions.daily-summary:true}") boolean dailySummary,
+								   @Value("${app.batch.import-transactions.skip-limit:500}") int skipLimit) {
+		this.keyResolver = keyResolver;
+		this.transactionWriter = transactionWriter;
+		this.summaryRepository = summaryRepository;
+		this.skipListener = skipListener;
+		this.dailySummary = dailySummary;
+		this.skipLimit = skipLimit;
+	}
+
+	/**
+	 * Chunk steps: the write skips go to the contribution of the chunk transaction (see
+	 * {@link ChunkContributions}); the skip limit applies to the whole step.
+	 */
+	@Override
+	public void write(Chunk<? extends TransactionInsertRow> chunk) throws Exception {
+		StepExecution stepExecution = StepSynchronizationManager.getContext().getStepExecution();
+		write(chunk, ChunkContributions.current(stepExecution), stepExecution.getSkipCount());
+	}
+
+	/**
+	 * Tasklets that own the step contribution (the streaming import): the write skips go to
+	 * {@code contribution}, and the skip limit applies to the skips of that contribution only.
+	 */
+	public void writeBatch(Chunk<? extends TransactionInsertRow> chunk, StepContribution contribution) throws Exception {
+		write(chunk, contribution, 0);
+	}
+
+	private void write(Chunk<? extends TransactionInsertRow> chunk, StepContribution contribution,
+					   long earlierSkips) throws Exception {
+		keyResolver.resolve(chunk);
+		transactionWriter.write(chunk);
+		if (dailySummary) {
+			summaryRepository.add(inserted(chunk, transactionWriter.getLastUpdateCounts()));
+		}
+		List<RowIsolatingJdbcBatchItemWriter.RowFailure<TransactionInsertRow>> failures = transactionWriter.getLastFailures();
+		if (!failures.isEmpty()) {
+			skip(chunk, failures, contribution, earlierSkips);
+		}
+	}
+
+	private void skip(Chunk<? extends TransactionInsertRow> chunk,
+					  List<RowIsolatingJdbcBatchItemWriter.RowFailure<TransactionInsertRow>> failures,
+					  StepContribution contribution, long earlierSkips) {
+		for (RowIsolatingJdbcBatchItemWriter.RowFailure<TransactionInsertRow> failure : failures) {
+			skipListener.onSkipInWrite(failure.item(), failure.error());
+			contribution.incrementWriteSkipCount();
+		}
+		if (earlierSkips + contribution.getSkipCount() > skipLimit) {
+			throw new IllegalStateException("Skip limit of " + skipLimit + " exceeded by " + failures.size()
+					+ " rejected insert(s)", failures.getFirst().error());
+		}
+
+		// not counted as written
+		Iterator<? extends TransactionInsertRow> items = chunk.iterator();
+		int index = 0;
+		int next = 0;
+		while (items.hasNext()) {
+			items.next();
+			if (next < failures.size() && failures.get(next).index() == index) {
+				items.remove();
+				next++;
+			}
+			index++;
+		}
+	}
+
+	/**
+	 * In incremental mode known rows are not inserted (update count 0).
+	 */
+	private static List<TransactionInsertRow> inserted(Chunk<? extends TransactionInsertRow> chunk, int[] updateCounts) {
+		List<? extends TransactionInsertRow> items = chunk.getItems();
+		List<TransactionInsertRow> inserted = new ArrayList<>(items.size());
+		for (int i = 0; i < items.size(); i++) {
+			// SUCCESS_NO_INFO: the driver did not say, the row was most likely inserted
+			if (i >= updateCounts.length || updateCounts[i] > 0 || updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+				inserted.add(items.get(i));
+			}
+		}
+		return inserted;
+	}
+}
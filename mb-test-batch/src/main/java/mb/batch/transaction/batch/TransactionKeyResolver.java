@@ -0,0 +1,295 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.dto.TransactionInsertRow;
+import mb.batch.transaction.exception.InvalidTransactionRecordException;
+import mb.batch.transaction.util.BoundedIdCache;
+import mb.batch.transaction.util.TransactionImportMetrics;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resolves USER_PROFILE and ACCOUNT ids for a whole chunk at once: every key not cached yet is
+ * upserted with one batched MERGE per table and read back with one IN (...) query per table.
+ * <p>
+ * Same semantics as the former per-row lookup: every customer gets a USER_PROFILE row, and a new
+ * account is owned by the customer of the first row that mentions it.
+ */
+@Slf4j
+@Component
+public class TransactionKeyResolver {
+
+	/** Keeps IN (...) lists at a size every database handles comfortably. */
+	private static final int IN_LIST_LIMIT = 1000;
+
+	/**
+	 * Two transactions that MERGE the same new key concurrently both insert it, and the later one fails
+	 * with a duplicate key. A new key is rarely upserted more than once, so the upsert transaction is
+	 * simply repeated: its MERGE then updates the committed row.
+	 */
+	private static final int UPSERT_ATTEMPTS = 3;
+
+	private final NamedParameterJdbcTemplate jdbc;
+
+	/**
+	 * Upserts run in their own transaction: a cached ID must never point at a row that the chunk
+	 * transaction may still roll back, and concurrent partitions must see committed keys only.
+	 */
+	private final TransactionTemplate upsertTx;
+
+	/**
+	 * Serializes the upserts of this JVM, so that its own partitions never MERGE the same new key
+	 * concurrently. Other JVMs (remote workers) are covered by the retry on a duplicate key.
+	 */
+	private final ReentrantLock upsertLock = new ReentrantLock();
+
+	private final BoundedIdCache userProfileIdCache;
+	private final BoundedIdCache accountIdCache;
+
+	private final TransactionImportMetrics metrics;
+
+	public TransactionKeyResolver(
+			NamedParameterJdbcTemplate jdbc,
+			PlatformTransactionManager transactionManager,
+			TransactionImportMetrics metrics,
+			@Value("${app.batch.import-transactions.id-cache-size:1000000}") int idCacheSize
+	) {
+		this.jdbc = jdbc;
+		this.upsertTx = new TransactionTemplate(transactionManager);
+		this.upsertTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.userProfileIdCache = new BoundedIdCache("userProfileIdCache", idCacheSize);
+		this.accountIdCache = new BoundedIdCache("accountIdCache", idCacheSize);
+		this.metrics = metrics;
+		metrics.monitor(userProfileIdCache);
+		metrics.monitor(accountIdCache);
+	}
+
+	public BoundedIdCache getUserProfileIdCache() {
+		return userProfileIdCache;
+	}
+
+	public BoundedIdCache getAccountIdCache() {
+		return accountIdCache;
+	}
+
+	/**
+	 * Forgets every cached id, e.g. between runs of a long-lived process whose database may have changed.
+	 */
+	public void clearCaches() {
+		userProfileIdCache.clear();
+		accountIdCache.clear();
+	}
+
+	/**
+	 * Fills {@link TransactionInsertRow#getAccountId()} for every row of the chunk.
+	 * <p>
+	 * Ids are collected in a chunk-local map because the caches may evict an entry at any time.
+	 * An evicted key is simply treated as unseen again: its MERGE is repeated.
+	 */
+	public void resolve(Chunk<? extends TransactionInsertRow> rows) {
+		long start = System.nanoTime();
+		Map<String, Long> accountIds = new HashMap<>();
+		Set<String> newCustomers = new LinkedHashSet<>();
+		Map<String, String> newAccounts = new LinkedHashMap<>(); // accountNumber -> owning customerId
+		Set<String> seenCustomers = new HashSet<>();
+		for (TransactionInsertRow row : rows) {
+			if (seenCustomers.add(row.getCustomerId()) && userProfileIdCache.get(row.getCustomerId()) == BoundedIdCache.NO_VALUE) {
+				newCustomers.add(row.getCustomerId());
+			}
+			if (!accountIds.containsKey(row.getAccountNumber()) && !newAccounts.containsKey(row.getAccountNumber())) {
+				long id = accountIdCache.get(row.getAccountNumber());
+				if (id == BoundedIdCache.NO_VALUE) {
+					newAccounts.put(row.getAccountNumber(), row.getCustomerId());
+				} else {
+					accountIds.put(row.getAccountNumber(), id);
+				}
+			}
+		}
+
+		boolean fromDb = !newCustomers.isEmpty() || !newAccounts.isEmpty();
+		if (fromDb) {
+			accountIds.putAll(upsert(newCustomers, newAccounts));
+		}
+
+		for (TransactionInsertRow row : rows) {
+			row.setAccountId(accountIds.get(row.getAccountNumber()));
+		}
+
+		TransactionImportMetrics.StepMeters meters = metrics.current();
+		if (meters != null) {
+			meters.lookedUp(fromDb, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Upserts the given keys and returns the ids of {@code newAccounts}.
+	 */
+	private Map<String, Long> upsert(Set<String> newCustomers, Map<String, String> newAccounts) {
+		upsertLock.lock();
+		try {
+			// another partition may have resolved some keys while we waited;
+			// peek: resolve() has counted these lookups already
+			Map<String, Long> accountIds = new HashMap<>();
+			newAccounts.entrySet().removeIf(e -> {
+				long id = accountIdCache.peek(e.getKey());
+				if (id == BoundedIdCache.NO_VALUE) return false;
+				accountIds.put(e.getKey(), id);
+				return true;
+			});
+			// owners of new accounts need an id even if their cache entry was evicted meanwhile
+			Set<String> candidates = new LinkedHashSet<>(newCustomers);
+			candidates.addAll(newAccounts.values());
+			Map<String, Long> userProfileIds = new HashMap<>();
+			Set<String> customersToUpsert = new LinkedHashSet<>();
+			for (String cid : candidates) {
+				long id = userProfileIdCache.peek(cid);
+				if (id == BoundedIdCache.NO_VALUE) {
+					customersToUpsert.add(cid);
+				} else {
+					userProfileIds.put(cid, id);
+				}
+			}
+			if (customersToUpsert.isEmpty() && newAccounts.isEmpty()) {
+				return accountIds;
+			}
+
+			Map<String, Long> createdUserProfileIds = new HashMap<>();
+			Map<String, Long> createdAccountIds = new HashMap<>();
+			for (int attempt = 1; ; attempt++) {
+				try {
+					upsertTx.executeWithoutResult(status -> {
+						createdUserProfileIds.clear();
+						createdAccountIds.clear();
+						createdUserProfileIds.putAll(upsertUserProfiles(customersToUpsert));
+						userProfileIds.putAll(createdUserProfileIds);
+						createdAccountIds.putAll(upsertAccounts(newAccounts, userProfileIds));
+					});
+					break;
+				} catch (DuplicateKeyException e) {
+					if (attempt == UPSERT_ATTEMPTS) {
+						throw new InvalidTransactionRecordException("Upsert kept colliding with concurrent imports: "
+								+ e.getMostSpecificCause().getMessage());
+					}
+					log.info("[RESOLVE] concurrent insert of the same key, retrying the upsert attempt={}", attempt);
+				}
+			}
+
+			// publish only after commit
+			createdUserProfileIds.forEach(userProfileIdCache::put);
+			createdAccountIds.forEach(accountIdCache::put);
+			accountIds.putAll(createdAccountIds);
+			log.info("[RESOLVE] newUserProfiles={} newAccounts={}", createdUserProfileIds.size(), createdAccountIds.size());
+			return accountIds;
+		} finally {
+			upsertLock.unlock();
+		}
+	}
+
+	private Map<String, Long> upsertUserProfiles(Collection<String> customerIds) {
+		if (customerIds.isEmpty()) return Map.of();
+		try {
+			SqlParameterSource[] params = customerIds.stream()
+					.map(cid -> new MapSqlParameterSource()
+							.addValue("customerId", cid)
+							.addValue("fullName", "IMPORTED-" + cid)
+							.addValue("email", cid + "@import.local"))
+					.toArray(SqlParameterSource[]::new);
+
+			// H2 UPSERT: MERGE ... KEY(...)
+			jdbc.batchUpdate(
+					"""
+					MERGE INTO USER_PROFILE (CUSTOMER_ID, FULL_NAME, EMAIL)
+					KEY (CUSTOMER_ID)
+					VALUES (:customerId, :fullName, :email)
+					""",
+					params
+			);
+
+			Map<String, Long> ids = selectIds("SELECT CUSTOMER_ID, ID FROM USER_PROFILE WHERE CUSTOMER_ID IN (:keys)", customerIds);
+			for (String cid : customerIds) {
+				if (!ids.containsKey(cid)) {
+					throw new InvalidTransactionRecordException("USER_PROFILE MERGE succeeded but ID not found for customerId=" + cid);
+				}
+			}
+			return ids;
+		} catch (DuplicateKeyException e) {
+			// another JVM inserted the same key first: upsert() retries
+			throw e;
+		} catch (DataAccessException e) {
+			// BadSqlGrammarException is a DataAccessException; log root cause message for real reason.
+			String root = (e.getMostSpecificCause() != null) ? e.getMostSpecificCause().getMessage() : e.getMessage();
+			log.error("[SQL] user_profile upsert/select failed customerIds={} root={}", customerIds, root, e);
+			throw new InvalidTransactionRecordException("Error processing user_profile for customerId: " + root);
+		}
+	}
+
+	private Map<String, Long> upsertAccounts(Map<String, String> ownerByAccount, Map<String, Long> userProfileIds) {
+		if (ownerByAccount.isEmpty()) return Map.of();
+		try {
+			SqlParameterSource[] params = ownerByAccount.entrySet().stream()
+					.map(e -> new MapSqlParameterSource()
+							.addValue("accountNumber", e.getKey())
+							.addValue("userProfileId", userProfileIds.get(e.getValue())))
+					.toArray(SqlParameterSource[]::new);
+
+			jdbc.batchUpdate(
+					"""
+					MERGE INTO ACCOUNT (ACCOUNT_NUMBER, USER_PROFILE_ID)
+					KEY (ACCOUNT_NUMBER)
+					VALUES (:accountNumber, :userProfileId)
+					""",
+					params
+			);
+
+			Map<String, Long> ids = selectIds("SELECT ACCOUNT_NUMBER, ID FROM ACCOUNT WHERE ACCOUNT_NUMBER IN (:keys)", ownerByAccount.keySet());
+			for (String acc : ownerByAccount.keySet()) {
+				if (!ids.containsKey(acc)) {
+					throw new InvalidTransactionRecordException("ACCOUNT MERGE succeeded but ID not found for accountNumber=" + acc);
+				}
+			}
+			return ids;
+		} catch (DuplicateKeyException e) {
+			// another JVM inserted the same key first: upsert() retries
+			throw e;
+		} catch (DataAccessException e) {
+			String root = (e.getMostSpecificCause() != null) ? e.getMostSpecificCause().getMessage() : e.getMessage();
+			log.error("[SQL] account upsert/select failed accountNumbers={} root={}", ownerByAccount.keySet(), root, e);
+			throw new InvalidTransactionRecordException("Error processing account for accountNumber: " + root);
+		}
+	}
+
+	/**
+	 * Runs {@code sql} (selecting key, ID) for all keys, {@link #IN_LIST_LIMIT} keys per statement.
+	 */
+	private Map<String, Long> selectIds(String sql, Collection<String> keys) {
+		Map<String, Long> ids = new HashMap<>();
+		List<String> all = new ArrayList<>(keys);
+		for (int from = 0; from < all.size(); from += IN_LIST_LIMIT) {
+			List<String> slice = all.subList(from, Math.min(from + IN_LIST_LIMIT, all.size()));
+			jdbc.query(sql, Map.of("keys", slice), rs -> {
+				ids.put(rs.getString(1), rs.getLong(2));
+			});
+		}
+		return ids;
+	}
+}
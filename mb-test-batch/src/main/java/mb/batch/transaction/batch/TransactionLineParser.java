@@ -0,0 +1,299 @@
+package mb.batch.transaction.batch;
+
+import mb.batch.transaction.dto.RejectedRecord;
+import mb.batch.transaction.dto.TransactionFileRow;
+import mb.batch.transaction.exception.InvalidTransactionRecordException;
+import org.springframework.batch.infrastructure.item.file.LineMapper;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Parses one pipe-delimited record straight from bytes:
+ * ACCOUNT_NUMBER|TRX_AMOUNT|DESCRIPTION|TRX_DATE|TRX_TIME|CUSTOMER_ID
+ * <p>
+ * Produces the same {@link TransactionFileRow} as the FieldSet based {@code transactionLineMapper}
+ * (trimmed fields, blank amount = 0, missing trailing fields = blank, extra fields ignored) without
+ * building intermediate strings for amounts, dates and times. Lines with quote characters are handed
+ * to the fallback line mapper, which knows the tokenizer's quoting rules.
+ * <p>
+ * Lines the mapper would reject (blank, missing fields, bad amount, date or time) are classified
+ * without throwing: {@link #parse} returns null and {@link #getRejectReason()} tells why. Only
+ * unusual spellings that need the JDK parsers (exponents, 5 digit years, fractional seconds) and
+ * quoted lines may throw internally.
+ * Not thread-safe: use one instance per reader.
+ */
+public class TransactionLineParser {
+
+	private static final int FIELD_COUNT = 6;
+	private static final int ACCOUNT_NUMBER = 0;
+	private static final int TRX_AMOUNT = 1;
+	private static final int DESCRIPTION = 2;
+	private static final int TRX_DATE = 3;
+	private static final int TRX_TIME = 4;
+	private static final int CUSTOMER_ID = 5;
+
+	private static final int MAX_LONG_DIGITS = 18;
+
+	private final LineMapper<TransactionFileRow> fallback;
+
+	private final int[] fieldStart = new int[FIELD_COUNT];
+	private final int[] fieldEnd = new int[FIELD_COUNT];
+	private byte[] scratch = new byte[256];
+	private RejectedRecord.Reason rejectReason;
+
+	public TransactionLineParser(LineMapper<TransactionFileRow> fallback) {
+		this.fallback = fallback;
+	}
+
+	/**
+	 * Parses bytes [from, to) of {@code buf}. The range must not contain the line terminator.
+	 *
+	 * @return the row, or null if the line is rejected (see {@link #getRejectReason()})
+	 */
+	public TransactionFileRow parse(ByteBuffer buf, int from, int to, int lineNumber) {
+		rejectReason = null;
+		if (isBlank(buf, from, to)) {
+			return reject(RejectedRecord.Reason.BLANK_LINE);
+		}
+		if (!split(buf, from, to)) {
+			return parseQuoted(decode(buf, from, to), lineNumber);
+		}
+		trim(buf);
+
+		// same order of checks as mapFieldSet
+		if (isEmpty(ACCOUNT_NUMBER) || isEmpty(CUSTOMER_ID) || isEmpty(TRX_DATE) || isEmpty(TRX_TIME)) {
+			return reject(RejectedRecord.Reason.MISSING_FIELDS);
+		}
+		BigDecimal amount = amount(buf);
+		if (amount == null) {
+			return reject(RejectedRecord.Reason.INVALID_AMOUNT);
+		}
+		LocalDate date = date(buf);
+		if (date == null) {
+			return reject(RejectedRecord.Reason.INVALID_DATE);
+		}
+		LocalTime time = time(buf);
+		if (time == null) {
+			return reject(RejectedRecord.Reason.INVALID_TIME);
+		}
+
+		return TransactionFileRow.builder()
+				.accountNumber(text(buf, ACCOUNT_NUMBER))
+				.trxAmount(amount)
+				.description(text(buf, DESCRIPTION))
+				.trxDate(date)
+				.trxTime(time)
+				.customerId(text(buf, CUSTOMER_ID))
+				.build();
+	}
+
+	/**
+	 * Parses a line that was already decoded, e.g. by a FlatFileItemReader.
+	 */
+	public TransactionFileRow parse(String line, int lineNumber) {
+		byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+		return parse(ByteBuffer.wrap(bytes), 0, bytes.length, lineNumber);
+	}
+
+	/**
+	 * Why the last {@link #parse} returned null.
+	 */
+	public RejectedRecord.Reason getRejectReason() {
+		return rejectReason;
+	}
+
+	private TransactionFileRow reject(RejectedRecord.Reason reason) {
+		rejectReason = reason;
+		return null;
+	}
+
+	private TransactionFileRow parseQuoted(String line, int lineNumber) {
+		try {
+			return fallback.mapLine(line, lineNumber);
+		} catch (InvalidTransactionRecordException e) {
+			return reject(RejectedRecord.Reason.MISSING_FIELDS);
+		} catch (NumberFormatException e) {
+			return reject(RejectedRecord.Reason.INVALID_AMOUNT);
+		} catch (Exception e) {
+			return reject(RejectedRecord.Reason.MALFORMED);
+		}
+	}
+
+	private static boolean isBlank(ByteBuffer buf, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if ((buf.get(i) & 0xff) > ' ') return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Records field boundaries. Returns false when the line needs the quote-aware fallback.
+	 */
+	private boolean split(ByteBuffer buf, int from, int to) {
+		int field = 0;
+		fieldStart[0] = from;
+		for (int i = from; i < to; i++) {
+			byte b = buf.get(i);
+			if (b == '"') {
+				return false;
+			}
+			if (b == '|') {
+				fieldEnd[field] = i;
+				if (++field == FIELD_COUNT) {
+					// non-strict tokenizer: extra columns are ignored
+					return true;
+				}
+				fieldStart[field] = i + 1;
+			}
+		}
+		fieldEnd[field] = to;
+		// non-strict tokenizer: missing trailing columns read as blank
+		for (int f = field + 1; f < FIELD_COUNT; f++) {
+			fieldStart[f] = to;
+			fieldEnd[f] = to;
+		}
+		return true;
+	}
+
+	private void trim(ByteBuffer buf) {
+		for (int f = 0; f < FIELD_COUNT; f++) {
+			int s = fieldStart[f];
+			int e = fieldEnd[f];
+			while (s < e && (buf.get(s) & 0xff) <= ' ') s++;
+			while (e > s && (buf.get(e - 1) & 0xff) <= ' ') e--;
+			fieldStart[f] = s;
+			fieldEnd[f] = e;
+		}
+	}
+
+	private boolean isEmpty(int field) {
+		return fieldStart[field] == fieldEnd[field];
+	}
+
+	private String text(ByteBuffer buf, int field) {
+		return isEmpty(field) ? null : decode(buf, fieldStart[field], fieldEnd[field]);
+	}
+
+	private String decode(ByteBuffer buf, int from, int to) {
+		int len = to - from;
+		if (scratch.length < len) {
+			scratch = new byte[Math.max(len, scratch.length * 2)];
+		}
+		buf.get(from, scratch, 0, len);
+		return new String(scratch, 0, len, StandardCharsets.UTF_8);
+	}
+
+	private BigDecimal amount(ByteBuffer buf) {
+		int s = fieldStart[TRX_AMOUNT];
+		int e = fieldEnd[TRX_AMOUNT];
+		if (s == e) {
+			return BigDecimal.ZERO;
+		}
+
+		int i = s;
+		boolean negative = false;
+		byte first = buf.get(i);
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			i++;
+		}
+
+		long unscaled = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean dot = false;
+		for (; i < e; i++) {
+			byte b = buf.get(i);
+			if (b >= '0' && b <= '9') {
+				unscaled = unscaled * 10 + (b - '0');
+				digits++;
+				if (dot) scale++;
+			} else if (b == '.' && !dot) {
+				dot = true;
+			} else if (b == 'e' || b == 'E') {
+				return bigDecimal(buf, s, e);
+			} else {
+				return null;
+			}
+		}
+		if (digits == 0) {
+			return null;
+		}
+		if (digits > MAX_LONG_DIGITS) {
+			return bigDecimal(buf, s, e);
+		}
+		return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+	}
+
+	/**
+	 * Exponent notation and very long numbers; null if BigDecimal does not accept them either.
+	 */
+	private BigDecimal bigDecimal(ByteBuffer buf, int from, int to) {
+		try {
+			return new BigDecimal(decode(buf, from, to));
+		} catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+
+	private LocalDate date(ByteBuffer buf) {
+		int s = fieldStart[TRX_DATE];
+		int e = fieldEnd[TRX_DATE];
+		// yyyy-MM-dd
+		if (e - s == 10 && buf.get(s + 4) == '-' && buf.get(s + 7) == '-') {
+			int year = digits(buf, s, 4);
+			int month = digits(buf, s + 5, 2);
+			int day = digits(buf, s + 8, 2);
+			if (year < 0 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+				return null;
+			}
+			return LocalDate.of(year, month, day);
+		}
+		try {
+			return LocalDate.parse(decode(buf, s, e));
+		} catch (DateTimeException ex) {
+			return null;
+		}
+	}
+
+	private LocalTime time(ByteBuffer buf) {
+		int s = fieldStart[TRX_TIME];
+		int e = fieldEnd[TRX_TIME];
+		int len = e - s;
+		// HH:mm or HH:mm:ss
+		if ((len == 5 || len == 8) && buf.get(s + 2) == ':' && (len == 5 || buf.get(s + 5) == ':')) {
+			int hour = digits(buf, s, 2);
+			int minute = digits(buf, s + 3, 2);
+			int second = len == 8 ? digits(buf, s + 6, 2) : 0;
+			if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+				return null;
+			}
+			return LocalTime.of(hour, minute, second);
+		}
+		try {
+			return LocalTime.parse(decode(buf, s, e));
+		} catch (DateTimeException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads {@code count} ASCII digits, or returns -1 if any byte is not a digit.
+	 */
+	private static int digits(ByteBuffer buf, int from, int count) {
+		int value = 0;
+		for (int i = from; i < from + count; i++) {
+			byte b = buf.get(i);
+			if (b < '0' || b > '9') return -1;
+			value = value * 10 + (b - '0');
+		}
+		return value;
+	}
+}
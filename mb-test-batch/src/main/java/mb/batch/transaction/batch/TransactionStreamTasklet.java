@@ -0,0 +1,229 @@
+package mb.batch.transaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.dto.ImportFileState;
+import mb.batch.transaction.dto.TransactionFileRow;
+import mb.batch.transaction.dto.TransactionInsertRow;
+import mb.batch.transaction.exception.InvalidTransactionRecordException;
+import mb.batch.transaction.util.FileChecksums;
+import mb.batch.transaction.util.TailingLineSource;
+import mb.batch.transaction.util.TransactionImportMetrics;
+import mb.batch.transaction.util.TransactionImportSkipListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.StepContribution;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.infrastructure.item.ItemStream;
+import org.springframework.batch.infrastructure.item.ItemStreamException;
+import org.springframework.batch.infrastructure.repeat.RepeatStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Streaming import: follows a file that is appended to during the day (or a named pipe) and imports
+ * its new lines in micro-batches of up to {@code batchSize} lines, or whatever arrived within
+ * {@code batchMillis} of the first one. Every execution of the tasklet is one micro-batch in its
+ * own transaction; the step repeats it until it is stopped.
+ * <p>
+ * Lines are parsed, processed and written like in the chunk steps ({@link TransactionLineParser},
+ * {@link TransactionImportProcessor}, {@link TransactionImportWriter}); rejected lines go to the
+ * {@link RecordQuarantine}; blank lines (the separator of the bundled file format) are skipped
+ * without a reject. The skip limit applies to every micro-batch on its own: a stream that runs for
+ * days would otherwise fail on the sum of its occasional bad lines.
+ * <p>
+ * The file's IMPORT_FILE_STATE row is updated in the same transaction, so the committed offset is
+ * exactly the end of the imported lines: a restart, or the next job instance, continues from there
+ * (after checking the prefix checksum, as an incremental import does) without losing or repeating
+ * rows. A pipe has no such state and starts with what it is sent.
+ * <p>
+ * Line numbers in the quarantine count from the offset the stream started at.
+ */
+@Slf4j
+public class TransactionStreamTasklet implements Tasklet, ItemStream {
+
+	private static final String LINE_NUMBER_KEY = "stream.lineNumber";
+
+	// an idle step returns this often, so that a stop request is noticed
+	private static final long IDLE_WAIT_MILLIS = 1000;
+
+	private final Path file;
+	private final TransactionLineParser parser;
+	private final RecordQuarantine quarantine;
+	private final TransactionImportProcessor processor;
+	private final TransactionImportWriter writer;
+	private final TransactionImportSkipListener skipListener;
+	private final ImportFileStateRepository stateRepository;
+	private final TransactionImportMetrics metrics;
+	private final int linesToSkip;
+	private final int batchSize;
+	private final long batchMillis;
+	private final long pollMillis;
+
+	private TailingLineSource source;
+	private int headerLinesLeft;
+	private int lineNumber;
+
+	public TransactionStreamTasklet(Path file, TransactionLineParser parser, RecordQuarantine quarantine,
+									TransactionImportProcessor processor, TransactionImportWriter writer,
+									TransactionImportSkipListener skipListener, ImportFileStateRepository stateRepository,
+									TransactionImportMetrics metrics, int linesToSkip, int batchSize, long batchMillis,
+									long pollMillis) {
+		this.file = file.toAbsolutePath();
+		this.parser = parser;
+		this.quarantine = quarantine;
+		this.processor = processor;
+		this.writer = writer;
+		this.skipListener = skipListener;
+		this.stateRepository = stateRepository;
+		this.metrics = metrics;
+		this.linesToSkip = linesToSkip;
+		this.batchSize = batchSize;
+		this.batchMillis = batchMillis;
+		this.pollMillis = pollMillis;
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		quarantine.open(executionContext);
+		lineNumber = executionContext.getInt(LINE_NUMBER_KEY, 0);
+
+		long offset = 0;
+		CRC32C prefix = null;
+		if (Files.isRegularFile(file)) {
+			try {
+				Optional<ImportFileState> state = stateRepository.find(file.toString());
+				if (state.isPresent()) {
+					long committed = state.get().getCommittedOffset();
+					CRC32C crc = committed <= Files.size(file) ? FileChecksums.prefix(file, committed) : null;
+					if (crc != null && crc.getValue() == state.get().getPrefixCrc32c()) {
+						offset = committed;
+						prefix = crc;
+						lineNumber = (int) state.get().getCommittedLine();
+					} else {
+						// edited, truncated or replaced, like CHANGED of an incremental import
+						log.warn("[STREAM] file={} changed below committedOffset={}, importing from the start", file, committed);
+						lineNumber = 0;
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot fingerprint " + file, e);
+			}
+		}
+		headerLinesLeft = offset == 0 ? linesToSkip : 0;
+
+		source = new TailingLineSource(file, offset, prefix, batchSize * 4, pollMillis);
+		if (source.isPipe()) {
+			log.warn("[STREAM] {} is a pipe: lines read but not committed when the job stops are lost", file);
+		}
+		metrics.streamStarted(source);
+		source.start();
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		executionContext.putInt(LINE_NUMBER_KEY, lineNumber);
+		quarantine.update(executionContext);
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+		try {
+			if (source != null) {
+				source.close();
+				metrics.streamEnded(source);
+			}
+		} finally {
+			quarantine.close();
+		}
+	}
+
+	@Override
+	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+		TailingLineSource.Line first = source.poll(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+		if (first == null) {
+			return RepeatStatus.CONTINUABLE;
+		}
+		quarantine.startWindow();
+		List<TailingLineSource.Line> lines = new ArrayList<>(batchSize);
+		lines.add(first);
+		long deadline = first.readNanos() + TimeUnit.MILLISECONDS.toNanos(batchMillis);
+		while (lines.size() < batchSize) {
+			TailingLineSource.Line line = source.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			if (line == null) break;
+			lines.add(line);
+		}
+
+		List<TransactionInsertRow> rows = new ArrayList<>(lines.size());
+		for (TailingLineSource.Line line : lines) {
+			lineNumber++;
+			if (headerLinesLeft > 0) {
+				headerLinesLeft--;
+				log.info("[READER] skippedHeader='{}'", line.text());
+				continue;
+			}
+			if (line.text().isBlank()) {
+				continue;
+			}
+			TransactionFileRow row = parser.parse(line.text(), lineNumber);
+			if (row == null) {
+				quarantine.reject(lineNumber, parser.getRejectReason(), line.text());
+				continue;
+			}
+			contribution.incrementReadCount();
+			try {
+				TransactionInsertRow inserted = processor.process(row);
+				if (inserted == null) {
+					contribution.incrementFilterCount(1);
+				} else {
+					rows.add(inserted);
+				}
+			} catch (InvalidTransactionRecordException e) {
+				skipListener.onSkipInProcess(row, e);
+				contribution.incrementProcessSkipCount();
+			}
+		}
+
+		if (!rows.isEmpty()) {
+			Chunk<TransactionInsertRow> chunk = new Chunk<>(rows);
+			TransactionImportMetrics.StepMeters meters = metrics.current();
+			if (meters != null) meters.writeStarted();
+			// write skips are counted in this micro-batch's contribution and limited per micro-batch
+			writer.writeBatch(chunk, contribution);
+			if (meters != null) meters.writeFinished(chunk.size());
+			contribution.incrementWriteCount(chunk.size());
+		}
+
+		TailingLineSource.Line last = lines.getLast();
+		if (!source.isPipe()) {
+			stateRepository.save(ImportFileState.builder()
+					.resource(file.toString())
+					.sizeBytes(Files.size(file))
+					.lastModified(Files.getLastModifiedTime(file).toMillis())
+					.prefixCrc32c(last.crc32c())
+					.committedOffset(last.endOffset())
+					.committedLine(lineNumber)
+					.build());
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				source.committed(last.endOffset());
+			}
+		});
+
+		log.debug("[STREAM] lines={} written={} offset={} waitedMs={}", lines.size(), rows.size(), last.endOffset(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - first.readNanos()));
+		return RepeatStatus.CONTINUABLE;
+	}
+}
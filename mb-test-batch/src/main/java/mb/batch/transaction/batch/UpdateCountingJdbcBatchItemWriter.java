@@ -0,0 +1,23 @@
+package mb.batch.transaction.batch;
+
+import org.springframework.batch.infrastructure.item.database.JdbcBatchItemWriter;
+
+/**
+ * Keeps the update counts of the last {@link #write}, one per item of the written chunk, for writers
+ * whose statement may legitimately update nothing (see {@link #setAssertUpdates}).
+ * One instance per step execution: the counts are not shared between threads.
+ */
+public class UpdateCountingJdbcBatchItemWriter<T> extends JdbcBatchItemWriter<T> {
+
+	private int[] lastUpdateCounts = new int[0];
+
+	public int[] getLastUpdateCounts() {
+		return lastUpdateCounts;
+	}
+
+	@Override
+	protected void processUpdateCounts(int[] updateCounts) {
+		lastUpdateCounts = updateCounts;
+		super.processUpdateCounts(updateCounts);
+	}
+}
@@ -0,0 +1,115 @@
+package mb.batch.transaction.daemon;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.dto.ImportRunStatus;
+import org.springframework.batch.core.job.parameters.JobParameters;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Daemon mode HTTP trigger: {@code POST /api/imports} starts an import, {@code GET /api/imports}
+ * shows the running (or last) one, {@code GET /api/imports/{executionId}} any earlier execution.
+ * Every request needs {@code Authorization: Bearer <app.batch.daemon.token>}; without a token the
+ * trigger is disabled (403) and only the {@code app.batch.daemon.cron} run imports.
+ * <pre>
+ * curl -X POST -H "Authorization: Bearer $TOKEN" -H "Content-Type: application/json" \
+ *     -d '{"mode":"sequential","inputResource":"file:/data/transactions-source.txt","incremental":true}' \
+ *     http://localhost:8081/api/imports
+ * </pre>
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/imports")
+@ConditionalOnProperty(prefix = "app.batch.daemon", name = "enabled", havingValue = "true")
+public class ImportJobController {
+
+	private static final String BEARER = "Bearer ";
+
+	private final ImportJobLauncher launcher;
+	private final byte[] token;
+
+	public ImportJobController(ImportJobLauncher launcher, @Value("${app.batch.daemon.token:}") String token) {
+		this.launcher = launcher;
+		if (token.isBlank()) {
+			log.warn("[DAEMON] app.batch.daemon.token is not set: HTTP trigger disabled, scheduled runs only");
+			this.token = null;
+		} else {
+			this.token = token.getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * @param mode sequential (default), partitioned, bulk, files (inputResource is a pattern) or remote
+	 */
+	public record LaunchRequest(String mode, String inputResource, Boolean incremental) {
+	}
+
+	@PostMapping
+	public ResponseEntity<Map<String, Object>> launch(
+			@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+			@RequestBody(required = false) LaunchRequest request
+	) {
+		authorize(authorization);
+		String mode = request == null || request.mode() == null ? "sequential" : request.mode();
+		if (!ImportJobLauncher.JOBS.containsKey(mode)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Unknown mode '" + mode + "', expected one of " + ImportJobLauncher.JOBS.keySet());
+		}
+
+		Optional<JobParameters> launched = launcher.launch(mode,
+				request == null ? null : request.inputResource(),
+				request == null ? null : request.incremental());
+		if (launched.isEmpty()) {
+			log.info("[DAEMON] launch mode={} refused: an import is still running", mode);
+			return ResponseEntity.status(HttpStatus.CONFLICT)
+					.body(Map.of("message", "An import is still running", "running", launcher.current()));
+		}
+		return ResponseEntity.accepted()
+				.header(HttpHeaders.LOCATION, "/api/imports")
+				.body(Map.of("job", ImportJobLauncher.JOBS.get(mode), "parameters", launched.get().toString()));
+	}
+
+	@GetMapping
+	public ResponseEntity<Map<String, Object>> current(
+			@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization
+	) {
+		authorize(authorization);
+		List<ImportRunStatus> executions = launcher.current();
+		return ResponseEntity.ok(Map.of("busy", launcher.isBusy(), "executions", executions));
+	}
+
+	@GetMapping("/{executionId}")
+	public ResponseEntity<ImportRunStatus> find(
+			@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+			@PathVariable long executionId
+	) {
+		authorize(authorization);
+		return launcher.find(executionId)
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	private void authorize(String authorization) {
+		if (token == null) {
+			throw new ResponseStatusException(HttpStatus.FORBIDDEN, "HTTP trigger disabled: app.batch.daemon.token is not set");
+		}
+		byte[] presented = authorization != null && authorization.startsWith(BEARER)
+				? authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8)
+				: new byte[0];
+		// constant time: do not leak the token through response timing
+		if (!MessageDigest.isEqual(presented, token)) {
+			throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+		}
+	}
+}
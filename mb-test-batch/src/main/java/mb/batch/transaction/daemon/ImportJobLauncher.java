@@ -0,0 +1,260 @@
+package mb.batch.transaction.daemon;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.batch.TransactionKeyResolver;
+import mb.batch.transaction.dto.ImportRunStatus;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.job.Job;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.job.JobInstance;
+import org.springframework.batch.core.job.parameters.JobParameters;
+import org.springframework.batch.core.job.parameters.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Starts import jobs inside the resident application (daemon mode), one at a time and off the
+ * calling thread. A launch is refused while a previous one has not finished, or while any import
+ * job is running according to the job repository (e.g. started by another JVM on the same database),
+ * including the streaming import, which always runs in a process of its own (profile {@code stream}).
+ * <p>
+ * The id caches of {@link TransactionKeyResolver} outlive a run here. They are bounded by
+ * {@code id-cache-size} either way; unless {@code keep-id-caches} is set they are emptied before
+ * every launch, because the database behind them (mb-be's in-memory H2) may have been recreated
+ * since the last run. {@code prewarm-cache} reloads them from the database.
+ * <p>
+ * An execution whose process was killed mid-import stays STARTED in the job repository and would
+ * refuse every later launch. Unless {@code recover-on-startup} is off, such executions are marked
+ * FAILED once the application is ready (see {@link #recoverStaleExecutions}); they can then be
+ * restarted like any failed run. A streaming import is taken to be dead only once it has not updated
+ * its execution for {@link #STREAM_STALE_AFTER}.
+ * <p>
+ * Jobs run on the application's own {@link JobOperator}, so listeners, metrics and restart behave
+ * exactly as with {@code spring.batch.job.enabled=true}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.batch.daemon", name = "enabled", havingValue = "true")
+public class ImportJobLauncher {
+
+	/** Launch modes and the jobs they run. */
+	public static final Map<String, String> JOBS = Map.of(
+			"sequential", "importTransactionsJob",
+			"partitioned", "importTransactionsPartitionedJob",
+			"bulk", "importTransactionsBulkJob",
+			"files", "importTransactionsMultiFileJob",
+			"remote", "importTransactionsRemotePartitionedJob");
+
+	/** Not launched by the daemon, but writes the same tables. */
+	private static final String STREAM_JOB = "importTransactionsStreamJob";
+
+	/** The jobs whose running executions refuse a launch and are shown by {@link #current()}. */
+	private static final List<String> IMPORT_JOBS = Stream.concat(JOBS.values().stream(), Stream.of(STREAM_JOB)).toList();
+
+	/**
+	 * The streaming import commits and updates its step at least every second, even when idle; one
+	 * that has not for this long belongs to a process that died.
+	 */
+	private static final Duration STREAM_STALE_AFTER = Duration.ofMinutes(1);
+
+	private final JobOperator jobOperator;
+	private final JobRepository jobRepository;
+	private final Map<String, Job> jobs;
+	private final TransactionKeyResolver keyResolver;
+	private final boolean keepIdCaches;
+	private final boolean recoverOnStartup;
+
+	private final AtomicBoolean busy = new AtomicBoolean();
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "import-daemon"));
+
+	private volatile String lastJobName;
+
+	public ImportJobLauncher(
+			JobOperator jobOperator,
+			JobRepository jobRepository,
+			Map<String, Job> jobs,
+			TransactionKeyResolver keyResolver,
+			@Value("${app.batch.daemon.keep-id-caches:false}") boolean keepIdCaches,
+			@Value("${app.batch.daemon.recover-on-startup:true}") boolean recoverOnStartup
+	) {
+		this.jobOperator = jobOperator;
+		this.jobRepository = jobRepository;
+		this.jobs = jobs;
+		this.keyResolver = keyResolver;
+		this.keepIdCaches = keepIdCaches;
+		this.recoverOnStartup = recoverOnStartup;
+	}
+
+	/**
+	 * Marks import executions that are still STARTING, STARTED or STOPPING in the job repository, and
+	 * their unfinished steps, FAILED. At startup this process runs no import yet, so they were left
+	 * behind by one that died. Turn {@code recover-on-startup} off when another process launches
+	 * imports on the same database: its running executions would be marked too. Streaming imports run
+	 * in another process anyway and are only marked when stale.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void recoverStaleExecutions() {
+		if (!recoverOnStartup) {
+			return;
+		}
+		for (String jobName : IMPORT_JOBS) {
+			for (JobExecution execution : jobRepository.findRunningJobExecutions(jobName)) {
+				if (jobName.equals(STREAM_JOB) && !isStale(execution)) {
+					continue;
+				}
+				LocalDateTime now = LocalDateTime.now();
+				ExitStatus exitStatus = ExitStatus.FAILED
+						.addExitDescription("Still " + execution.getStatus() + " at daemon startup, marked FAILED");
+				for (StepExecution step : execution.getStepExecutions()) {
+					if (step.getStatus().isRunning()) {
+						step.setStatus(BatchStatus.FAILED);
+						step.setExitStatus(exitStatus);
+						step.setEndTime(now);
+						jobRepository.update(step);
+					}
+				}
+				log.warn("[DAEMON] recovered job={} executionId={} status={} -> FAILED",
+						jobName, execution.getId(), execution.getStatus());
+				execution.setStatus(BatchStatus.FAILED);
+				execution.setExitStatus(exitStatus);
+				execution.setEndTime(now);
+				jobRepository.update(execution);
+			}
+		}
+	}
+
+	/**
+	 * Submits a run of the job of {@code mode}. {@code inputResource} and {@code incremental} are
+	 * passed as job parameters when given; otherwise the application properties apply.
+	 *
+	 * @return the job parameters of the launch, or empty if an import is still running
+	 */
+	public Optional<JobParameters> launch(String mode, String inputResource, Boolean incremental) {
+		String jobName = JOBS.get(mode);
+		if (jobName == null) {
+			throw new IllegalArgumentException("Unknown mode '" + mode + "', expected one of " + JOBS.keySet());
+		}
+		Job job = jobs.get(jobName);
+
+		if (!busy.compareAndSet(false, true)) {
+			return Optional.empty();
+		}
+		if (isAnyImportRunning()) {
+			busy.set(false);
+			return Optional.empty();
+		}
+
+		JobParametersBuilder builder = new JobParametersBuilder()
+				.addLong("run.id", System.currentTimeMillis());
+		if (inputResource != null && !inputResource.isBlank()) {
+			builder.addString("inputResource", inputResource);
+		}
+		if (incremental != null) {
+			builder.addString("incremental", incremental.toString());
+		}
+		JobParameters parameters = builder.toJobParameters();
+
+		lastJobName = jobName;
+		try {
+			executor.execute(() -> run(job, parameters));
+		} catch (RuntimeException e) {
+			busy.set(false);
+			throw e;
+		}
+		log.info("[DAEMON] launched job={} parameters={}", jobName, parameters);
+		return Optional.of(parameters);
+	}
+
+	// start() ignores the parameters of a job that has an incrementer (all import jobs) and starts the
+	// next instance with the previous run's parameters instead: run() launches with the given ones
+	@SuppressWarnings("removal")
+	private void run(Job job, JobParameters parameters) {
+		try {
+			if (!keepIdCaches) {
+				keyResolver.clearCaches();
+			}
+			JobExecution execution = jobOperator.run(job, parameters);
+			log.info("[DAEMON] finished job={} executionId={} status={} exitCode={}",
+					job.getName(), execution.getId(), execution.getStatus(), execution.getExitStatus().getExitCode());
+		} catch (Exception e) {
+			log.error("[DAEMON] job={} could not be run: {}", job.getName(), e.toString(), e);
+		} finally {
+			busy.set(false);
+		}
+	}
+
+	public boolean isBusy() {
+		return busy.get();
+	}
+
+	/**
+	 * Running executions of every import job, else the last execution of the job launched last.
+	 */
+	public List<ImportRunStatus> current() {
+		List<ImportRunStatus> running = new ArrayList<>();
+		for (String jobName : IMPORT_JOBS) {
+			jobRepository.findRunningJobExecutions(jobName).stream().map(ImportRunStatus::of).forEach(running::add);
+		}
+		if (!running.isEmpty() || lastJobName == null) {
+			return running;
+		}
+		JobInstance instance = jobRepository.getLastJobInstance(lastJobName);
+		JobExecution last = instance == null ? null : jobRepository.getLastJobExecution(instance);
+		return last == null ? running : List.of(ImportRunStatus.of(last));
+	}
+
+	public Optional<ImportRunStatus> find(long executionId) {
+		return Optional.ofNullable(jobRepository.getJobExecution(executionId)).map(ImportRunStatus::of);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		// interrupts a running job; an execution that cannot finish stays STARTED in the job repository
+		// until recoverStaleExecutions marks it FAILED on the next startup
+		executor.shutdownNow();
+	}
+
+	private boolean isAnyImportRunning() {
+		for (String jobName : IMPORT_JOBS) {
+			if (jobRepository.findRunningJobExecutions(jobName).stream()
+					.anyMatch(execution -> !jobName.equals(STREAM_JOB) || !isStale(execution))) {
+				log.warn("[DAEMON] job={} is already running", jobName);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Whether a running streaming import has not updated its job or step execution for
+	 * {@link #STREAM_STALE_AFTER}, i.e. its process died.
+	 */
+	private static boolean isStale(JobExecution execution) {
+		LocalDateTime lastActivity = execution.getLastUpdated() != null ? execution.getLastUpdated() : execution.getCreateTime();
+		for (StepExecution step : execution.getStepExecutions()) {
+			if (step.getLastUpdated() != null && step.getLastUpdated().isAfter(lastActivity)) {
+				lastActivity = step.getLastUpdated();
+			}
+		}
+		return lastActivity.plus(STREAM_STALE_AFTER).isBefore(LocalDateTime.now());
+	}
+}
@@ -0,0 +1,40 @@
+package mb.batch.transaction.daemon;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Daemon mode cron trigger ({@code app.batch.daemon.cron}, Spring cron syntax, "-" = off). A run
+ * that is due while an import is still running is skipped, not queued.
+ */
+@Slf4j
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "app.batch.daemon", name = "enabled", havingValue = "true")
+public class ImportSchedule {
+
+	private final ImportJobLauncher launcher;
+	private final String mode;
+	private final Boolean incremental;
+
+	public ImportSchedule(
+			ImportJobLauncher launcher,
+			@Value("${app.batch.daemon.cron-mode:sequential}") String mode,
+			@Value("${app.batch.daemon.cron-incremental:#{null}}") Boolean incremental
+	) {
+		this.launcher = launcher;
+		this.mode = mode;
+		this.incremental = incremental;
+	}
+
+	@Scheduled(cron = "${app.batch.daemon.cron:-}", zone = "${app.batch.daemon.cron-zone:}")
+	public void launch() {
+		if (launcher.launch(mode, null, incremental).isEmpty()) {
+			log.warn("[DAEMON] scheduled run mode={} skipped: an import is still running", mode);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package mb.batch.transaction.daemon;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.batch.PartitionClaimRepository;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.Step;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker JVM of {@code importTransactionsRemotePartitionedJob} ({@code app.batch.worker.enabled}):
+ * claims partitions the manager published in the job repository and runs them, at most
+ * {@code concurrency} at a time. The worker step execution itself reports the result; while it
+ * runs, its LAST_UPDATED is refreshed every {@code heartbeat-millis} so the manager does not take
+ * this worker for dead.
+ * <p>
+ * The input file must be readable under the same path as on the manager.
+ */
+@Slf4j
+@Component
+@EnableScheduling
+@ConditionalOnProperty(prefix = "app.batch.worker", name = "enabled", havingValue = "true")
+public class PartitionWorker {
+
+	private final PartitionClaimRepository claims;
+	private final JobRepository jobRepository;
+	private final Step workerStep;
+	private final int concurrency;
+	private final ExecutorService executor;
+	private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+	public PartitionWorker(
+			PartitionClaimRepository claims,
+			JobRepository jobRepository,
+			@Qualifier("importTransactionsRemoteWorkerStep") Step workerStep,
+			@Value("${app.batch.worker.concurrency:2}") int concurrency
+	) {
+		this.claims = claims;
+		this.jobRepository = jobRepository;
+		this.workerStep = workerStep;
+		this.concurrency = concurrency;
+		this.executor = Executors.newFixedThreadPool(concurrency, Thread.ofPlatform().name("import-worker-", 0).factory());
+		log.info("[WORKER] polling for step={} concurrency={}", workerStep.getName(), concurrency);
+	}
+
+	@Scheduled(fixedDelayString = "${app.batch.worker.poll-millis:1000}")
+	public void poll() {
+		while (running.size() < concurrency) {
+			Optional<PartitionClaimRepository.Claim> claim = claims.claim(workerStep.getName());
+			if (claim.isEmpty()) {
+				return;
+			}
+			long stepExecutionId = claim.get().stepExecutionId();
+			running.add(stepExecutionId);
+			executor.execute(() -> run(claim.get()));
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${app.batch.worker.heartbeat-millis:10000}")
+	public void heartbeat() {
+		claims.heartbeat(Set.copyOf(running));
+	}
+
+	private void run(PartitionClaimRepository.Claim claim) {
+		try {
+			StepExecution stepExecution = jobRepository.getStepExecution(claim.jobExecutionId(), claim.stepExecutionId());
+			log.info("[WORKER] claimed partition={} jobExecutionId={}", claim.stepName(), claim.jobExecutionId());
+			workerStep.execute(stepExecution);
+			log.info("[WORKER] partition={} status={} written={}", claim.stepName(),
+					stepExecution.getStatus(), stepExecution.getWriteCount());
+		} catch (Exception e) {
+			// the step records its own failures; this is the repository failing underneath it
+			log.error("[WORKER] partition={} aborted: {}", claim.stepName(), e.toString(), e);
+		} finally {
+			running.remove(claim.stepExecutionId());
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		executor.shutdown();
+		if (!running.isEmpty()) {
+			log.info("[WORKER] waiting for running partitions={}", running);
+		}
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+	}
+}
@@ -0,0 +1,18 @@
+package mb.batch.transaction.dto;
+
+import lombok.*;
+
+/**
+ * Fingerprint of an input file as of its last import: the CRC32C covers bytes [0, committedOffset),
+ * which hold committedLine lines.
+ */
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class ImportFileState {
+	private String resource;       // absolute file path
+	private long sizeBytes;
+	private long lastModified;     // epoch millis
+	private long prefixCrc32c;
+	private long committedOffset;  // first byte not imported yet
+	private long committedLine;    // number of lines before committedOffset
+}
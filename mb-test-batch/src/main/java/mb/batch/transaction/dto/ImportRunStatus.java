@@ -0,0 +1,79 @@
+package mb.batch.transaction.dto;
+
+import lombok.*;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.step.StepExecution;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Status of one import job execution with the counters of its steps, as reported by the daemon endpoint.
+ */
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class ImportRunStatus {
+	private long executionId;
+	private String jobName;
+	private String inputResource;  // null = app.batch.import-transactions.input-resource
+	private String incremental;    // null = app.batch.import-transactions.incremental
+	private String status;
+	private String exitCode;
+	private String exitDescription;
+	private LocalDateTime startTime;
+	private LocalDateTime endTime;
+	private List<Step> steps;
+
+	public static ImportRunStatus of(JobExecution execution) {
+		return ImportRunStatus.builder()
+				.executionId(execution.getId())
+				.jobName(execution.getJobInstance().getJobName())
+				.inputResource(execution.getJobParameters().getString("inputResource"))
+				.incremental(execution.getJobParameters().getString("incremental"))
+				.status(execution.getStatus().name())
+				.exitCode(execution.getExitStatus().getExitCode())
+				.exitDescription(execution.getExitStatus().getExitDescription())
+				.startTime(execution.getStartTime())
+				.endTime(execution.getEndTime())
+				.steps(execution.getStepExecutions().stream().map(Step::of).toList())
+				.build();
+	}
+
+	@Getter @Setter
+	@NoArgsConstructor @AllArgsConstructor @Builder
+	public static class Step {
+		private String stepName;
+		private String status;
+		private long readCount;
+		private long writeCount;
+		private long filterCount;
+		private long readSkipCount;
+		private long processSkipCount;
+		private long writeSkipCount;
+		private long commitCount;
+		private long rollbackCount;
+		private long elapsedMs;
+		private double rowsPerSecond;
+
+		public static Step of(StepExecution execution) {
+			LocalDateTime start = execution.getStartTime();
+			LocalDateTime end = execution.getEndTime() != null ? execution.getEndTime() : LocalDateTime.now();
+			long elapsedMs = start == null ? 0 : Duration.between(start, end).toMillis();
+			return Step.builder()
+					.stepName(execution.getStepName())
+					.status(execution.getStatus().name())
+					.readCount(execution.getReadCount())
+					.writeCount(execution.getWriteCount())
+					.filterCount(execution.getFilterCount())
+					.readSkipCount(execution.getReadSkipCount())
+					.processSkipCount(execution.getProcessSkipCount())
+					.writeSkipCount(execution.getWriteSkipCount())
+					.commitCount(execution.getCommitCount())
+					.rollbackCount(execution.getRollbackCount())
+					.elapsedMs(elapsedMs)
+					.rowsPerSecond(elapsedMs == 0 ? 0 : execution.getWriteCount() * 1000.0 / elapsedMs)
+					.build();
+		}
+	}
+}
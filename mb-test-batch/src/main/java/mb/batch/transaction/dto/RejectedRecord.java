@@ -0,0 +1,34 @@
+package mb.batch.transaction.dto;
+
+/**
+ * An input line the import does not accept, as written to the quarantine file.
+ */
+public record RejectedRecord(int lineNumber, Reason reason, String input) {
+
+	public enum Reason {
+		// labels match the REJECT_REASON values of the bulk load
+		BLANK_LINE("Blank line"),
+		MISSING_FIELDS("Missing required fields"),
+		INVALID_AMOUNT("Invalid amount"),
+		INVALID_DATE("Invalid date"),
+		INVALID_TIME("Invalid time"),
+		MALFORMED("Malformed line");
+
+		private final String label;
+
+		Reason(String label) {
+			this.label = label;
+		}
+
+		public String label() {
+			return label;
+		}
+
+		public static Reason ofLabel(String label) {
+			for (Reason reason : values()) {
+				if (reason.label.equals(label)) return reason;
+			}
+			throw new IllegalArgumentException("Unknown reject reason '" + label + "'");
+		}
+	}
+}
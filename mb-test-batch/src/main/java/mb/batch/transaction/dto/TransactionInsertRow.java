@@ -11,7 +11,8 @@ import java.time.LocalTime;
 @NoArgsConstructor @AllArgsConstructor @Builder
 public class TransactionInsertRow {
 	private Long version;          // @Version column in BE
-	private Long accountId;        // FK from account table
+	private Long accountId;        // FK from account table, resolved per chunk
+	private String accountNumber;  // not inserted, key for accountId
 	private BigDecimal amount;
 	private String description;
 	private LocalDate trxDate;
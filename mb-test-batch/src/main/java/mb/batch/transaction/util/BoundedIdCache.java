@@ -0,0 +1,222 @@
+package mb.batch.transaction.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size String -> long cache for database IDs.
+ * <p>
+ * Entries live in primitive arrays organised as 8-way sets; a full set evicts with the CLOCK
+ * (second chance) rule, so memory stays at {@code capacity} slots no matter how many keys pass
+ * through. Numeric keys of up to 17 digits (account numbers, customer IDs) are stored exactly as a
+ * single long; any other key is stored as its UTF-8 bytes next to a 64-bit hash.
+ * Thread-safe: each set is guarded by one of a fixed number of lock stripes.
+ */
+public class BoundedIdCache {
+
+	/** Returned by {@link #get(String)} and {@link #peek(String)} when the key is not cached. */
+	public static final long NO_VALUE = Long.MIN_VALUE;
+
+	private static final int WAYS = 8;
+	private static final int MAX_NUMERIC_DIGITS = 17;
+	private static final int NUMERIC_LENGTH_SHIFT = 57;
+	private static final int MAX_LOCK_STRIPES = 1024;
+
+	private final String name;
+	private final int setMask;
+	private final long[] keyCodes;   // 0 = empty slot
+	private final byte[][] keyBytes; // only for non-numeric keys
+	private final long[] values;
+	private final boolean[] referenced;
+	private final int[] clockHands;
+	private final Object[] locks;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder size = new LongAdder();
+
+	public BoundedIdCache(String name, int capacity) {
+		int sets = Integer.highestOneBit(Math.max(1, (capacity + WAYS - 1) / WAYS));
+		if (sets * WAYS < capacity) sets <<= 1;
+
+		this.name = name;
+		this.setMask = sets - 1;
+		this.keyCodes = new long[sets * WAYS];
+		this.keyBytes = new byte[sets * WAYS][];
+		this.values = new long[sets * WAYS];
+		this.referenced = new boolean[sets * WAYS];
+		this.clockHands = new int[sets];
+
+		this.locks = new Object[Math.min(sets, MAX_LOCK_STRIPES)];
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	/**
+	 * Returns the cached value, or {@link #NO_VALUE}.
+	 */
+	public long get(String key) {
+		long value = peek(key);
+		if (value == NO_VALUE) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return value;
+	}
+
+	/**
+	 * Like {@link #get(String)}, without counting a hit or miss: for a repeated lookup of a key that
+	 * {@link #get(String)} has already counted.
+	 */
+	public long peek(String key) {
+		byte[] bytes = isNumeric(key) ? null : key.getBytes(StandardCharsets.UTF_8);
+		long code = bytes == null ? numericCode(key) : hashOf(bytes);
+		int set = setOf(code);
+		synchronized (lockOf(set)) {
+			int slot = find(set, code, bytes);
+			if (slot >= 0) {
+				referenced[slot] = true;
+				return values[slot];
+			}
+		}
+		return NO_VALUE;
+	}
+
+	public void put(String key, long value) {
+		byte[] bytes = isNumeric(key) ? null : key.getBytes(StandardCharsets.UTF_8);
+		long code = bytes == null ? numericCode(key) : hashOf(bytes);
+		int set = setOf(code);
+		synchronized (lockOf(set)) {
+			int slot = find(set, code, bytes);
+			if (slot < 0) {
+				slot = victim(set);
+				if (keyCodes[slot] == 0) {
+					size.increment();
+				} else {
+					evictions.increment();
+				}
+				keyCodes[slot] = code;
+				keyBytes[slot] = bytes;
+			}
+			values[slot] = value;
+			referenced[slot] = true;
+		}
+	}
+
+	public void clear() {
+		for (int stripe = 0; stripe < locks.length; stripe++) {
+			synchronized (locks[stripe]) {
+				for (int set = stripe; set <= setMask; set += locks.length) {
+					int base = set * WAYS;
+					Arrays.fill(keyCodes, base, base + WAYS, 0L);
+					Arrays.fill(keyBytes, base, base + WAYS, null);
+					Arrays.fill(referenced, base, base + WAYS, false);
+				}
+			}
+		}
+		size.reset();
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public int capacity() {
+		return keyCodes.length;
+	}
+
+	public long size() {
+		return size.sum();
+	}
+
+	public long hits() {
+		return hits.sum();
+	}
+
+	public long misses() {
+		return misses.sum();
+	}
+
+	public long evictions() {
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return name + "{size=" + size() + ", capacity=" + capacity() + ", hits=" + hits() +
+				", misses=" + misses() + ", evictions=" + evictions() + "}";
+	}
+
+	private int find(int set, long code, byte[] bytes) {
+		int base = set * WAYS;
+		for (int slot = base; slot < base + WAYS; slot++) {
+			if (keyCodes[slot] == code && (bytes == null || Arrays.equals(keyBytes[slot], bytes))) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/** Free slot of the set if any, otherwise the first slot not referenced since the hand last passed it. */
+	private int victim(int set) {
+		int base = set * WAYS;
+		for (int slot = base; slot < base + WAYS; slot++) {
+			if (keyCodes[slot] == 0) return slot;
+		}
+		int hand = clockHands[set];
+		while (referenced[base + hand]) {
+			referenced[base + hand] = false;
+			hand = (hand + 1) % WAYS;
+		}
+		clockHands[set] = (hand + 1) % WAYS;
+		return base + hand;
+	}
+
+	private int setOf(long code) {
+		// murmur3 fmix64: spread sequential numbers over all sets
+		long h = code;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) h & setMask;
+	}
+
+	private Object lockOf(int set) {
+		return locks[set % locks.length];
+	}
+
+	private static boolean isNumeric(String key) {
+		int len = key.length();
+		if (len == 0 || len > MAX_NUMERIC_DIGITS) return false;
+		for (int i = 0; i < len; i++) {
+			char c = key.charAt(i);
+			if (c < '0' || c > '9') return false;
+		}
+		return true;
+	}
+
+	/** Digits and length (to keep leading zeros apart) packed into bits 0..61; never 0, sign bit clear. */
+	private static long numericCode(String key) {
+		long value = 0;
+		for (int i = 0; i < key.length(); i++) {
+			value = value * 10 + (key.charAt(i) - '0');
+		}
+		return ((long) key.length() << NUMERIC_LENGTH_SHIFT) | value;
+	}
+
+	/** 64-bit FNV-1a with the sign bit set, so it never collides with a numeric code or 0. */
+	private static long hashOf(byte[] bytes) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : bytes) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		return h | Long.MIN_VALUE;
+	}
+}
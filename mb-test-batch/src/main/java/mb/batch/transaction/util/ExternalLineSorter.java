@@ -0,0 +1,201 @@
+package mb.batch.transaction.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Sorts text lines by a binary key with bounded memory: lines are collected until their estimated
+ * heap size reaches {@code runBytes}, sorted, and spilled to a temporary run file; the runs are
+ * then merged, at most {@link #MAX_FAN_IN} at a time. Input that fits into one run is never spilled.
+ * <p>
+ * Keys compare as unsigned bytes. The sort is stable: lines with equal keys keep their input order.
+ */
+public final class ExternalLineSorter {
+
+	/** Open run files per merge pass. */
+	public static final int MAX_FAN_IN = 64;
+
+	/** Rough heap cost of one buffered line besides its characters and key. */
+	private static final int LINE_OVERHEAD_BYTES = 64;
+
+	private final Function<String, byte[]> keyOf;
+	private final long runBytes;
+	private final Path tempDir;
+
+	private int runs;
+	private long spillBytes;
+
+	public record Result(long lines, int runs, long spillBytes, long nanos) {
+	}
+
+	public ExternalLineSorter(Function<String, byte[]> keyOf, long runBytes, Path tempDir) {
+		this.keyOf = keyOf;
+		this.runBytes = runBytes;
+		this.tempDir = tempDir;
+	}
+
+	/**
+	 * Writes the lines of {@code in} to {@code out} in key order, each followed by '\n'.
+	 */
+	public Result sort(BufferedReader in, Writer out) throws IOException {
+		long start = System.nanoTime();
+		runs = 0;
+		spillBytes = 0;
+
+		List<Path> spilled = new ArrayList<>();
+		List<Entry> run = new ArrayList<>();
+		long lines = 0;
+		try {
+			long buffered = 0;
+			String line;
+			while ((line = in.readLine()) != null) {
+				Entry entry = new Entry(keyOf.apply(line), line);
+				run.add(entry);
+				lines++;
+				buffered += line.length() + entry.key.length + LINE_OVERHEAD_BYTES;
+				if (buffered >= runBytes) {
+					spilled.add(spill(run));
+					run.clear();
+					buffered = 0;
+				}
+			}
+
+			run.sort(Entry::compareTo);
+			if (spilled.isEmpty()) {
+				runs = 1;
+				for (Entry entry : run) {
+					out.write(entry.line);
+					out.write('\n');
+				}
+			} else {
+				if (!run.isEmpty()) {
+					spilled.add(write(run));
+				}
+				run = null;
+				while (spilled.size() > MAX_FAN_IN) {
+					List<Path> next = new ArrayList<>();
+					for (int from = 0; from < spilled.size(); from += MAX_FAN_IN) {
+						List<Path> group = spilled.subList(from, Math.min(from + MAX_FAN_IN, spilled.size()));
+						Path merged = newRunFile();
+						try (BufferedWriter writer = Files.newBufferedWriter(merged, StandardCharsets.UTF_8)) {
+							merge(group, writer);
+						}
+						spillBytes += Files.size(merged);
+						deleteAll(group);
+						next.add(merged);
+					}
+					spilled = next;
+				}
+				merge(spilled, out);
+			}
+		} finally {
+			deleteAll(spilled);
+		}
+		return new Result(lines, runs, spillBytes, System.nanoTime() - start);
+	}
+
+	private Path spill(List<Entry> run) throws IOException {
+		run.sort(Entry::compareTo);
+		return write(run);
+	}
+
+	private Path write(List<Entry> sortedRun) throws IOException {
+		Path file = newRunFile();
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (Entry entry : sortedRun) {
+				writer.write(entry.line);
+				writer.write('\n');
+			}
+		}
+		runs++;
+		spillBytes += Files.size(file);
+		return file;
+	}
+
+	/**
+	 * K-way merge; ties go to the earlier run, which keeps the sort stable.
+	 */
+	private void merge(List<Path> files, Writer out) throws IOException {
+		PriorityQueue<Cursor> queue = new PriorityQueue<>();
+		List<BufferedReader> readers = new ArrayList<>();
+		try {
+			for (int i = 0; i < files.size(); i++) {
+				BufferedReader reader = Files.newBufferedReader(files.get(i), StandardCharsets.UTF_8);
+				readers.add(reader);
+				Cursor cursor = new Cursor(reader, i);
+				if (cursor.advance()) {
+					queue.add(cursor);
+				}
+			}
+			while (!queue.isEmpty()) {
+				Cursor cursor = queue.poll();
+				out.write(cursor.line);
+				out.write('\n');
+				if (cursor.advance()) {
+					queue.add(cursor);
+				}
+			}
+		} finally {
+			for (BufferedReader reader : readers) {
+				reader.close();
+			}
+		}
+	}
+
+	private Path newRunFile() throws IOException {
+		return Files.createTempFile(tempDir, "transactions-sort-", ".run");
+	}
+
+	private static void deleteAll(List<Path> files) {
+		for (Path file : files) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot delete sort run " + file, e);
+			}
+		}
+	}
+
+	private record Entry(byte[] key, String line) implements Comparable<Entry> {
+		@Override
+		public int compareTo(Entry other) {
+			return Arrays.compareUnsigned(key, other.key);
+		}
+	}
+
+	private final class Cursor implements Comparable<Cursor> {
+
+		private final BufferedReader reader;
+		private final int run;
+		private String line;
+		private byte[] key;
+
+		private Cursor(BufferedReader reader, int run) {
+			this.reader = reader;
+			this.run = run;
+		}
+
+		private boolean advance() throws IOException {
+			line = reader.readLine();
+			key = line == null ? null : keyOf.apply(line);
+			return line != null;
+		}
+
+		@Override
+		public int compareTo(Cursor other) {
+			int c = Arrays.compareUnsigned(key, other.key);
+			return c != 0 ? c : Integer.compare(run, other.run);
+		}
+	}
+}
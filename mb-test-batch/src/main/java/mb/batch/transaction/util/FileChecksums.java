@@ -0,0 +1,35 @@
+package mb.batch.transaction.util;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+public final class FileChecksums {
+
+	private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+	private FileChecksums() {
+	}
+
+	/**
+	 * CRC32C of the first {@code length} bytes of the file.
+	 */
+	public static long crc32c(Path path, long length) throws IOException {
+		return prefix(path, length).getValue();
+	}
+
+	/**
+	 * Running CRC32C of the first {@code length} bytes, to be continued with the bytes after them.
+	 */
+	public static CRC32C prefix(Path path, long length) throws IOException {
+		CRC32C crc = new CRC32C();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			for (long pos = 0; pos < length; pos += WINDOW_SIZE) {
+				crc.update(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW_SIZE, length - pos)));
+			}
+		}
+		return crc;
+	}
+}
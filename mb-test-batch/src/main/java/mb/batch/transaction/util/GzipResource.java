@@ -0,0 +1,78 @@
+package mb.batch.transaction.util;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decompresses a gzip resource while it is read. Not a file resource on purpose: offsets into the
+ * compressed bytes mean nothing, so byte-range readers, partitioning and fingerprints don't apply.
+ */
+public class GzipResource extends AbstractResource {
+
+	/** Inflater input buffer; reads of the compressed file happen in blocks of this size. */
+	public static final int BUFFER_SIZE = 1024 * 1024;
+
+	private final Resource compressed;
+
+	public GzipResource(Resource compressed) {
+		this.compressed = compressed;
+	}
+
+	public static boolean isGzip(Resource resource) {
+		String name = resource.getFilename();
+		return name != null && name.toLowerCase(Locale.ROOT).endsWith(".gz");
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		InputStream in = compressed.getInputStream();
+		try {
+			return new GZIPInputStream(in, BUFFER_SIZE);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean exists() {
+		return compressed.exists();
+	}
+
+	@Override
+	public boolean isReadable() {
+		return compressed.isReadable();
+	}
+
+	@Override
+	public long lastModified() throws IOException {
+		return compressed.lastModified();
+	}
+
+	@Override
+	public String getFilename() {
+		String name = compressed.getFilename();
+		return name == null ? null : name.substring(0, name.length() - ".gz".length());
+	}
+
+	@Override
+	public String getDescription() {
+		return "gzip [" + compressed.getDescription() + "]";
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return this == other || (other instanceof GzipResource that && compressed.equals(that.compressed));
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(GzipResource.class, compressed);
+	}
+}
@@ -0,0 +1,67 @@
+package mb.batch.transaction.util;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.batch.ImportFileStateRepository;
+import mb.batch.transaction.batch.IncrementalImportDecider;
+import mb.batch.transaction.batch.MappedTransactionFileReader;
+import mb.batch.transaction.dto.ImportFileState;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.listener.StepExecutionListener;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records the IMPORT_FILE_STATE fingerprint after the import step, using the reader's last committed
+ * offset and line number. Also runs for failed steps, so the next incremental run continues after the
+ * last commit.
+ */
+@Slf4j
+@Component
+public class ImportFileStateListener implements StepExecutionListener {
+
+	private static final String READER_OFFSET_KEY = "transactionFileReader." + MappedTransactionFileReader.OFFSET_KEY;
+	private static final String READER_LINE_KEY = "transactionFileReader." + MappedTransactionFileReader.LINE_KEY;
+
+	private final ImportFileStateRepository stateRepository;
+
+	public ImportFileStateListener(ImportFileStateRepository stateRepository) {
+		this.stateRepository = stateRepository;
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		ExecutionContext jobCtx = stepExecution.getJobExecution().getExecutionContext();
+		ExecutionContext stepCtx = stepExecution.getExecutionContext();
+		// set by IncrementalImportDecider only in incremental mode and for plain files
+		if (!jobCtx.containsKey(IncrementalImportDecider.FILE_KEY) || !stepCtx.containsKey(READER_OFFSET_KEY)) {
+			return null;
+		}
+
+		Path path = Path.of(jobCtx.getString(IncrementalImportDecider.FILE_KEY));
+		long committedOffset = stepCtx.getLong(READER_OFFSET_KEY);
+		long committedLine = stepCtx.getInt(READER_LINE_KEY, 0);
+		try {
+			ImportFileState state = ImportFileState.builder()
+					.resource(path.toString())
+					.sizeBytes(Files.size(path))
+					.lastModified(Files.getLastModifiedTime(path).toMillis())
+					.prefixCrc32c(FileChecksums.crc32c(path, committedOffset))
+					.committedOffset(committedOffset)
+					.committedLine(committedLine)
+					.build();
+			stateRepository.save(state);
+
+			log.info("[INCREMENTAL] recorded file={} status={} size={} committedOffset={} committedLine={}",
+					path, stepExecution.getStatus(), state.getSizeBytes(), committedOffset, committedLine);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot fingerprint " + path, e);
+		}
+		return null;
+	}
+}
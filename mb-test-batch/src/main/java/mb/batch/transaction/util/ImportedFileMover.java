@@ -0,0 +1,90 @@
+package mb.batch.transaction.util;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.batch.TransactionFilePartitioner;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Moves the file of a multi-file worker step out of the incoming directory once the worker is done:
+ * COMPLETED to {@code done-dir}, FAILED to {@code failed-dir} (default: {@code done/} and
+ * {@code failed/} next to the incoming directory, out of reach of the pattern). A failed file's new
+ * location is written back into the worker's execution context, so restarting the job imports it
+ * from there, resuming after its last committed chunk. A stopped worker leaves its file in place.
+ * <p>
+ * Runs after the worker step has finished and closed its reader (see
+ * {@link mb.batch.transaction.batch.PerExecutionStep}). A file that cannot be moved fails the worker:
+ * left in the incoming directory it would be imported again by the next run.
+ */
+@Slf4j
+@Component
+public class ImportedFileMover {
+
+	private final JobRepository jobRepository;
+	private final String doneDir;
+	private final String failedDir;
+
+	public ImportedFileMover(
+			JobRepository jobRepository,
+			@Value("${app.batch.import-transactions.done-dir:}") String doneDir,
+			@Value("${app.batch.import-transactions.failed-dir:}") String failedDir
+	) {
+		this.jobRepository = jobRepository;
+		this.doneDir = doneDir;
+		this.failedDir = failedDir;
+	}
+
+	public void move(StepExecution stepExecution) {
+		ExecutionContext ctx = stepExecution.getExecutionContext();
+		BatchStatus status = stepExecution.getStatus();
+		if (!ctx.containsKey(TransactionFilePartitioner.INPUT_FILE_KEY)
+				|| (status != BatchStatus.COMPLETED && status != BatchStatus.FAILED)) {
+			return;
+		}
+
+		Path file = Path.of(ctx.getString(TransactionFilePartitioner.INPUT_FILE_KEY));
+		boolean completed = status == BatchStatus.COMPLETED;
+		String configured = completed ? doneDir : failedDir;
+		Path dir = configured.isBlank()
+				? file.toAbsolutePath().getParent().resolveSibling(completed ? "done" : "failed")
+				: Path.of(configured);
+		if (file.toAbsolutePath().getParent().equals(dir.toAbsolutePath())) {
+			// restarted from failed/ and failed again
+			return;
+		}
+		try {
+			Files.createDirectories(dir);
+			Path target = dir.resolve(file.getFileName());
+			if (Files.exists(target)) {
+				target = dir.resolve(file.getFileName() + "." + stepExecution.getId());
+			}
+			try {
+				Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				// target directory on another file system
+				Files.move(file, target);
+			}
+			ctx.putString(TransactionFilePartitioner.INPUT_FILE_KEY, target.toString());
+			jobRepository.updateExecutionContext(stepExecution);
+			log.info("[FILE-MOVE] step={} status={} file={} movedTo={}", stepExecution.getStepName(), status, file, target);
+		} catch (IOException e) {
+			log.error("[FILE-MOVE] step={} cannot move {} to {}: {}", stepExecution.getStepName(), file, dir, e.toString());
+			stepExecution.setStatus(BatchStatus.FAILED);
+			stepExecution.setExitStatus(stepExecution.getExitStatus().and(ExitStatus.FAILED)
+					.addExitDescription("Cannot move " + file + " to " + dir + ": " + e));
+			stepExecution.addFailureException(e);
+			jobRepository.update(stepExecution);
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package mb.batch.transaction.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.infrastructure.item.file.BufferedReaderFactory;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * Logs the first {@code previewLines} lines as {@code [READER-PREVIEW]} while the reader consumes
+ * them, for inputs that are too costly to open twice (e.g. {@link GzipResource}).
+ */
+@Slf4j
+public class PreviewingBufferedReaderFactory implements BufferedReaderFactory {
+
+	private final int bufferSize;
+	private final int previewLines;
+
+	public PreviewingBufferedReaderFactory(int bufferSize, int previewLines) {
+		this.bufferSize = bufferSize;
+		this.previewLines = previewLines;
+	}
+
+	@Override
+	public BufferedReader create(Resource resource, String encoding) throws IOException {
+		return new BufferedReader(new InputStreamReader(resource.getInputStream(), encoding), bufferSize) {
+			private int lines;
+
+			@Override
+			public String readLine() throws IOException {
+				String line = super.readLine();
+				if (line != null && lines < previewLines) {
+					log.info("[READER-PREVIEW] {}: [{}]", ++lines, line);
+				}
+				return line;
+			}
+		};
+	}
+}
@@ -0,0 +1,37 @@
+package mb.batch.transaction.util;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.batch.TransactionSortTasklet;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.listener.JobExecutionListener;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Deletes the sorted copy of the input once the job has completed. A failed or stopped job keeps it:
+ * a restart resumes reading the copy at the committed offset and does not sort again.
+ */
+@Slf4j
+@Component
+public class SortedInputCleanupListener implements JobExecutionListener {
+
+	@Override
+	public void afterJob(JobExecution jobExecution) {
+		ExecutionContext ctx = jobExecution.getExecutionContext();
+		if (jobExecution.getStatus() != BatchStatus.COMPLETED || !ctx.containsKey(TransactionSortTasklet.SORTED_FILE_KEY)) {
+			return;
+		}
+		Path sorted = Path.of(ctx.getString(TransactionSortTasklet.SORTED_FILE_KEY));
+		try {
+			Files.deleteIfExists(sorted);
+			log.info("[SORT] deleted {}", sorted);
+		} catch (IOException e) {
+			log.warn("[SORT] cannot delete {}: {}", sorted, e.toString());
+		}
+	}
+}
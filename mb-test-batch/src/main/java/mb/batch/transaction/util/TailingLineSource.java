@@ -0,0 +1,200 @@
+package mb.batch.transaction.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Follows a growing file, or a named pipe, on a background thread and queues its complete lines
+ * (a line without its '\n' yet is held back until the rest is written). At the end of a regular
+ * file it polls every {@code pollMillis}; a pipe is opened again when its writer closes it.
+ * <p>
+ * Every line carries the byte offset after it and, for regular files, the CRC32C of the file up to
+ * that offset, i.e. exactly what IMPORT_FILE_STATE stores once the line is committed. A pipe
+ * cannot be read again, so its offsets only count the bytes consumed and it has no checksum.
+ * <p>
+ * The queue is bounded: a slow consumer stops the reading thread instead of buffering the backlog.
+ */
+@Slf4j
+public final class TailingLineSource implements AutoCloseable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * @param readNanos {@link System#nanoTime()} when the line was read
+	 */
+	public record Line(String text, long endOffset, long crc32c, long readNanos) {
+	}
+
+	private final Path path;
+	private final boolean pipe;
+	private final long startOffset;
+	private final CRC32C crc;
+	private final long pollMillis;
+	private final BlockingQueue<Line> queue;
+	private final Thread thread;
+
+	private volatile boolean closed;
+	private volatile Throwable failure;
+	private volatile long committedOffset;
+	// read time of the oldest line read but not committed yet, 0 if there is none
+	private long uncommittedSinceNanos;
+
+	/**
+	 * @param prefixCrc running CRC32C of the bytes before {@code startOffset} (null: none), ignored for pipes
+	 */
+	public TailingLineSource(Path path, long startOffset, CRC32C prefixCrc, int capacity, long pollMillis) {
+		this.path = path;
+		this.pipe = Files.exists(path) && !Files.isRegularFile(path);
+		this.startOffset = pipe ? 0 : startOffset;
+		this.crc = pipe ? null : prefixCrc == null ? new CRC32C() : prefixCrc;
+		this.pollMillis = pollMillis;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.committedOffset = this.startOffset;
+		this.thread = Thread.ofPlatform().daemon().name("import-tail").unstarted(this::run);
+	}
+
+	public void start() {
+		log.info("[STREAM] following {} {} from offset={}", pipe ? "pipe" : "file", path, startOffset);
+		thread.start();
+	}
+
+	public boolean isPipe() {
+		return pipe;
+	}
+
+	/**
+	 * Next line, waiting at most {@code timeout}; null if none arrived in time.
+	 *
+	 * @throws IllegalStateException if the reading thread failed and every line read before has been taken
+	 */
+	public Line poll(long timeout, TimeUnit unit) throws InterruptedException {
+		Line line = queue.poll(timeout, unit);
+		if (line == null && failure != null) {
+			throw new IllegalStateException("Cannot follow " + path, failure);
+		}
+		return line;
+	}
+
+	/**
+	 * Called once the lines up to {@code offset} are committed.
+	 */
+	public void committed(long offset) {
+		committedOffset = offset;
+		synchronized (this) {
+			Line head = queue.peek();
+			uncommittedSinceNanos = head == null ? 0 : head.readNanos();
+		}
+	}
+
+	/**
+	 * Bytes of the file after the committed offset; 0 for a pipe, whose backlog is unknown.
+	 */
+	public double lagBytes() {
+		if (pipe) return 0;
+		try {
+			return Math.max(0, Files.size(path) - committedOffset);
+		} catch (IOException e) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Age of the oldest line that was read but is not committed yet.
+	 */
+	public synchronized double lagSeconds() {
+		return uncommittedSinceNanos == 0 ? 0 : (System.nanoTime() - uncommittedSinceNanos) / 1e9;
+	}
+
+	public int pendingLines() {
+		return queue.size();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		thread.interrupt();
+	}
+
+	private void run() {
+		try {
+			follow();
+		} catch (InterruptedException | ClosedByInterruptException e) {
+			// closed
+		} catch (Throwable t) {
+			if (!closed) {
+				log.error("[STREAM] stopped following {}: {}", path, t.toString());
+				failure = t;
+			}
+		}
+	}
+
+	private void follow() throws IOException, InterruptedException {
+		long position = startOffset;
+		byte[] buf = new byte[BUFFER_SIZE];
+		ByteArrayOutputStream partial = new ByteArrayOutputStream();
+		while (!closed) {
+			FileChannel channel;
+			try {
+				// blocks until a pipe has a writer
+				channel = FileChannel.open(path, StandardOpenOption.READ);
+			} catch (NoSuchFileException e) {
+				Thread.sleep(pollMillis);
+				continue;
+			}
+			try (channel) {
+				if (!pipe) {
+					channel.position(position);
+				}
+				while (!closed) {
+					int n = channel.read(ByteBuffer.wrap(buf));
+					if (n < 0 && pipe) {
+						break;
+					}
+					if (n <= 0) {
+						if (!pipe && channel.size() < position) {
+							throw new IOException(path + " was truncated below offset " + position);
+						}
+						Thread.sleep(pollMillis);
+						continue;
+					}
+					int lineStart = 0;
+					for (int i = 0; i < n; i++) {
+						if (buf[i] != '\n') continue;
+						partial.write(buf, lineStart, i + 1 - lineStart);
+						lineStart = i + 1;
+						byte[] bytes = partial.toByteArray();
+						partial.reset();
+
+						position += bytes.length;
+						if (crc != null) {
+							crc.update(bytes);
+						}
+						int length = bytes.length - 1;
+						if (length > 0 && bytes[length - 1] == '\r') length--;
+						Line line = new Line(new String(bytes, 0, length, StandardCharsets.UTF_8), position,
+								crc == null ? 0 : crc.getValue(), System.nanoTime());
+						queue.put(line);
+						synchronized (this) {
+							if (uncommittedSinceNanos == 0) uncommittedSinceNanos = line.readNanos();
+						}
+					}
+					partial.write(buf, lineStart, n - lineStart);
+				}
+			}
+		}
+	}
+}
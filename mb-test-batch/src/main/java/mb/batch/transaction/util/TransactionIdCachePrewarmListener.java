@@ -0,0 +1,63 @@
+package mb.batch.transaction.util;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.batch.TransactionKeyResolver;
+import org.springframework.batch.core.listener.StepExecutionListener;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Opt-in ({@code app.batch.import-transactions.prewarm-cache}): before the import step reads anything,
+ * streams all USER_PROFILE and ACCOUNT ids into the resolver's caches, so only keys that are really
+ * new cost a MERGE. Existing rows found this way are not merged again during the run.
+ */
+@Slf4j
+@Component
+public class TransactionIdCachePrewarmListener implements StepExecutionListener {
+
+	private final TransactionKeyResolver keyResolver;
+	private final JdbcTemplate jdbc;
+	private final boolean enabled;
+
+	public TransactionIdCachePrewarmListener(
+			TransactionKeyResolver keyResolver,
+			DataSource dataSource,
+			@Value("${app.batch.import-transactions.prewarm-cache:false}") boolean enabled,
+			@Value("${app.batch.import-transactions.prewarm-fetch-size:10000}") int fetchSize
+	) {
+		this.keyResolver = keyResolver;
+		this.enabled = enabled;
+		// own template: the fetch size must not leak into the chunk queries
+		this.jdbc = new JdbcTemplate(dataSource);
+		this.jdbc.setFetchSize(fetchSize);
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		if (!enabled) return;
+
+		long start = System.nanoTime();
+		long userProfiles = load("SELECT CUSTOMER_ID, ID FROM USER_PROFILE", keyResolver.getUserProfileIdCache());
+		long accounts = load("SELECT ACCOUNT_NUMBER, ID FROM ACCOUNT", keyResolver.getAccountIdCache());
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+		log.info("[PREWARM] step={} userProfiles={} accounts={} elapsedMs={}",
+				stepExecution.getStepName(), userProfiles, accounts, elapsedMs);
+	}
+
+	private long load(String sql, BoundedIdCache cache) {
+		long[] rows = {0};
+		jdbc.query(sql, rs -> {
+			cache.put(rs.getString(1), rs.getLong(2));
+			rows[0]++;
+		});
+		if (rows[0] > cache.capacity()) {
+			log.warn("[PREWARM] {} rows do not fit into {}; raise app.batch.import-transactions.id-cache-size", rows[0], cache);
+		}
+		return rows[0];
+	}
+}
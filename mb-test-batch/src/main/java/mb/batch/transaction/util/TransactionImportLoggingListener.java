@@ -1,33 +1,52 @@
 package mb.batch.transaction.util;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import mb.batch.transaction.batch.AdaptiveChunkSizePolicy;
+import mb.batch.transaction.batch.TransactionFileRangePartitioner;
+import mb.batch.transaction.batch.TransactionKeyResolver;
 import mb.batch.transaction.dto.TransactionFileRow;
 import mb.batch.transaction.dto.TransactionInsertRow;
 
 import org.springframework.batch.core.ExitStatus;
 
+import org.springframework.batch.core.listener.ChunkListener;
 import org.springframework.batch.core.listener.ItemProcessListener;
 import org.springframework.batch.core.listener.ItemReadListener;
 import org.springframework.batch.core.listener.ItemWriteListener;
 import org.springframework.batch.core.listener.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.core.step.StepExecution;
 import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
 import org.springframework.batch.infrastructure.item.file.FlatFileParseException;
 import org.springframework.stereotype.Component;
 
+import java.lang.management.ManagementFactory;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class TransactionImportLoggingListener implements
 		ItemReadListener<TransactionFileRow>,
 		ItemProcessListener<TransactionFileRow, TransactionInsertRow>,
 		ItemWriteListener<TransactionInsertRow>,
+		ChunkListener<TransactionFileRow, TransactionInsertRow>,
 		StepExecutionListener {
 
+	// cache statistics are cumulative for the JVM, not per step
+	private final TransactionKeyResolver keyResolver;
+	private final TransactionImportMetrics metrics;
+
+	// once per JVM: compares one-shot launches (plain jar vs AOT + CDS, see README)
+	private final AtomicBoolean firstChunkWritten = new AtomicBoolean();
+
 	// ===== STEP =====
 	@Override
 	public void beforeStep(StepExecution stepExecution) {
+		metrics.stepStarted(stepExecution);
 		log.info("[STEP-START] name={} jobExecutionId={} params={}",
 				stepExecution.getStepName(),
 				stepExecution.getJobExecutionId(),
@@ -36,7 +55,21 @@ public class TransactionImportLoggingListener implements
 
 	@Override
 	public ExitStatus afterStep(StepExecution stepExecution) {
-		log.info("[STEP-END] name={} status={} read={} filter={} written={} readSkips={} processSkips={} writeSkips={} commits={}",
+		double rowsPerSecond = metrics.stepEnded(stepExecution);
+		ExecutionContext ctx = stepExecution.getExecutionContext();
+		// file partitions (multi-file import) have an index but no byte range
+		if (ctx.containsKey(TransactionFileRangePartitioner.START_OFFSET_KEY)) {
+			log.info("[PARTITION-END] name={} partition={} startOffset={} endOffset={} read={} written={} skips={}",
+					stepExecution.getStepName(),
+					ctx.getInt(TransactionFileRangePartitioner.PARTITION_INDEX_KEY),
+					ctx.getLong(TransactionFileRangePartitioner.START_OFFSET_KEY),
+					ctx.getLong(TransactionFileRangePartitioner.END_OFFSET_KEY),
+					stepExecution.getReadCount(),
+					stepExecution.getWriteCount(),
+					stepExecution.getSkipCount());
+		}
+
+		log.info("[STEP-END] name={} status={} read={} filter={} written={} readSkips={} processSkips={} writeSkips={} commits={} rowsPerSec={} {} {}",
 				stepExecution.getStepName(),
 				stepExecution.getStatus(),
 				stepExecution.getReadCount(),
@@ -45,14 +78,36 @@ public class TransactionImportLoggingListener implements
 				stepExecution.getReadSkipCount(),
 				stepExecution.getProcessSkipCount(),
 				stepExecution.getWriteSkipCount(),
-				stepExecution.getCommitCount());
+				stepExecution.getCommitCount(),
+				String.format("%.1f", rowsPerSecond),
+				keyResolver.getUserProfileIdCache(),
+				keyResolver.getAccountIdCache());
 
 		return stepExecution.getExitStatus();
 	}
 
+	// ===== CHUNK =====
+	// only called by steps with an AdaptiveChunkSizePolicy (the older TaskletStep implementation)
+	@Override
+	@SuppressWarnings("removal")
+	public void beforeChunk(ChunkContext context) {
+		Object size = context.getAttribute(AdaptiveChunkSizePolicy.CHUNK_SIZE_KEY);
+		if (size != null) {
+			log.info("[CHUNK] step={} size={}", context.getStepContext().getStepName(), size);
+		}
+	}
+
 	// ===== READ =====
+	@Override
+	public void beforeRead() {
+		TransactionImportMetrics.StepMeters meters = metrics.current();
+		if (meters != null) meters.readStarted();
+	}
+
 	@Override
 	public void afterRead(TransactionFileRow item) {
+		TransactionImportMetrics.StepMeters meters = metrics.current();
+		if (meters != null) meters.readFinished(true);
 		log.debug("[READ] account={} customerId={} trxDate={} trxTime={}",
 				safe(item.getAccountNumber()),
 				safe(item.getCustomerId()),
@@ -62,7 +117,11 @@ public class TransactionImportLoggingListener implements
 
 	@Override
 	public void onReadError(Exception ex) {
-		if (ex instanceof FlatFileParseException fpe) {
+		TransactionImportMetrics.StepMeters meters = metrics.current();
+		if (meters != null) meters.readFinished(false);
+		// fault-tolerant steps report read errors wrapped in a RetryException
+		Throwable cause = ex.getCause() instanceof FlatFileParseException ? ex.getCause() : ex;
+		if (cause instanceof FlatFileParseException fpe) {
 			log.error("[READ-ERROR] line={} input={} msg={}",
 					fpe.getLineNumber(),
 					fpe.getInput(),
@@ -105,16 +164,26 @@ public class TransactionImportLoggingListener implements
 	// ===== WRITE =====
 	@Override
 	public void beforeWrite(Chunk<? extends TransactionInsertRow> items) {
+		TransactionImportMetrics.StepMeters meters = metrics.current();
+		if (meters != null) meters.writeStarted();
 		log.info("[WRITE] start batchSize={}", items == null ? 0 : items.size());
 	}
 
 	@Override
 	public void afterWrite(Chunk<? extends TransactionInsertRow> items) {
+		TransactionImportMetrics.StepMeters meters = metrics.current();
+		if (meters != null) meters.writeFinished(items == null ? 0 : items.size());
 		log.info("[WRITE] ok batchSize={}", items == null ? 0 : items.size());
+		if (firstChunkWritten.compareAndSet(false, true)) {
+			log.info("[STARTUP] timeToFirstChunkMs={} (JVM start to first written chunk)",
+					ManagementFactory.getRuntimeMXBean().getUptime());
+		}
 	}
 
 	@Override
 	public void onWriteError(Exception ex, Chunk<? extends TransactionInsertRow> items) {
+		TransactionImportMetrics.StepMeters meters = metrics.current();
+		if (meters != null) meters.writeFailed();
 		log.error("[WRITE-ERROR] batchSize={} msg={}",
 				items == null ? 0 : items.size(),
 				ex.getMessage(), ex);
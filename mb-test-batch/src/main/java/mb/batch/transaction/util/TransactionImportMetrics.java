@@ -0,0 +1,242 @@
+package mb.batch.transaction.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import mb.batch.transaction.batch.TransactionFileRangePartitioner;
+import mb.batch.transaction.dto.RejectedRecord;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Micrometer meters of the import steps (actuator: /actuator/metrics/batch.import.*), tagged with
+ * job, step and partition ("none" outside the partitioned job):
+ * <ul>
+ *   <li>{@code batch.import.read}: read + parse time per item</li>
+ *   <li>{@code batch.import.lookup}: account/user profile id resolution per chunk, {@code source=cache}
+ *       when every key was cached, {@code db} when new keys were merged</li>
+ *   <li>{@code batch.import.write}: writer call latency, {@code outcome=success|error}</li>
+ *   <li>{@code batch.import.chunk.commit}: commit of a chunk transaction that wrote items</li>
+ *   <li>{@code batch.import.rows.written}, {@code batch.import.rows.filtered}</li>
+ *   <li>{@code batch.import.rows.per.second}: written rows per second of a finished step</li>
+ *   <li>{@code batch.import.skips}: by {@code phase} and {@code exception}</li>
+ *   <li>{@code batch.import.rejects}: quarantined lines by {@code reason}</li>
+ *   <li>{@code batch.import.sort}, {@code batch.import.sort.spill.bytes}: input sort time and bytes
+ *       written to its run files</li>
+ *   <li>{@code batch.import.stream.lag.bytes}, {@code batch.import.stream.lag.seconds},
+ *       {@code batch.import.stream.pending.lines}: backlog of the streaming import, see {@link TailingLineSource}</li>
+ * </ul>
+ * The meters of a step execution are registered once in {@link #stepStarted} and found again through
+ * the step context of the calling thread, so a per-item callback costs one map lookup. Callbacks on
+ * threads without a step context find none and are not timed.
+ */
+@Component
+public class TransactionImportMetrics {
+
+	private static final String NONE = "none";
+
+	private final MeterRegistry registry;
+	private final Map<Long, StepMeters> steps = new ConcurrentHashMap<>();
+	private final AtomicReference<TailingLineSource> stream = new AtomicReference<>();
+
+	public TransactionImportMetrics(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	public void stepStarted(StepExecution stepExecution) {
+		steps.put(stepExecution.getId(), new StepMeters(registry, tagsOf(stepExecution)));
+	}
+
+	/**
+	 * Records the step totals and drops the step's meter lookup.
+	 *
+	 * @return written rows per second, 0 if nothing was written
+	 */
+	public double stepEnded(StepExecution stepExecution) {
+		StepMeters meters = steps.remove(stepExecution.getId());
+		Tags tags = meters == null ? tagsOf(stepExecution) : meters.tags;
+
+		registry.counter("batch.import.rows.filtered", tags).increment(stepExecution.getFilterCount());
+
+		LocalDateTime startTime = stepExecution.getStartTime();
+		long written = stepExecution.getWriteCount();
+		if (startTime == null || written == 0) return 0;
+		double seconds = Math.max(1, Duration.between(startTime, LocalDateTime.now()).toMillis()) / 1000.0;
+		double rowsPerSecond = written / seconds;
+		DistributionSummary.builder("batch.import.rows.per.second").tags(tags).register(registry).record(rowsPerSecond);
+		return rowsPerSecond;
+	}
+
+	/**
+	 * Meters of the step running on this thread, or null.
+	 */
+	public StepMeters current() {
+		StepContext context = StepSynchronizationManager.getContext();
+		return context == null ? null : steps.get(context.getStepExecution().getId());
+	}
+
+	public void skipped(String phase, Throwable t) {
+		registry.counter("batch.import.skips",
+				currentTags().and("phase", phase, "exception", t == null ? NONE : t.getClass().getSimpleName())).increment();
+	}
+
+	public void rejected(RejectedRecord.Reason reason) {
+		registry.counter("batch.import.rejects", currentTags().and("reason", reason.name())).increment();
+	}
+
+	public void sorted(long nanos, long spillBytes) {
+		Tags tags = currentTags();
+		registry.timer("batch.import.sort", tags).record(nanos, TimeUnit.NANOSECONDS);
+		registry.counter("batch.import.sort.spill.bytes", tags).increment(spillBytes);
+	}
+
+	/**
+	 * Publishes hits, misses, evictions and size of an id cache; the values are read on scrape.
+	 */
+	public void monitor(BoundedIdCache cache) {
+		Tags tags = Tags.of("cache", cache.name());
+		FunctionCounter.builder("batch.import.id.cache.requests", cache, BoundedIdCache::hits)
+				.tags(tags.and("result", "hit")).register(registry);
+		FunctionCounter.builder("batch.import.id.cache.requests", cache, BoundedIdCache::misses)
+				.tags(tags.and("result", "miss")).register(registry);
+		FunctionCounter.builder("batch.import.id.cache.evictions", cache, BoundedIdCache::evictions)
+				.tags(tags).register(registry);
+		Gauge.builder("batch.import.id.cache.size", cache, BoundedIdCache::size)
+				.tags(tags).register(registry);
+	}
+
+	/**
+	 * Publishes the lag of the followed file until {@link #streamEnded}; the values are read on scrape.
+	 */
+	public void streamStarted(TailingLineSource source) {
+		if (stream.getAndSet(source) != null) {
+			return;
+		}
+		Gauge.builder("batch.import.stream.lag.bytes", stream, s -> s.get() == null ? 0 : s.get().lagBytes())
+				.baseUnit("bytes").register(registry);
+		Gauge.builder("batch.import.stream.lag.seconds", stream, s -> s.get() == null ? 0 : s.get().lagSeconds())
+				.baseUnit("seconds").register(registry);
+		Gauge.builder("batch.import.stream.pending.lines", stream, s -> s.get() == null ? 0 : s.get().pendingLines())
+				.register(registry);
+	}
+
+	public void streamEnded(TailingLineSource source) {
+		stream.compareAndSet(source, null);
+	}
+
+	private Tags currentTags() {
+		StepMeters meters = current();
+		return meters == null ? Tags.of("job", NONE, "step", NONE, "partition", NONE) : meters.tags;
+	}
+
+	private static Tags tagsOf(StepExecution stepExecution) {
+		ExecutionContext ctx = stepExecution.getExecutionContext();
+		String partition = ctx.containsKey(TransactionFileRangePartitioner.PARTITION_INDEX_KEY)
+				? String.valueOf(ctx.getInt(TransactionFileRangePartitioner.PARTITION_INDEX_KEY))
+				: NONE;
+		return Tags.of(
+				"job", stepExecution.getJobExecution().getJobInstance().getJobName(),
+				"step", stepExecution.getStepName(),
+				"partition", partition);
+	}
+
+	/**
+	 * Meters of one step execution. Reads and writes of a step happen on its own thread, one at a
+	 * time, so the start times are plain fields.
+	 */
+	public static final class StepMeters {
+
+		private final Tags tags;
+		private final Timer read;
+		private final Timer lookupCache;
+		private final Timer lookupDb;
+		private final Timer writeSuccess;
+		private final Timer writeError;
+		private final Timer commit;
+		private final Counter written;
+
+		private long readStartNanos;
+		private long writeStartNanos;
+
+		private StepMeters(MeterRegistry registry, Tags tags) {
+			this.tags = tags;
+			this.read = registry.timer("batch.import.read", tags);
+			this.lookupCache = registry.timer("batch.import.lookup", tags.and("source", "cache"));
+			this.lookupDb = registry.timer("batch.import.lookup", tags.and("source", "db"));
+			this.writeSuccess = registry.timer("batch.import.write", tags.and("outcome", "success"));
+			this.writeError = registry.timer("batch.import.write", tags.and("outcome", "error"));
+			this.commit = registry.timer("batch.import.chunk.commit", tags);
+			this.written = registry.counter("batch.import.rows.written", tags);
+		}
+
+		public void readStarted() {
+			readStartNanos = System.nanoTime();
+		}
+
+		public void readFinished(boolean success) {
+			if (success && readStartNanos != 0) {
+				read.record(System.nanoTime() - readStartNanos, TimeUnit.NANOSECONDS);
+			}
+			readStartNanos = 0;
+		}
+
+		public void lookedUp(boolean fromDb, long nanos) {
+			(fromDb ? lookupDb : lookupCache).record(nanos, TimeUnit.NANOSECONDS);
+		}
+
+		public void writeStarted() {
+			writeStartNanos = System.nanoTime();
+		}
+
+		/**
+		 * Also times the commit of the surrounding chunk transaction, if there is one.
+		 */
+		public void writeFinished(int items) {
+			writeSuccess.record(System.nanoTime() - writeStartNanos, TimeUnit.NANOSECONDS);
+			written.increment(items);
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new CommitTimer(commit));
+			}
+		}
+
+		public void writeFailed() {
+			writeError.record(System.nanoTime() - writeStartNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private static final class CommitTimer implements TransactionSynchronization {
+
+		private final Timer timer;
+		private long startNanos;
+
+		private CommitTimer(Timer timer) {
+			this.timer = timer;
+		}
+
+		@Override
+		public void beforeCommit(boolean readOnly) {
+			startNanos = System.nanoTime();
+		}
+
+		@Override
+		public void afterCommit() {
+			timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package mb.batch.transaction.util;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import mb.batch.transaction.dto.TransactionFileRow;
 import mb.batch.transaction.dto.TransactionInsertRow;
@@ -9,10 +10,14 @@ import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class TransactionImportSkipListener implements SkipListener<TransactionFileRow, TransactionInsertRow> {
 
+	private final TransactionImportMetrics metrics;
+
 	@Override
 	public void onSkipInRead(Throwable t) {
+		metrics.skipped("read", t);
 		if (t instanceof FlatFileParseException fpe) {
 			log.warn("[SKIP-READ] line={} input={} reason={}",
 					fpe.getLineNumber(), fpe.getInput(), fpe.getMessage(), t);
@@ -23,6 +28,7 @@ public class TransactionImportSkipListener implements SkipListener<TransactionFi
 
 	@Override
 	public void onSkipInProcess(TransactionFileRow item, Throwable t) {
+		metrics.skipped("process", t);
 		log.warn("[SKIP-PROCESS] account={} customerId={} reason={}",
 				item == null ? null : item.getAccountNumber(),
 				item == null ? null : item.getCustomerId(),
@@ -31,6 +37,7 @@ public class TransactionImportSkipListener implements SkipListener<TransactionFi
 
 	@Override
 	public void onSkipInWrite(TransactionInsertRow item, Throwable t) {
+		metrics.skipped("write", t);
 		log.warn("[SKIP-WRITE] accountId={} customerId={} reason={}",
 				item == null ? null : item.getAccountId(),
 				item == null ? null : item.getCustomerId(),
@@ -0,0 +1,29 @@
+-- The mb-test-be tables the import writes to (created there by Hibernate), for an embedded H2:
+-- the "training" profile (CDS training run) and the benchmarks / load harness of mb-test-batch-bench
+CREATE TABLE IF NOT EXISTS USER_PROFILE (
+    ID          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    CUSTOMER_ID VARCHAR(255) NOT NULL UNIQUE,
+    FULL_NAME   VARCHAR(255) NOT NULL,
+    EMAIL       VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS ACCOUNT (
+    ID              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    ACCOUNT_NUMBER  VARCHAR(255) NOT NULL UNIQUE,
+    USER_PROFILE_ID BIGINT       NOT NULL REFERENCES USER_PROFILE (ID)
+);
+
+CREATE TABLE IF NOT EXISTS "TRANSACTION" (
+    ID          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    VERSION     BIGINT,
+    ACCOUNT_ID  BIGINT         NOT NULL REFERENCES ACCOUNT (ID),
+    AMOUNT      NUMERIC(38, 2) NOT NULL,
+    DESCRIPTION VARCHAR(255),
+    TRX_DATE    DATE           NOT NULL,
+    TRX_TIME    TIME           NOT NULL,
+    CUSTOMER_ID VARCHAR(255)   NOT NULL,
+    CREATED_AT  TIMESTAMP      NOT NULL,
+    UPDATED_AT  TIMESTAMP      NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS IDX_TRANSACTION_ACCOUNT_DATE_TIME ON "TRANSACTION" (ACCOUNT_ID, TRX_DATE, TRX_TIME);
@@ -0,0 +1,23 @@
+-- Batch-owned tables (the business tables are created by mb-test-be)
+
+CREATE TABLE IF NOT EXISTS IMPORT_FILE_STATE (
+    RESOURCE         VARCHAR(1024) NOT NULL PRIMARY KEY,
+    SIZE_BYTES       BIGINT        NOT NULL,
+    LAST_MODIFIED    BIGINT        NOT NULL,
+    PREFIX_CRC32C    BIGINT        NOT NULL,
+    COMMITTED_OFFSET BIGINT        NOT NULL,
+    COMMITTED_LINE   BIGINT        DEFAULT 0 NOT NULL,
+    UPDATED_AT       TIMESTAMP     NOT NULL
+);
+-- tables created before COMMITTED_LINE existed
+ALTER TABLE IMPORT_FILE_STATE ADD COLUMN IF NOT EXISTS COMMITTED_LINE BIGINT DEFAULT 0 NOT NULL;
+
+-- Maintained by the import jobs, see DailyAccountSummaryRepository
+CREATE TABLE IF NOT EXISTS DAILY_ACCOUNT_SUMMARY (
+    ACCOUNT_ID        BIGINT         NOT NULL,
+    TRX_DATE          DATE           NOT NULL,
+    TRANSACTION_COUNT BIGINT         NOT NULL,
+    TOTAL_AMOUNT      NUMERIC(38, 2) NOT NULL,
+    UPDATED_AT        TIMESTAMP      NOT NULL,
+    PRIMARY KEY (ACCOUNT_ID, TRX_DATE)
+);
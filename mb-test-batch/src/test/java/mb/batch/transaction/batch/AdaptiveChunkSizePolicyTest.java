@@ -0,0 +1,100 @@
+package mb.batch.transaction.batch;
+
+import mb.batch.transaction.dto.TransactionInsertRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveChunkSizePolicyTest {
+
+	StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+	@Test
+	void fastChunks_doubleTheSize_upToMax() throws Exception {
+		AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(100, 10, 300, 60_000);
+		policy.beforeStep(stepExecution);
+
+		assertThat(chunk(policy, 100, 0, 0)).isEqualTo(200);
+		assertThat(chunk(policy, 200, 0, 0)).isEqualTo(300);
+		assertThat(chunk(policy, 300, 0, 0)).isEqualTo(300);
+		assertThat(stepExecution.getExecutionContext().getInt(AdaptiveChunkSizePolicy.CHUNK_SIZE_KEY)).isEqualTo(300);
+	}
+
+	@Test
+	void slowChunks_halveTheSize_downToMin() throws Exception {
+		AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(100, 30, 300, 1);
+		policy.beforeStep(stepExecution);
+
+		assertThat(chunk(policy, 100, 0, 20)).isEqualTo(50);
+		assertThat(chunk(policy, 50, 0, 20)).isEqualTo(30);
+	}
+
+	@Test
+	void processAndWriteSkips_halveTheSize_evenWhenChunksAreFast() throws Exception {
+		AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(100, 10, 300, 60_000);
+		policy.beforeStep(stepExecution);
+
+		// 5 of 100 items rescanned: averaged rate 0.3 * 0.05 is above MAX_SKIP_RATE
+		assertThat(chunk(policy, 95, 5, 0)).isEqualTo(50);
+		// the average decays: 0.7 * 0.015 is still above, 0.49 * 0.015 is not
+		assertThat(chunk(policy, 50, 0, 0)).isEqualTo(25);
+		assertThat(chunk(policy, 25, 0, 0)).isEqualTo(50);
+	}
+
+	@Test
+	void chunkWithoutWrites_keepsTheSize() throws Exception {
+		AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(100, 10, 300, 60_000);
+		policy.beforeStep(stepExecution);
+		ChunkContext context = new ChunkContext(new StepContext(stepExecution));
+
+		policy.beforeChunk(context);
+		stepExecution.setReadCount(stepExecution.getReadCount() + 100);
+		policy.afterChunk(context);
+
+		assertThat(policy.getChunkSize()).isEqualTo(100);
+	}
+
+	@Test
+	void restart_continuesWithTheLastSize_withinTheBounds() {
+		stepExecution.getExecutionContext().putInt(AdaptiveChunkSizePolicy.CHUNK_SIZE_KEY, 250);
+		AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(100, 10, 300, 100);
+		policy.beforeStep(stepExecution);
+		assertThat(policy.getChunkSize()).isEqualTo(250);
+
+		stepExecution.getExecutionContext().putInt(AdaptiveChunkSizePolicy.CHUNK_SIZE_KEY, 5000);
+		policy.beforeStep(stepExecution);
+		assertThat(policy.getChunkSize()).isEqualTo(300);
+	}
+
+	@Test
+	void invalidBounds_areRejected() {
+		assertThatThrownBy(() -> new AdaptiveChunkSizePolicy(100, 500, 300, 100))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new AdaptiveChunkSizePolicy(100, 0, 300, 100))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	/**
+	 * Runs one committed chunk of {@code written + rescanSkips} read items whose write takes
+	 * {@code writeMillis}, and returns the size of the next chunk.
+	 */
+	private int chunk(AdaptiveChunkSizePolicy policy, int written, int rescanSkips, long writeMillis) throws Exception {
+		ChunkContext context = new ChunkContext(new StepContext(stepExecution));
+		policy.beforeChunk(context);
+		assertThat(context.getAttribute(AdaptiveChunkSizePolicy.CHUNK_SIZE_KEY)).isEqualTo(policy.getChunkSize());
+
+		policy.beforeWrite(new Chunk<TransactionInsertRow>());
+		Thread.sleep(writeMillis);
+		stepExecution.setReadCount(stepExecution.getReadCount() + written + rescanSkips);
+		stepExecution.setWriteCount(stepExecution.getWriteCount() + written);
+		stepExecution.setWriteSkipCount(stepExecution.getWriteSkipCount() + rescanSkips);
+		policy.afterChunk(context);
+		return policy.getChunkSize();
+	}
+}
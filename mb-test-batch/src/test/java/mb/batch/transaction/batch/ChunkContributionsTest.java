@@ -0,0 +1,62 @@
+package mb.batch.transaction.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChunkContributionsTest {
+
+	StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+	@BeforeEach
+	void setUp() {
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void tearDown() {
+		// unbinds the contribution: the step executions of all tests are equal
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			complete(false);
+		}
+	}
+
+	@Test
+	void commit_appliesTheCountsOnce() {
+		ChunkContributions.current(stepExecution).incrementWriteSkipCount();
+		ChunkContributions.current(stepExecution).incrementFilterCount(2);
+
+		complete(true);
+
+		assertThat(stepExecution.getWriteSkipCount()).isEqualTo(1);
+		assertThat(stepExecution.getFilterCount()).isEqualTo(2);
+	}
+
+	@Test
+	void rollback_dropsTheCounts() {
+		ChunkContributions.current(stepExecution).incrementWriteSkipCount();
+
+		complete(false);
+
+		assertThat(stepExecution.getWriteSkipCount()).isZero();
+		// the next chunk starts from zero
+		TransactionSynchronizationManager.initSynchronization();
+		assertThat(ChunkContributions.current(stepExecution).getSkipCount()).isZero();
+	}
+
+	private static void complete(boolean commit) {
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			if (commit) synchronization.afterCommit();
+			synchronization.afterCompletion(commit
+					? TransactionSynchronization.STATUS_COMMITTED
+					: TransactionSynchronization.STATUS_ROLLED_BACK);
+		}
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+}
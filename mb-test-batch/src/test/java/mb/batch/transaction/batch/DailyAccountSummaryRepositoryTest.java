@@ -0,0 +1,137 @@
+package mb.batch.transaction.batch;
+
+import mb.batch.transaction.dto.TransactionInsertRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DailyAccountSummaryRepositoryTest {
+
+	private static final LocalDate DAY = LocalDate.of(2019, 9, 12);
+
+	EmbeddedDatabase db = new EmbeddedDatabaseBuilder()
+			.generateUniqueName(true)
+			.setType(EmbeddedDatabaseType.H2)
+			.addScript("schema-be.sql")
+			.addScript("schema-import.sql")
+			.build();
+	NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(db);
+	DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(db);
+	DailyAccountSummaryRepository repository = new DailyAccountSummaryRepository(jdbc, transactionManager);
+
+	@BeforeEach
+	void setUp() {
+		jdbc.update("INSERT INTO USER_PROFILE (ID, CUSTOMER_ID, FULL_NAME, EMAIL) VALUES (1, '222', 'Jane', 'jane@example.com')", Map.of());
+		jdbc.update("INSERT INTO ACCOUNT (ID, ACCOUNT_NUMBER, USER_PROFILE_ID) VALUES (10, '8872838283', 1)", Map.of());
+	}
+
+	@AfterEach
+	void tearDown() {
+		db.shutdown();
+	}
+
+	@Test
+	void add_matchesTheTransactions_andVerifyFindsWhatWasNotAdded() {
+		List<TransactionInsertRow> chunk = List.of(insert(10, DAY, "100.00"), insert(10, DAY, "23.50"));
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> repository.add(chunk));
+
+		assertThat(repository.findMismatches()).isEmpty();
+
+		// imported without adding it to the summary
+		insert(10, DAY, "1.00");
+		insert(10, DAY.plusDays(1), "5.00");
+
+		assertThat(repository.findMismatches()).containsExactly(
+				new DailyAccountSummaryRepository.Mismatch(10, DAY, 2L, new BigDecimal("123.50"), 3L, new BigDecimal("124.50")),
+				new DailyAccountSummaryRepository.Mismatch(10, DAY.plusDays(1), null, null, 1L, new BigDecimal("5.00")));
+		assertThat(repository.rebuild()).isEqualTo(2);
+		assertThat(repository.findMismatches()).isEmpty();
+	}
+
+	@Test
+	void concurrentWritersOfTheSameNewDay_bothCount() throws Exception {
+		CountDownLatch firstAdded = new CountDownLatch(1);
+		CountDownLatch commitFirst = new CountDownLatch(1);
+		CompletableFuture<Void> first = CompletableFuture.runAsync(() ->
+				new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+					repository.add(List.of(insertRow(10, DAY, "100.00")));
+					firstAdded.countDown();
+					await(commitFirst);
+				}));
+		assertThat(firstAdded.await(10, TimeUnit.SECONDS)).isTrue();
+
+		// does not see the uncommitted row: inserts it as well and waits for the first writer
+		CompletableFuture<Void> second = CompletableFuture.runAsync(() ->
+				new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+						repository.add(List.of(insertRow(10, DAY, "23.50"), insertRow(10, DAY.plusDays(1), "5.00")))));
+		awaitWaitingMerge();
+		commitFirst.countDown();
+		first.get(10, TimeUnit.SECONDS);
+		second.get(10, TimeUnit.SECONDS);
+
+		assertThat(jdbc.queryForMap("SELECT TRANSACTION_COUNT, TOTAL_AMOUNT FROM DAILY_ACCOUNT_SUMMARY WHERE TRX_DATE = :day",
+				Map.of("day", DAY))).containsValues(2L, new BigDecimal("123.50"));
+		assertThat(jdbc.queryForObject("SELECT TRANSACTION_COUNT FROM DAILY_ACCOUNT_SUMMARY WHERE TRX_DATE = :day",
+				Map.of("day", DAY.plusDays(1)), Long.class)).isEqualTo(1L);
+	}
+
+	// H2 leaves BLOCKER_ID empty for row lock waits: the second writer is the session still executing its MERGE
+	private void awaitWaitingMerge() throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (jdbc.queryForObject("""
+				SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS
+				WHERE EXECUTING_STATEMENT LIKE 'MERGE INTO DAILY_ACCOUNT_SUMMARY%'
+				""", Map.of(), Integer.class) == 0) {
+			assertThat(System.nanoTime()).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** Inserts a TRANSACTION row and returns it as the import would hand it to the summary. */
+	private TransactionInsertRow insert(long accountId, LocalDate trxDate, String amount) {
+		TransactionInsertRow row = insertRow(accountId, trxDate, amount);
+		jdbc.update("""
+				INSERT INTO "TRANSACTION" (VERSION, ACCOUNT_ID, AMOUNT, TRX_DATE, TRX_TIME, CUSTOMER_ID, CREATED_AT, UPDATED_AT)
+				VALUES (0, :accountId, :amount, :trxDate, :trxTime, '222', :now, :now)
+				""", Map.of("accountId", accountId, "amount", row.getAmount(), "trxDate", trxDate,
+				"trxTime", row.getTrxTime(), "now", LocalDateTime.now()));
+		return row;
+	}
+
+	private static TransactionInsertRow insertRow(long accountId, LocalDate trxDate, String amount) {
+		return TransactionInsertRow.builder()
+				.accountId(accountId)
+				.trxDate(trxDate)
+				.trxTime(LocalTime.of(11, 11, 11))
+				.amount(new BigDecimal(amount))
+				.build();
+	}
+}
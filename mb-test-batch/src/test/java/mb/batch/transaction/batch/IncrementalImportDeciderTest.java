@@ -0,0 +1,109 @@
+package mb.batch.transaction.batch;
+
+import mb.batch.transaction.dto.ImportFileState;
+import mb.batch.transaction.util.FileChecksums;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.job.JobExecution;
+import org.springframework.batch.core.job.parameters.JobParametersBuilder;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IncrementalImportDeciderTest {
+
+	private static final String HEADER = "ACCOUNT_NUMBER|TRX_AMOUNT|DESCRIPTION|TRX_DATE|TRX_TIME|CUSTOMER_ID\n";
+	private static final String RECORD = "8872838283|123.00|FUND TRANSFER|2019-09-12|11:11:11|222";
+
+	@TempDir
+	Path dir;
+
+	ImportFileStateRepository stateRepository = mock(ImportFileStateRepository.class);
+	IncrementalImportDecider decider = new IncrementalImportDecider(new PathMatchingResourcePatternResolver(),
+			stateRepository, true, "file:/nonexistent");
+
+	@Test
+	void firstImport_isFull() throws Exception {
+		Path file = Files.writeString(dir.resolve("in.txt"), HEADER + RECORD + "\n");
+		when(stateRepository.find(any())).thenReturn(Optional.empty());
+
+		JobExecution execution = execution(file);
+
+		assertThat(decider.decide(execution, null)).isEqualTo(IncrementalImportDecider.FULL);
+		assertThat(execution.getExecutionContext().getLong(IncrementalImportDecider.START_OFFSET_KEY)).isZero();
+	}
+
+	@Test
+	void appendedFile_resumesAtTheCommittedOffset() throws Exception {
+		Path file = Files.writeString(dir.resolve("in.txt"), HEADER + RECORD + "\n");
+		ImportFileState state = recorded(file, 2);
+		Files.writeString(file, RECORD + "\n" + RECORD, StandardOpenOption.APPEND);
+		when(stateRepository.find(file.toAbsolutePath().toString())).thenReturn(Optional.of(state));
+
+		JobExecution execution = execution(file);
+
+		assertThat(decider.decide(execution, null)).isEqualTo(IncrementalImportDecider.APPEND);
+		ExecutionContext ctx = execution.getExecutionContext();
+		assertThat(ctx.getLong(IncrementalImportDecider.START_OFFSET_KEY)).isEqualTo(state.getCommittedOffset());
+		assertThat(ctx.getLong(IncrementalImportDecider.START_LINE_KEY)).isEqualTo(2);
+		assertThat(ctx.get(IncrementalImportDecider.INCLUDE_UNTERMINATED_KEY)).isEqualTo(false);
+	}
+
+	@Test
+	void unterminatedLastLine_isImportedOnceTheFileIsUnchangedSinceTheLastRun() throws Exception {
+		Path file = Files.writeString(dir.resolve("in.txt"), HEADER + RECORD + "\n" + RECORD);
+		// the last run stopped before the unterminated line and recorded the file as it is now
+		ImportFileState state = recorded(file, 2);
+		when(stateRepository.find(file.toAbsolutePath().toString())).thenReturn(Optional.of(state));
+
+		JobExecution execution = execution(file);
+
+		assertThat(decider.decide(execution, null)).isEqualTo(IncrementalImportDecider.APPEND);
+		assertThat(execution.getExecutionContext().get(IncrementalImportDecider.INCLUDE_UNTERMINATED_KEY)).isEqualTo(true);
+	}
+
+	@Test
+	void completelyImportedFile_isUnchanged_andAnEditedOneChanged() throws Exception {
+		Path file = Files.writeString(dir.resolve("in.txt"), HEADER + RECORD + "\n");
+		ImportFileState state = recorded(file, 2);
+		when(stateRepository.find(file.toAbsolutePath().toString())).thenReturn(Optional.of(state));
+
+		assertThat(decider.decide(execution(file), null)).isEqualTo(IncrementalImportDecider.UNCHANGED);
+
+		Files.writeString(file, HEADER + RECORD.replace("123.00", "999.00") + "\n" + RECORD + "\n");
+		assertThat(decider.decide(execution(file), null)).isEqualTo(IncrementalImportDecider.CHANGED);
+	}
+
+	/** The state ImportFileStateListener records after importing the first {@code lines} complete lines. */
+	private static ImportFileState recorded(Path file, int lines) throws Exception {
+		String content = Files.readString(file);
+		int offset = 0;
+		for (int i = 0; i < lines; i++) {
+			offset = content.indexOf('\n', offset) + 1;
+		}
+		return ImportFileState.builder()
+				.resource(file.toAbsolutePath().toString())
+				.sizeBytes(Files.size(file))
+				.lastModified(Files.getLastModifiedTime(file).toMillis())
+				.prefixCrc32c(FileChecksums.crc32c(file, offset))
+				.committedOffset(offset)
+				.committedLine(lines)
+				.build();
+	}
+
+	private static JobExecution execution(Path file) {
+		return MetaDataInstanceFactory.createJobExecution("importTransactionsJob", 1L, 1L, new JobParametersBuilder()
+				.addString("inputResource", file.toUri().toString())
+				.toJobParameters());
+	}
+}
@@ -0,0 +1,162 @@
+package mb.batch.transaction.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mb.batch.transaction.dto.TransactionFileRow;
+import mb.batch.transaction.util.TransactionImportMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedTransactionFileReaderTest {
+
+	private static final String HEADER = "ACCOUNT_NUMBER|TRX_AMOUNT|DESCRIPTION|TRX_DATE|TRX_TIME|CUSTOMER_ID";
+
+	@TempDir
+	Path dir;
+
+	StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+	// rejects count as skips of the chunk transaction the reader runs in
+	@BeforeEach
+	void setUp() {
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.getSynchronizations()
+				.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void linesAcrossWindowBoundaries_areReadWhole() throws Exception {
+		Path file = write(lines(0, 10));
+		// records are 57 bytes: most of them start in one window and end in the next
+		MappedTransactionFileReader reader = reader(file, 0, 0, 64, "rejects.txt");
+
+		List<TransactionFileRow> rows = readAll(reader, new ExecutionContext());
+
+		assertThat(rows).extracting(TransactionFileRow::getCustomerId)
+				.containsExactly("C0", "C1", "C2", "C3", "C4", "C5", "C6", "C7", "C8", "C9");
+		assertThat(rows.get(7).getTrxAmount()).isEqualByComparingTo("107.50");
+		assertThat(rows.get(7).getDescription()).isEqualTo("FUND TRANSFER 7");
+	}
+
+	@Test
+	void lineLongerThanTheWindow_fails() throws Exception {
+		Path file = write(lines(0, 3));
+		MappedTransactionFileReader reader = reader(file, 0, 0, 16, "rejects.txt");
+		reader.open(new ExecutionContext());
+
+		assertThatThrownBy(reader::read).isInstanceOf(IllegalStateException.class).hasMessageContaining("longer than 16 bytes");
+		reader.close();
+	}
+
+	@Test
+	void crlfLines_andMissingFinalNewline() throws Exception {
+		Path file = write(HEADER + "\r\n" + record(0) + "\r\n" + record(1));
+		MappedTransactionFileReader reader = reader(file, 0, 1, 128, "rejects.txt");
+
+		List<TransactionFileRow> rows = readAll(reader, new ExecutionContext());
+
+		assertThat(rows).extracting(TransactionFileRow::getCustomerId).containsExactly("C0", "C1");
+		assertThat(reader.getPosition()).isEqualTo(Files.size(file));
+	}
+
+	@Test
+	void restart_resumesAtTheSavedOffsetAndLine() throws Exception {
+		Path file = write(HEADER + "\n" + lines(0, 2) + "not a record\n" + lines(2, 5));
+		ExecutionContext ctx = new ExecutionContext();
+		MappedTransactionFileReader first = reader(file, 0, 1, 128, "rejects.txt");
+		first.open(ctx);
+		assertThat(first.read().getCustomerId()).isEqualTo("C0");
+		assertThat(first.read().getCustomerId()).isEqualTo("C1");
+		first.update(ctx);
+		first.close();
+
+		MappedTransactionFileReader restarted = reader(file, 0, 1, 128, "rejects.txt");
+		List<TransactionFileRow> rows = readAll(restarted, ctx);
+
+		assertThat(rows).extracting(TransactionFileRow::getCustomerId).containsExactly("C2", "C3", "C4");
+		// header + 5 records + the rejected line
+		assertThat(ctx.getInt("reader." + MappedTransactionFileReader.LINE_KEY)).isEqualTo(7);
+		assertThat(Files.readAllLines(dir.resolve("rejects.txt"))).containsExactly(
+				"LINE_NUMBER|REASON|INPUT", "4|Missing required fields|not a record");
+	}
+
+	@Test
+	void completeLinesOnly_leavesAnUnterminatedLineForTheNextRun() throws Exception {
+		String third = record(2);
+		Path file = write(lines(0, 2) + third.substring(0, 20));
+		MappedTransactionFileReader reader = reader(file, 0, 0, 64, "rejects.txt");
+		reader.setCompleteLinesOnly(true);
+
+		List<TransactionFileRow> rows = readAll(reader, new ExecutionContext());
+
+		assertThat(rows).extracting(TransactionFileRow::getCustomerId).containsExactly("C0", "C1");
+		long committed = reader.getPosition();
+		assertThat(committed).isEqualTo(lines(0, 2).length());
+
+		// the writer finishes the line, next run starts at the committed offset and line
+		Files.writeString(file, third.substring(20) + "\nnot a record\n", StandardOpenOption.APPEND);
+		MappedTransactionFileReader next = reader(file, committed, 0, 64, "rejects-2.txt");
+		next.setCompleteLinesOnly(true);
+		next.setStartLine(2);
+
+		assertThat(readAll(next, new ExecutionContext())).extracting(TransactionFileRow::getCustomerId).containsExactly("C2");
+		assertThat(Files.readAllLines(dir.resolve("rejects-2.txt"))).contains("4|Missing required fields|not a record");
+	}
+
+	private MappedTransactionFileReader reader(Path file, long startOffset, int linesToSkip, long windowSize,
+											   String rejects) {
+		RecordQuarantine quarantine = new RecordQuarantine(dir.resolve(rejects), stepExecution,
+				new TransactionImportMetrics(new SimpleMeterRegistry()), 100);
+		MappedTransactionFileReader reader = new MappedTransactionFileReader(file, new TransactionLineParser(null),
+				quarantine, startOffset, -1, linesToSkip, windowSize);
+		reader.setName("reader");
+		return reader;
+	}
+
+	private static List<TransactionFileRow> readAll(MappedTransactionFileReader reader, ExecutionContext ctx) throws Exception {
+		reader.open(ctx);
+		List<TransactionFileRow> rows = new ArrayList<>();
+		for (TransactionFileRow row = reader.read(); row != null; row = reader.read()) {
+			rows.add(row);
+		}
+		reader.update(ctx);
+		reader.close();
+		return rows;
+	}
+
+	private Path write(String content) throws Exception {
+		return Files.writeString(dir.resolve("transactions.txt"), content);
+	}
+
+	private static String lines(int from, int to) {
+		StringBuilder lines = new StringBuilder();
+		for (int i = from; i < to; i++) {
+			lines.append(record(i)).append('\n');
+		}
+		return lines.toString();
+	}
+
+	private static String record(int i) {
+		return "88728382" + (10 + i) + "|" + (100 + i) + ".50|FUND TRANSFER " + i + "|2019-09-12|11:11:11|C" + i;
+	}
+}
@@ -0,0 +1,113 @@
+package mb.batch.transaction.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionClaimRepositoryTest {
+
+	EmbeddedDatabase db = new EmbeddedDatabaseBuilder()
+			.generateUniqueName(true)
+			.setType(EmbeddedDatabaseType.H2)
+			.addScript("org/springframework/batch/core/schema-h2.sql")
+			.build();
+	NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(db);
+	PartitionClaimRepository repository = new PartitionClaimRepository(jdbc);
+
+	@AfterEach
+	void tearDown() {
+		db.shutdown();
+	}
+
+	@Test
+	void claim_takesTheOldestUnclaimedPartitionOfARunningJob() {
+		jobExecution(1, "STARTED");
+		stepExecution(10, 1, "worker:partition0", "STARTED");
+		stepExecution(11, 1, "worker:partition1", "STARTING");
+		stepExecution(12, 1, "worker:partition2", "STARTING");
+		stepExecution(13, 1, "other:partition0", "STARTING");
+		jobExecution(2, "FAILED");
+		stepExecution(20, 2, "worker:partition0", "STARTING");
+
+		assertThat(repository.claim("worker")).contains(new PartitionClaimRepository.Claim(1, 11, "worker:partition1"));
+		assertThat(repository.claim("worker")).map(PartitionClaimRepository.Claim::stepExecutionId).contains(12L);
+		assertThat(repository.claim("worker")).isEmpty();
+		assertThat(status(11)).isEqualTo("STARTED");
+	}
+
+	@Test
+	void concurrentWorkers_claimEveryPartitionExactlyOnce() throws Exception {
+		int partitions = 40;
+		jobExecution(1, "STARTED");
+		for (int i = 0; i < partitions; i++) {
+			stepExecution(100 + i, 1, "worker:partition" + i, "STARTING");
+		}
+
+		int workers = 8;
+		Queue<Long> claimed = new ConcurrentLinkedQueue<>();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			List<Future<?>> done = new ArrayList<>();
+			for (int w = 0; w < workers; w++) {
+				done.add(executor.submit(() -> {
+					start.await();
+					for (Optional<PartitionClaimRepository.Claim> claim = repository.claim("worker"); claim.isPresent();
+						 claim = repository.claim("worker")) {
+						claimed.add(claim.get().stepExecutionId());
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : done) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(claimed).containsExactlyInAnyOrderElementsOf(LongStream.range(100, 100 + partitions).boxed().toList());
+	}
+
+	private void jobExecution(long id, String status) {
+		jdbc.update("""
+				INSERT INTO BATCH_JOB_INSTANCE (JOB_INSTANCE_ID, VERSION, JOB_NAME, JOB_KEY)
+				VALUES (:id, 0, 'importTransactionsRemotePartitionedJob', :key)
+				""", Map.of("id", id, "key", "key" + id));
+		jdbc.update("""
+				INSERT INTO BATCH_JOB_EXECUTION (JOB_EXECUTION_ID, VERSION, JOB_INSTANCE_ID, CREATE_TIME, STATUS)
+				VALUES (:id, 0, :id, :now, :status)
+				""", Map.of("id", id, "now", LocalDateTime.now(), "status", status));
+	}
+
+	private void stepExecution(long id, long jobExecutionId, String name, String status) {
+		jdbc.update("""
+				INSERT INTO BATCH_STEP_EXECUTION (STEP_EXECUTION_ID, VERSION, STEP_NAME, JOB_EXECUTION_ID, CREATE_TIME, STATUS)
+				VALUES (:id, 0, :name, :jobExecutionId, :now, :status)
+				""", Map.of("id", id, "name", name, "jobExecutionId", jobExecutionId, "now", LocalDateTime.now(), "status", status));
+	}
+
+	private String status(long stepExecutionId) {
+		return jdbc.queryForObject("SELECT STATUS FROM BATCH_STEP_EXECUTION WHERE STEP_EXECUTION_ID = :id",
+				Map.of("id", stepExecutionId), String.class);
+	}
+}
@@ -0,0 +1,125 @@
+package mb.batch.transaction.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mb.batch.transaction.dto.RejectedRecord;
+import mb.batch.transaction.util.TransactionImportMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecordQuarantineTest {
+
+	@TempDir
+	Path dir;
+
+	StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+	@BeforeEach
+	void setUp() {
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void tearDown() {
+		// unbinds the chunk contribution: the step executions of all tests are equal
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			complete(false);
+		}
+	}
+
+	@Test
+	void reject_writesLineNumberReasonAndInput_andCountsAReadSkip() throws Exception {
+		RecordQuarantine quarantine = quarantine(10);
+		quarantine.open(new ExecutionContext());
+
+		quarantine.reject(3, RejectedRecord.Reason.BLANK_LINE, "");
+		quarantine.reject(7, RejectedRecord.Reason.INVALID_AMOUNT, "8872838283|12x|FUND TRANSFER|2019-09-12|11:11:11|222");
+		assertThat(stepExecution.getReadSkipCount()).isZero();
+		complete(true);
+		quarantine.close();
+
+		assertThat(Files.readAllLines(dir.resolve("rejects.txt"))).containsExactly(
+				"LINE_NUMBER|REASON|INPUT",
+				"3|Blank line|",
+				"7|Invalid amount|8872838283|12x|FUND TRANSFER|2019-09-12|11:11:11|222");
+		assertThat(stepExecution.getReadSkipCount()).isEqualTo(2);
+	}
+
+	@Test
+	void rolledBackChunk_doesNotCountItsRejects() throws Exception {
+		RecordQuarantine quarantine = quarantine(10);
+		quarantine.open(new ExecutionContext());
+		quarantine.reject(3, RejectedRecord.Reason.BLANK_LINE, "");
+		complete(false);
+		quarantine.close();
+
+		assertThat(stepExecution.getReadSkipCount()).isZero();
+	}
+
+	@Test
+	void nothingRejected_leavesNoFile() {
+		RecordQuarantine quarantine = quarantine(10);
+		quarantine.open(new ExecutionContext());
+		quarantine.close();
+
+		assertThat(Files.exists(dir.resolve("rejects.txt"))).isFalse();
+	}
+
+	@Test
+	void restart_truncatesToTheLastCommit() throws Exception {
+		ExecutionContext ctx = new ExecutionContext();
+		RecordQuarantine quarantine = quarantine(10);
+		quarantine.open(ctx);
+		quarantine.reject(2, RejectedRecord.Reason.MALFORMED, "committed");
+		quarantine.update(ctx);
+		quarantine.reject(5, RejectedRecord.Reason.MALFORMED, "not committed");
+		quarantine.close();
+
+		RecordQuarantine restarted = quarantine(10);
+		restarted.open(ctx);
+		restarted.reject(5, RejectedRecord.Reason.MALFORMED, "read again");
+		restarted.close();
+
+		assertThat(Files.readAllLines(dir.resolve("rejects.txt"))).containsExactly(
+				"LINE_NUMBER|REASON|INPUT", "2|Malformed line|committed", "5|Malformed line|read again");
+	}
+
+	@Test
+	void reject_beyondTheSkipLimit_fails() throws Exception {
+		RecordQuarantine quarantine = quarantine(1);
+		quarantine.open(new ExecutionContext());
+		quarantine.reject(1, RejectedRecord.Reason.BLANK_LINE, "");
+
+		assertThatThrownBy(() -> quarantine.reject(2, RejectedRecord.Reason.BLANK_LINE, ""))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Skip limit of 1 exceeded at line 2");
+		quarantine.close();
+	}
+
+	private static void complete(boolean commit) {
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			if (commit) synchronization.afterCommit();
+			synchronization.afterCompletion(commit
+					? TransactionSynchronization.STATUS_COMMITTED
+					: TransactionSynchronization.STATUS_ROLLED_BACK);
+		}
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	private RecordQuarantine quarantine(int skipLimit) {
+		return new RecordQuarantine(dir.resolve("rejects.txt"), stepExecution,
+				new TransactionImportMetrics(new SimpleMeterRegistry()), skipLimit);
+	}
+}
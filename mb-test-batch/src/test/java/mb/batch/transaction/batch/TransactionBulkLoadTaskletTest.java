@@ -0,0 +1,86 @@
+package mb.batch.transaction.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mb.batch.transaction.util.TransactionImportMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.step.StepContribution;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionBulkLoadTaskletTest {
+
+	@TempDir
+	Path dir;
+
+	EmbeddedDatabase db = new EmbeddedDatabaseBuilder()
+			.generateUniqueName(true)
+			.setType(EmbeddedDatabaseType.H2)
+			.addScript("schema-be.sql")
+			.addScript("schema-import.sql")
+			.build();
+	NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(db);
+	StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+	@AfterEach
+	void tearDown() {
+		db.shutdown();
+	}
+
+	@Test
+	void impossibleDatesAndTimes_areQuarantined_andTheRestIsLoaded() throws Exception {
+		Path input = Files.writeString(dir.resolve("in.txt"), """
+				ACCOUNT_NUMBER|TRX_AMOUNT|DESCRIPTION|TRX_DATE|TRX_TIME|CUSTOMER_ID
+				100|1.00|OK|2019-09-12|11:11:11|222
+				100|2.00|LEAP DAY|2020-02-29|23:59|222
+				100|3.00|NO LEAP DAY|2019-02-29|10:00:00|222
+				100|4.00|BAD DAY|2019-04-31|10:00:00|222
+				100|5.00|BAD MONTH|2019-13-01|10:00:00|222
+				100|6.00|BAD TIME|2019-09-12|25:99|222
+				100|7.00|BAD SECOND|2019-09-12|10:00:60|222
+				""");
+		Path rejects = dir.resolve("in.rejects.txt");
+		RecordQuarantine quarantine = new RecordQuarantine(rejects, stepExecution,
+				new TransactionImportMetrics(new SimpleMeterRegistry()), 10);
+		TransactionBulkLoadTasklet tasklet = new TransactionBulkLoadTasklet(jdbc, quarantine, input.toString(), 1, true);
+
+		tasklet.open(new ExecutionContext());
+		StepContribution contribution = stepExecution.createStepContribution();
+		new TransactionTemplate(new DataSourceTransactionManager(db)).executeWithoutResult(status -> {
+			try {
+				tasklet.execute(contribution, new ChunkContext(new StepContext(stepExecution)));
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		tasklet.close();
+
+		assertThat(jdbc.queryForList("SELECT DESCRIPTION FROM \"TRANSACTION\" ORDER BY ID", Map.of(), String.class))
+				.containsExactly("OK", "LEAP DAY");
+		assertThat(Files.readAllLines(rejects)).containsExactly(
+				"LINE_NUMBER|REASON|INPUT",
+				"4|Invalid date|100|3.00|NO LEAP DAY|2019-02-29|10:00:00|222",
+				"5|Invalid date|100|4.00|BAD DAY|2019-04-31|10:00:00|222",
+				"6|Invalid date|100|5.00|BAD MONTH|2019-13-01|10:00:00|222",
+				"7|Invalid time|100|6.00|BAD TIME|2019-09-12|25:99|222",
+				"8|Invalid time|100|7.00|BAD SECOND|2019-09-12|10:00:60|222");
+		assertThat(stepExecution.getReadSkipCount()).isEqualTo(5);
+		assertThat(contribution.getWriteCount()).isEqualTo(2);
+	}
+}
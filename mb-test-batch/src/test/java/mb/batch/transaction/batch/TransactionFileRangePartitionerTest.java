@@ -0,0 +1,100 @@
+package mb.batch.transaction.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static mb.batch.transaction.batch.TransactionFileRangePartitioner.END_OFFSET_KEY;
+import static mb.batch.transaction.batch.TransactionFileRangePartitioner.PARTITION_INDEX_KEY;
+import static mb.batch.transaction.batch.TransactionFileRangePartitioner.START_OFFSET_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionFileRangePartitionerTest {
+
+	private static final String HEADER = "ACCOUNT_NUMBER|TRX_AMOUNT|DESCRIPTION|TRX_DATE|TRX_TIME|CUSTOMER_ID\n";
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void ranges_startAfterTheHeader_areLineAligned_andCoverTheFileWithoutOverlap() throws Exception {
+		StringBuilder data = new StringBuilder(HEADER);
+		for (int i = 0; i < 100; i++) {
+			// lines of different lengths, so that range boundaries fall inside lines
+			data.append("8872838283|").append(i * 7).append(".50|FUND TRANSFER ").append(i).append("|2019-09-12|11:11:11|C").append(i).append('\n');
+		}
+		Path file = write(data.toString());
+		byte[] bytes = Files.readAllBytes(file);
+
+		Map<String, ExecutionContext> partitions = new TransactionFileRangePartitioner(new FileSystemResource(file), 1).partition(4);
+
+		assertThat(partitions).containsOnlyKeys("partition0", "partition1", "partition2", "partition3");
+		long expectedStart = HEADER.length();
+		List<String> lines = new ArrayList<>();
+		int index = 0;
+		for (ExecutionContext ctx : partitions.values()) {
+			long start = ctx.getLong(START_OFFSET_KEY);
+			long end = ctx.getLong(END_OFFSET_KEY);
+			assertThat(ctx.getInt(PARTITION_INDEX_KEY)).isEqualTo(index++);
+			assertThat(start).isEqualTo(expectedStart);
+			assertThat(end).isGreaterThan(start);
+			assertThat(bytes[(int) end - 1]).isEqualTo((byte) '\n');
+			lines.addAll(new String(bytes, (int) start, (int) (end - start)).lines().toList());
+			expectedStart = end;
+		}
+		assertThat(expectedStart).isEqualTo(bytes.length);
+		assertThat(lines).hasSize(100).doesNotContain(HEADER.strip());
+		assertThat(lines.getFirst()).endsWith("|C0");
+		assertThat(lines.getLast()).endsWith("|C99");
+	}
+
+	@Test
+	void lastLineWithoutNewline_isInTheLastRange() throws Exception {
+		Path file = write(HEADER + "8872838283|1.00|A|2019-09-12|11:11:11|C1\n8872838283|2.00|B|2019-09-12|11:11:11|C2");
+
+		Map<String, ExecutionContext> partitions = new TransactionFileRangePartitioner(new FileSystemResource(file), 1).partition(2);
+
+		assertThat(partitions).hasSize(2);
+		assertThat(partitions.get("partition1").getLong(END_OFFSET_KEY)).isEqualTo(Files.size(file));
+	}
+
+	@Test
+	void moreGridThanLines_givesOneRangePerLine() throws Exception {
+		Path file = write(HEADER + "8872838283|1.00|A|2019-09-12|11:11:11|C1\n8872838283|2.00|B|2019-09-12|11:11:11|C2\n");
+
+		assertThat(new TransactionFileRangePartitioner(new FileSystemResource(file), 1).partition(8)).hasSize(2);
+	}
+
+	@Test
+	void headerOnly_stillGivesOneEmptyRange() throws Exception {
+		Path file = write(HEADER);
+
+		Map<String, ExecutionContext> partitions = new TransactionFileRangePartitioner(new FileSystemResource(file), 1).partition(4);
+
+		assertThat(partitions).containsOnlyKeys("partition0");
+		assertThat(partitions.get("partition0").getLong(START_OFFSET_KEY)).isZero();
+		assertThat(partitions.get("partition0").getLong(END_OFFSET_KEY)).isZero();
+	}
+
+	@Test
+	void compressedInput_isRejected() throws Exception {
+		Path file = dir.resolve("transactions.txt.gz");
+		Files.write(file, new byte[] {0x1f, (byte) 0x8b, 8, 0});
+
+		assertThatThrownBy(() -> new TransactionFileRangePartitioner(new FileSystemResource(file), 1).partition(4))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("compressed");
+	}
+
+	private Path write(String content) throws Exception {
+		return Files.writeString(dir.resolve("transactions.txt"), content);
+	}
+}
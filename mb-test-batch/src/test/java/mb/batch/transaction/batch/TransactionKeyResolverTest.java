@@ -0,0 +1,120 @@
+package mb.batch.transaction.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mb.batch.transaction.dto.TransactionInsertRow;
+import mb.batch.transaction.util.TransactionImportMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionKeyResolverTest {
+
+	EmbeddedDatabase db = new EmbeddedDatabaseBuilder()
+			.generateUniqueName(true)
+			.setType(EmbeddedDatabaseType.H2)
+			.addScript("schema-be.sql")
+			.build();
+	NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(db);
+	TransactionKeyResolver resolver = resolver();
+
+	@AfterEach
+	void tearDown() {
+		db.shutdown();
+	}
+
+	@Test
+	void resolve_createsMissingKeys_andANewAccountBelongsToItsFirstCustomer() {
+		Chunk<TransactionInsertRow> rows = Chunk.of(row("100", "C1"), row("100", "C2"), row("200", "C2"));
+
+		resolver.resolve(rows);
+
+		assertThat(rows.getItems()).allSatisfy(row -> assertThat(row.getAccountId()).isNotNull());
+		assertThat(rows.getItems().get(0).getAccountId()).isEqualTo(rows.getItems().get(1).getAccountId());
+		assertThat(rows.getItems().get(2).getAccountId()).isNotEqualTo(rows.getItems().get(0).getAccountId());
+		assertThat(count("USER_PROFILE")).isEqualTo(2);
+		assertThat(owner("100")).isEqualTo("C1");
+		assertThat(owner("200")).isEqualTo("C2");
+	}
+
+	@Test
+	void resolve_usesExistingRows_andCachesTheirIds() {
+		jdbc.update("INSERT INTO USER_PROFILE (ID, CUSTOMER_ID, FULL_NAME, EMAIL) VALUES (7, 'C1', 'Jane', 'jane@example.com')", Map.of());
+		jdbc.update("INSERT INTO ACCOUNT (ID, ACCOUNT_NUMBER, USER_PROFILE_ID) VALUES (70, '100', 7)", Map.of());
+
+		Chunk<TransactionInsertRow> first = Chunk.of(row("100", "C1"));
+		resolver.resolve(first);
+		Chunk<TransactionInsertRow> second = Chunk.of(row("100", "C1"));
+		resolver.resolve(second);
+
+		assertThat(first.getItems().get(0).getAccountId()).isEqualTo(70L);
+		assertThat(second.getItems().get(0).getAccountId()).isEqualTo(70L);
+		assertThat(count("ACCOUNT")).isEqualTo(1);
+		assertThat(resolver.getAccountIdCache().hits()).isEqualTo(1);
+	}
+
+	@Test
+	void keyInsertedConcurrentlyByAnotherImport_isUsedAfterARetry() throws Exception {
+		// another JVM: its own upsert lock, its own uncommitted insert of the same keys
+		try (Connection other = db.getConnection(); Statement st = other.createStatement()) {
+			other.setAutoCommit(false);
+			st.executeUpdate("INSERT INTO USER_PROFILE (ID, CUSTOMER_ID, FULL_NAME, EMAIL) VALUES (7, 'C1', 'Jane', 'C1@import.local')");
+			st.executeUpdate("INSERT INTO ACCOUNT (ID, ACCOUNT_NUMBER, USER_PROFILE_ID) VALUES (70, '100', 7)");
+
+			Chunk<TransactionInsertRow> rows = Chunk.of(row("100", "C1"));
+			CompletableFuture<Void> resolved = CompletableFuture.runAsync(() -> resolver.resolve(rows));
+			awaitWaitingMerge();
+			other.commit();
+			resolved.get(10, TimeUnit.SECONDS);
+
+			assertThat(rows.getItems().get(0).getAccountId()).isEqualTo(70L);
+			assertThat(count("USER_PROFILE")).isEqualTo(1);
+			assertThat(count("ACCOUNT")).isEqualTo(1);
+		}
+	}
+
+	// H2 leaves BLOCKER_ID empty for row lock waits: the resolver is the session still executing its MERGE
+	private void awaitWaitingMerge() throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (jdbc.queryForObject("""
+				SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS
+				WHERE EXECUTING_STATEMENT LIKE 'MERGE INTO USER_PROFILE%'
+				""", Map.of(), Integer.class) == 0) {
+			assertThat(System.nanoTime()).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private TransactionKeyResolver resolver() {
+		return new TransactionKeyResolver(jdbc, new DataSourceTransactionManager(db),
+				new TransactionImportMetrics(new SimpleMeterRegistry()), 1000);
+	}
+
+	private static TransactionInsertRow row(String accountNumber, String customerId) {
+		return TransactionInsertRow.builder().accountNumber(accountNumber).customerId(customerId).build();
+	}
+
+	private int count(String table) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Map.of(), Integer.class);
+	}
+
+	private String owner(String accountNumber) {
+		return jdbc.queryForObject("""
+				SELECT p.CUSTOMER_ID FROM ACCOUNT a JOIN USER_PROFILE p ON p.ID = a.USER_PROFILE_ID
+				WHERE a.ACCOUNT_NUMBER = :accountNumber
+				""", Map.of("accountNumber", accountNumber), String.class);
+	}
+}
@@ -0,0 +1,124 @@
+package mb.batch.transaction.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mb.batch.transaction.dto.TransactionInsertRow;
+import mb.batch.transaction.util.TransactionImportMetrics;
+import mb.batch.transaction.util.TransactionImportSkipListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.step.StepContribution;
+import org.springframework.batch.core.step.StepExecution;
+import org.springframework.batch.infrastructure.item.Chunk;
+import org.springframework.batch.infrastructure.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class TransactionStreamTaskletTest {
+
+	private static final String RECORD = "8872838283|123.00|FUND TRANSFER|2019-09-12|11:11:11|222";
+
+	@TempDir
+	Path dir;
+
+	StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+	TransactionImportWriter writer = mock(TransactionImportWriter.class);
+	AtomicInteger written = new AtomicInteger();
+	TransactionStreamTasklet tasklet;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		TransactionSynchronizationManager.initSynchronization();
+		doAnswer(inv -> {
+			Chunk<TransactionInsertRow> chunk = inv.getArgument(0);
+			written.addAndGet(chunk.size());
+			return null;
+		}).when(writer).writeBatch(any(), any());
+	}
+
+	@AfterEach
+	void tearDown() {
+		// close() is idempotent
+		if (tasklet != null) tasklet.close();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			// unbinds the chunk contribution of an unfinished batch
+			TransactionSynchronizationManager.getSynchronizations()
+					.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void blankSeparatorLines_areNotRejects_evenBeyondTheSkipLimit() throws Exception {
+		StringBuilder file = new StringBuilder("ACCOUNT_NUMBER|TRX_AMOUNT|DESCRIPTION|TRX_DATE|TRX_TIME|CUSTOMER_ID\n\n");
+		for (int i = 0; i < 20; i++) {
+			file.append(RECORD).append("\n\n");
+		}
+		tasklet = open(file.toString(), 1, 5, 100);
+
+		runUntilWritten(20);
+		tasklet.close();
+
+		assertThat(written).hasValue(20);
+		assertThat(stepExecution.getReadSkipCount()).isZero();
+		// an empty quarantine is deleted on close
+		assertThat(Files.exists(dir.resolve("quarantine.txt"))).isFalse();
+	}
+
+	@Test
+	void skipLimit_appliesPerMicroBatch() throws Exception {
+		StringBuilder file = new StringBuilder();
+		for (int i = 0; i < 5; i++) {
+			file.append("not a record\n").append(RECORD).append('\n');
+		}
+		// at most one bad line in any batch of two lines
+		tasklet = open(file.toString(), 0, 1, 2);
+
+		runUntilWritten(5);
+
+		assertThat(written).hasValue(5);
+		assertThat(stepExecution.getReadSkipCount()).isEqualTo(5);
+	}
+
+	private TransactionStreamTasklet open(String content, int linesToSkip, int skipLimit, int batchSize) throws Exception {
+		Path input = Files.writeString(dir.resolve("stream.txt"), content);
+		TransactionImportMetrics metrics = new TransactionImportMetrics(new SimpleMeterRegistry());
+		RecordQuarantine quarantine = new RecordQuarantine(dir.resolve("quarantine.txt"), stepExecution, metrics, skipLimit);
+		TransactionStreamTasklet t = new TransactionStreamTasklet(input, new TransactionLineParser(null), quarantine,
+				new TransactionImportProcessor(), writer, mock(TransactionImportSkipListener.class),
+				mock(ImportFileStateRepository.class), metrics, linesToSkip, batchSize, 50, 10);
+		t.open(new ExecutionContext());
+		return t;
+	}
+
+	private void runUntilWritten(int rows) throws Exception {
+		StepContribution contribution = stepExecution.createStepContribution();
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (written.get() < rows && System.nanoTime() < deadline) {
+			tasklet.execute(contribution, null);
+			commit();
+		}
+	}
+
+	/** What the TaskletStep's transaction does after each execute. */
+	private static void commit() {
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCommit();
+			synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+		}
+		TransactionSynchronizationManager.clearSynchronization();
+		TransactionSynchronizationManager.initSynchronization();
+	}
+}
@@ -0,0 +1,46 @@
+package mb.batch.transaction.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedIdCacheTest {
+
+	@Test
+	void get_countsHitsAndMisses_peekDoesNot() {
+		BoundedIdCache cache = new BoundedIdCache("accounts", 64);
+
+		assertThat(cache.get("8872838283")).isEqualTo(BoundedIdCache.NO_VALUE);
+		assertThat(cache.peek("8872838283")).isEqualTo(BoundedIdCache.NO_VALUE);
+		cache.put("8872838283", 42L);
+		assertThat(cache.peek("8872838283")).isEqualTo(42L);
+		assertThat(cache.get("8872838283")).isEqualTo(42L);
+
+		assertThat(cache.misses()).isEqualTo(1);
+		assertThat(cache.hits()).isEqualTo(1);
+	}
+
+	@Test
+	void numericKeys_keepLeadingZerosApart_andOtherKeysWork() {
+		BoundedIdCache cache = new BoundedIdCache("customers", 64);
+		cache.put("0222", 1L);
+		cache.put("222", 2L);
+		cache.put("CUST-222", 3L);
+
+		assertThat(cache.get("0222")).isEqualTo(1L);
+		assertThat(cache.get("222")).isEqualTo(2L);
+		assertThat(cache.get("CUST-222")).isEqualTo(3L);
+		assertThat(cache.size()).isEqualTo(3);
+	}
+
+	@Test
+	void moreKeysThanCapacity_evictsInsteadOfGrowing() {
+		BoundedIdCache cache = new BoundedIdCache("accounts", 16);
+		for (int i = 0; i < 1000; i++) {
+			cache.put(String.valueOf(1_000_000 + i), i);
+		}
+
+		assertThat(cache.size()).isEqualTo(cache.capacity());
+		assertThat(cache.evictions()).isEqualTo(1000 - cache.capacity());
+	}
+}
@@ -0,0 +1,93 @@
+package mb.batch.transaction.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExternalLineSorterTest {
+
+	// sort key: the first field
+	private static final Function<String, byte[]> KEY = line -> line.substring(0, line.indexOf('|')).getBytes(StandardCharsets.UTF_8);
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void inputThatFitsOneRun_isNotSpilled() throws Exception {
+		List<String> input = lines(50);
+
+		ExternalLineSorter.Result result = sort(input, 1 << 20, new StringWriter());
+
+		assertThat(result.runs()).isEqualTo(1);
+		assertThat(result.spillBytes()).isZero();
+	}
+
+	@Test
+	void severalRuns_mergeInKeyOrder_stable() throws Exception {
+		List<String> input = lines(500);
+		StringWriter out = new StringWriter();
+
+		// a few lines per run
+		ExternalLineSorter.Result result = sort(input, 400, out);
+
+		assertThat(result.lines()).isEqualTo(500);
+		assertThat(result.runs()).isGreaterThan(1);
+		assertThat(out.toString().lines().toList()).containsExactlyElementsOf(stableSorted(input));
+		assertThat(runFilesLeft()).isEmpty();
+	}
+
+	@Test
+	void moreRunsThanTheFanIn_mergeInSeveralPasses() throws Exception {
+		List<String> input = lines(ExternalLineSorter.MAX_FAN_IN * 3);
+		StringWriter out = new StringWriter();
+
+		// one line per run
+		ExternalLineSorter.Result result = sort(input, 1, out);
+
+		assertThat(result.runs()).isEqualTo(input.size());
+		assertThat(out.toString().lines().toList()).containsExactlyElementsOf(stableSorted(input));
+		assertThat(runFilesLeft()).isEmpty();
+	}
+
+	private ExternalLineSorter.Result sort(List<String> input, long runBytes, StringWriter out) throws Exception {
+		ExternalLineSorter sorter = new ExternalLineSorter(KEY, runBytes, dir);
+		try (BufferedReader in = new BufferedReader(new StringReader(String.join("\n", input)))) {
+			return sorter.sort(in, out);
+		}
+	}
+
+	/** Keys repeat, and the sequence number shows whether equal keys kept their input order. */
+	private static List<String> lines(int count) {
+		List<String> lines = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			lines.add("ACC" + (i * 7919 % 37) + "|" + i);
+		}
+		return lines;
+	}
+
+	private static List<String> stableSorted(List<String> lines) {
+		// List.sort is stable; "ACC1" < "ACC10" < "ACC2" as bytes and as Strings
+		List<String> sorted = new ArrayList<>(lines);
+		sorted.sort(Comparator.comparing(line -> line.substring(0, line.indexOf('|'))));
+		return sorted;
+	}
+
+	private List<Path> runFilesLeft() throws Exception {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.toList();
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package mb.be.common.api;
+
+import java.util.List;
+
+/**
+ * A page of a cursor (keyset) listing. Unlike {@link PageResponse} it has no totals, since none are
+ * counted; {@code nextCursor} fetches the following page and is null on the last one.
+ */
+public record CursorPageResponse<T>(
+		List<T> content,
+		int size,
+		String nextCursor
+) {
+}
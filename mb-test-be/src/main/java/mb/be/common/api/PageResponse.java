@@ -1,6 +1,7 @@
 package mb.be.common.api;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -8,16 +9,63 @@ public record PageResponse<T>(
 		List<T> content,
 		int page,
 		int size,
-		long totalElements,
-		int totalPages
+		Long totalElements,
+		Integer totalPages,
+		boolean hasNext,
+		Total total
 ) {
+	/**
+	 * How far {@code totalElements} and {@code totalPages} can be trusted.
+	 */
+	public enum Total {
+		/** Counted for this response. */
+		EXACT,
+		/** Taken from a recent count of the same filter, so possibly a few writes behind. */
+		APPROXIMATE,
+		/** Not counted: the totals are null and only {@code hasNext} is known. */
+		NONE
+	}
+
 	public static <T> PageResponse<T> from(Page<T> page) {
 		return new PageResponse<>(
 				page.getContent(),
 				page.getNumber(),
 				page.getSize(),
 				page.getTotalElements(),
-				page.getTotalPages()
+				page.getTotalPages(),
+				page.hasNext(),
+				Total.EXACT
+		);
+	}
+
+	public static <T> PageResponse<T> from(Slice<T> slice) {
+		return new PageResponse<>(
+				slice.getContent(),
+				slice.getNumber(),
+				slice.getSize(),
+				null,
+				null,
+				slice.hasNext(),
+				Total.NONE
+		);
+	}
+
+	/**
+	 * A slice with a total counted earlier. The total is raised to what the slice itself proves to
+	 * exist, so that a stale count never ends the paging before {@code hasNext} does.
+	 */
+	public static <T> PageResponse<T> from(Slice<T> slice, long approximateTotal) {
+		long seen = (long) slice.getNumber() * slice.getSize() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+		long total = Math.max(approximateTotal, seen);
+		int totalPages = slice.getSize() == 0 ? 1 : (int) Math.ceil((double) total / slice.getSize());
+		return new PageResponse<>(
+				slice.getContent(),
+				slice.getNumber(),
+				slice.getSize(),
+				total,
+				totalPages,
+				slice.hasNext(),
+				Total.APPROXIMATE
 		);
 	}
 }
@@ -1,10 +1,13 @@
 package mb.be.transaction.controller;
 
 import mb.be.common.api.ApiResponse;
+import mb.be.common.api.CursorPageResponse;
 import mb.be.common.api.PageResponse;
 import mb.be.common.logging.LogUtils;
 import mb.be.transaction.dto.CreateTransactionRequest;
 import mb.be.transaction.dto.DailySummaryResponse;
+import mb.be.transaction.dto.SummaryGranularity;
+import mb.be.transaction.dto.SummarySeriesResponse;
 import mb.be.transaction.dto.TransactionResponse;
 import mb.be.transaction.dto.UpdateTransactionDescriptionRequest;
 import mb.be.transaction.service.TransactionService;
@@ -17,6 +20,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Duration;
 import java.time.LocalDate;
@@ -46,6 +50,10 @@ public class TransactionController {
                 .body(ApiResponse.success("Transaction created successfully", created));
     }
 
+    /**
+     * {@code total} chooses what the totals cost: EXACT counts with every page, NONE skips the count
+     * (only {@code hasNext}), APPROXIMATE takes it from the count cache of {@link #count}.
+     */
     @GetMapping("/transactions")
     public ResponseEntity<ApiResponse<PageResponse<TransactionResponse>>> search(
             @RequestParam(required = false) String customerId,
@@ -53,6 +61,7 @@ public class TransactionController {
             @RequestParam(required = false) String description,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "EXACT") PageResponse.Total total,
             Pageable pageable
     ) {
         final long startNanos = System.nanoTime();
@@ -60,18 +69,26 @@ public class TransactionController {
         final boolean hasCustomerId = customerId != null && !customerId.isBlank();
         final boolean hasDesc = description != null && !description.isBlank();
 
-        log.info("Search transactions requested customerIdPresent={} accountNumbersCount={} descriptionPresent={} fromDate={} toDate={} page={} size={} sort={}",
-                hasCustomerId, accCount, hasDesc, fromDate, toDate,
+        log.info("Search transactions requested customerIdPresent={} accountNumbersCount={} descriptionPresent={} fromDate={} toDate={} total={} page={} size={} sort={}",
+                hasCustomerId, accCount, hasDesc, fromDate, toDate, total,
                 pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
 
         try {
-            Page<TransactionResponse> page = service.search(customerId, accountNumbers, description, fromDate, toDate, pageable);
+            PageResponse<TransactionResponse> page = switch (total) {
+                case EXACT -> PageResponse.from(
+                        service.search(customerId, accountNumbers, description, fromDate, toDate, pageable));
+                case NONE -> PageResponse.from(
+                        service.searchSlice(customerId, accountNumbers, description, fromDate, toDate, pageable));
+                case APPROXIMATE -> PageResponse.from(
+                        service.searchSlice(customerId, accountNumbers, description, fromDate, toDate, pageable),
+                        service.countSearch(customerId, accountNumbers, description, fromDate, toDate));
+            };
 
             long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
-            log.info("Search transactions succeeded totalElements={} totalPages={} tookMs={}",
-                    page.getTotalElements(), page.getTotalPages(), tookMs);
+            log.info("Search transactions succeeded total={} totalElements={} totalPages={} hasNext={} tookMs={}",
+                    page.total(), page.totalElements(), page.totalPages(), page.hasNext(), tookMs);
 
-            return ResponseEntity.ok(ApiResponse.success("Transactions fetched successfully", PageResponse.from(page)));
+            return ResponseEntity.ok(ApiResponse.success("Transactions fetched successfully", page));
         } catch (RuntimeException ex) {
             long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
             log.warn("Search transactions failed tookMs={} error={}", tookMs, ex.getClass().getSimpleName(), ex);
@@ -79,6 +96,75 @@ public class TransactionController {
         }
     }
 
+    /**
+     * Number of transactions {@link #search} finds for the same filter. Cached for a short time and
+     * dropped when transactions of a matching account are written here.
+     */
+    @GetMapping("/transactions/count")
+    public ResponseEntity<ApiResponse<Long>> count(
+            @RequestParam(required = false) String customerId,
+            @RequestParam(required = false, name = "accountNumber") List<String> accountNumbers,
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate
+    ) {
+        final long startNanos = System.nanoTime();
+
+        log.info("Count transactions requested customerIdPresent={} accountNumbersCount={} descriptionPresent={} fromDate={} toDate={}",
+                customerId != null && !customerId.isBlank(), accountNumbers == null ? 0 : accountNumbers.size(),
+                description != null && !description.isBlank(), fromDate, toDate);
+
+        try {
+            long count = service.countSearch(customerId, accountNumbers, description, fromDate, toDate);
+
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.info("Count transactions succeeded count={} tookMs={}", count, tookMs);
+
+            return ResponseEntity.ok(ApiResponse.success("Transactions counted successfully", count));
+        } catch (RuntimeException ex) {
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.warn("Count transactions failed tookMs={} error={}", tookMs, ex.getClass().getSimpleName(), ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Cursor mode of {@link #search}, selected by the {@code cursor} parameter (empty for the first
+     * page): newest first, no totals, and a {@code nextCursor} to pass on for the following page.
+     */
+    @GetMapping(value = "/transactions", params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<TransactionResponse>>> searchByCursor(
+            @RequestParam(required = false) String customerId,
+            @RequestParam(required = false, name = "accountNumber") List<String> accountNumbers,
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        final long startNanos = System.nanoTime();
+        final int accCount = (accountNumbers == null) ? 0 : accountNumbers.size();
+        final boolean hasCustomerId = customerId != null && !customerId.isBlank();
+        final boolean hasDesc = description != null && !description.isBlank();
+
+        log.info("Search transactions by cursor requested customerIdPresent={} accountNumbersCount={} descriptionPresent={} fromDate={} toDate={} cursorPresent={} size={}",
+                hasCustomerId, accCount, hasDesc, fromDate, toDate, !cursor.isBlank(), size);
+
+        try {
+            CursorPageResponse<TransactionResponse> page =
+                    service.searchAfter(customerId, accountNumbers, description, fromDate, toDate, cursor, size);
+
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.info("Search transactions by cursor succeeded returned={} hasNext={} tookMs={}",
+                    page.content().size(), page.nextCursor() != null, tookMs);
+
+            return ResponseEntity.ok(ApiResponse.success("Transactions fetched successfully", page));
+        } catch (RuntimeException ex) {
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.warn("Search transactions by cursor failed tookMs={} error={}", tookMs, ex.getClass().getSimpleName(), ex);
+            throw ex;
+        }
+    }
 
     @GetMapping("/transactions/{id}")
     public ResponseEntity<ApiResponse<TransactionResponse>> getById(@PathVariable Long id) {
@@ -162,6 +248,40 @@ public class TransactionController {
         }
     }
 
+    /**
+     * Cursor mode of {@link #listByAccount}, see {@link #searchByCursor}.
+     */
+    @GetMapping(value = "/accounts/{accountNumber}/transactions", params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<TransactionResponse>>> listByAccountByCursor(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        final long startNanos = System.nanoTime();
+        final String maskedAcc = LogUtils.maskAccountNumber(accountNumber);
+
+        log.info("List transactions by cursor requested accountNumber={} fromDate={} toDate={} cursorPresent={} size={}",
+                maskedAcc, fromDate, toDate, !cursor.isBlank(), size);
+
+        try {
+            CursorPageResponse<TransactionResponse> page =
+                    service.listByAccountAfter(accountNumber, fromDate, toDate, cursor, size);
+
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.info("List transactions by cursor succeeded accountNumber={} returned={} hasNext={} tookMs={}",
+                    maskedAcc, page.content().size(), page.nextCursor() != null, tookMs);
+
+            return ResponseEntity.ok(ApiResponse.success("Transactions fetched successfully", page));
+        } catch (RuntimeException ex) {
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.warn("List transactions by cursor failed accountNumber={} tookMs={} error={}",
+                    maskedAcc, tookMs, ex.getClass().getSimpleName(), ex);
+            throw ex;
+        }
+    }
+
     @GetMapping("/accounts/{accountNumber}/transactions/summary/daily")
     public ResponseEntity<ApiResponse<DailySummaryResponse>> dailySummary(
             @PathVariable String accountNumber,
@@ -187,4 +307,40 @@ public class TransactionController {
         }
     }
 
+    @GetMapping("/accounts/{accountNumber}/transactions/summary")
+    public ResponseEntity<ApiResponse<SummarySeriesResponse>> summarySeries(
+            @PathVariable String accountNumber,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity
+    ) {
+        final long startNanos = System.nanoTime();
+        final String maskedAcc = LogUtils.maskAccountNumber(accountNumber);
+
+        log.info("Summary series requested accountNumber={} from={} to={} granularity={}",
+                maskedAcc, from, to, granularity);
+
+        try {
+            SummaryGranularity parsed;
+            try {
+                parsed = SummaryGranularity.parse(granularity);
+            } catch (IllegalArgumentException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "granularity must be day, week or month");
+            }
+
+            SummarySeriesResponse series = service.summarySeries(accountNumber, from, to, parsed);
+
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.info("Summary series succeeded accountNumber={} buckets={} tookMs={}",
+                    maskedAcc, series.buckets().size(), tookMs);
+
+            return ResponseEntity.ok(ApiResponse.success("Transaction summary series fetched successfully", series));
+        } catch (RuntimeException ex) {
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.warn("Summary series failed accountNumber={} tookMs={} error={}",
+                    maskedAcc, tookMs, ex.getClass().getSimpleName(), ex);
+            throw ex;
+        }
+    }
+
 }
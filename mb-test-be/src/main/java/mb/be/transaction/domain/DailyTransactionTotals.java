@@ -0,0 +1,10 @@
+package mb.be.transaction.domain;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * {@link TransactionTotals} of one day, a row of a GROUP BY trxDate.
+ */
+public record DailyTransactionTotals(LocalDate trxDate, Long transactionCount, BigDecimal totalAmount) {
+}
@@ -10,7 +10,11 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "transaction")
+@Table(
+        name = "transaction",
+        // natural-key lookups of the batch importer (incremental mode dedup)
+        indexes = @Index(name = "idx_transaction_account_date_time", columnList = "account_id, trx_date, trx_time")
+)
 @Getter
 @Setter
 @NoArgsConstructor
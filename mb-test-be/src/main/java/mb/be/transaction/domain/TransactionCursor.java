@@ -0,0 +1,48 @@
+package mb.be.transaction.domain;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in the newest-first transaction order: the (trxDate, trxTime, id) of the last row
+ * of a page. Clients only ever see it {@link #encode() encoded}, as an opaque string.
+ */
+public record TransactionCursor(LocalDate trxDate, LocalTime trxTime, Long id) {
+
+	/**
+	 * Order of cursor pages; the id makes it total, so that no row is skipped or repeated on a tie.
+	 */
+	public static final Sort ORDER = Sort.by(
+			Sort.Order.desc("trxDate"),
+			Sort.Order.desc("trxTime"),
+			Sort.Order.desc("id"));
+
+	public static TransactionCursor of(Transaction tx) {
+		return new TransactionCursor(tx.getTrxDate(), tx.getTrxTime(), tx.getId());
+	}
+
+	public String encode() {
+		String raw = trxDate + "|" + trxTime + "|" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @throws IllegalArgumentException if {@code cursor} was not produced by {@link #encode()}
+	 */
+	public static TransactionCursor decode(String cursor) {
+		String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+		if (parts.length != 3) {
+			throw new IllegalArgumentException("Malformed cursor");
+		}
+		try {
+			return new TransactionCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.parseLong(parts[2]));
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Malformed cursor", e);
+		}
+	}
+}
@@ -2,12 +2,17 @@ package mb.be.transaction.domain;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.List;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction>,
+        TransactionRepositoryCustom {
 
     Page<Transaction> findByAccount_AccountNumber(String accountNumber, Pageable pageable);
 
@@ -17,4 +22,39 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
             LocalDate toDate,
             Pageable pageable
     );
+
+    @Query("""
+            select new mb.be.transaction.domain.TransactionTotals(count(t), sum(t.amount))
+            from Transaction t
+            where t.account.accountNumber = :accountNumber and t.trxDate between :fromDate and :toDate
+            """)
+    TransactionTotals sumByAccountAndTrxDateBetween(
+            @Param("accountNumber") String accountNumber,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate
+    );
+
+    /**
+     * Totals per day that has transactions, in date order.
+     */
+    @Query("""
+            select new mb.be.transaction.domain.DailyTransactionTotals(t.trxDate, count(t), sum(t.amount))
+            from Transaction t
+            where t.account.accountNumber = :accountNumber and t.trxDate between :fromDate and :toDate
+            group by t.trxDate
+            order by t.trxDate
+            """)
+    List<DailyTransactionTotals> sumByAccountPerDay(
+            @Param("accountNumber") String accountNumber,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate
+    );
+
+    /**
+     * The first {@code limit} rows matching {@code spec} in {@link TransactionCursor#ORDER}. Meant for
+     * keyset pages ({@link TransactionSpecifications#before}): a single LIMIT query, no count.
+     */
+    default List<Transaction> findKeysetPage(Specification<Transaction> spec, int limit) {
+        return findBy(spec, query -> query.sortBy(TransactionCursor.ORDER).limit(limit).all());
+    }
 }
@@ -0,0 +1,14 @@
+package mb.be.transaction.domain;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface TransactionRepositoryCustom {
+
+    /**
+     * Like {@code findAll(spec, pageable)} but without the count query: fetches one row more than
+     * the page to tell whether there is a next one.
+     */
+    Slice<Transaction> findSlice(Specification<Transaction> spec, Pageable pageable);
+}
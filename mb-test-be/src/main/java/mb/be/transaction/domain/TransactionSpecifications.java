@@ -2,7 +2,10 @@ package mb.be.transaction.domain;
 
 import org.springframework.data.jpa.domain.Specification;
 
+import jakarta.persistence.criteria.Path;
+
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 public final class TransactionSpecifications {
@@ -16,6 +19,10 @@ public final class TransactionSpecifications {
 						: cb.equal(root.get("customerId"), customerId);
 	}
 
+	public static Specification<Transaction> accountNumberEquals(String accountNumber) {
+		return (root, query, cb) -> cb.equal(root.get("account").get("accountNumber"), accountNumber);
+	}
+
 	public static Specification<Transaction> accountNumberIn(List<String> accountNumbers) {
 		return (root, query, cb) -> {
 			if (accountNumbers == null || accountNumbers.isEmpty()) return cb.conjunction();
@@ -39,4 +46,27 @@ public final class TransactionSpecifications {
 			return cb.lessThanOrEqualTo(root.get("trxDate"), to);
 		};
 	}
+
+	/**
+	 * Rows after {@code cursor} in {@link TransactionCursor#ORDER}, i.e.
+	 * {@code (trxDate, trxTime, id) < cursor}; everything if {@code cursor} is null. The redundant
+	 * {@code trxDate <= cursor.trxDate} bound lets the database start on the date index instead of
+	 * evaluating the OR for each row before the cursor.
+	 */
+	public static Specification<Transaction> before(TransactionCursor cursor) {
+		return (root, query, cb) -> {
+			if (cursor == null) return cb.conjunction();
+			Path<LocalDate> date = root.get("trxDate");
+			Path<LocalTime> time = root.get("trxTime");
+			Path<Long> id = root.get("id");
+			return cb.and(
+					cb.lessThanOrEqualTo(date, cursor.trxDate()),
+					cb.or(
+							cb.lessThan(date, cursor.trxDate()),
+							cb.and(cb.equal(date, cursor.trxDate()), cb.lessThan(time, cursor.trxTime())),
+							cb.and(cb.equal(date, cursor.trxDate()), cb.equal(time, cursor.trxTime()), cb.lessThan(id, cursor.id()))
+					)
+			);
+		};
+	}
 }
@@ -0,0 +1,14 @@
+package mb.be.transaction.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * Number and sum of amounts of a set of transactions, as aggregated by the database.
+ */
+public record TransactionTotals(Long transactionCount, BigDecimal totalAmount) {
+
+	public TransactionTotals {
+		// SUM over no rows is NULL
+		if (totalAmount == null) totalAmount = BigDecimal.ZERO;
+	}
+}
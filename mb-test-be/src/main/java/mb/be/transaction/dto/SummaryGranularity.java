@@ -0,0 +1,44 @@
+package mb.be.transaction.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * Period length of a transaction summary series. Weeks are ISO weeks, starting on Monday.
+ */
+public enum SummaryGranularity {
+	DAY,
+	WEEK,
+	MONTH;
+
+	/**
+	 * @throws IllegalArgumentException if {@code value} is not day, week or month (in any case)
+	 */
+	public static SummaryGranularity parse(String value) {
+		return valueOf(value.trim().toUpperCase(Locale.ROOT));
+	}
+
+	/**
+	 * First day of the period that contains {@code date}.
+	 */
+	public LocalDate periodStart(LocalDate date) {
+		return switch (this) {
+			case DAY -> date;
+			case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+			case MONTH -> date.withDayOfMonth(1);
+		};
+	}
+
+	/**
+	 * First day of the period after the one starting at {@code periodStart}.
+	 */
+	public LocalDate nextPeriodStart(LocalDate periodStart) {
+		return switch (this) {
+			case DAY -> periodStart.plusDays(1);
+			case WEEK -> periodStart.plusWeeks(1);
+			case MONTH -> periodStart.plusMonths(1);
+		};
+	}
+}
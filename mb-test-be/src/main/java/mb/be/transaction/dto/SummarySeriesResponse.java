@@ -0,0 +1,29 @@
+package mb.be.transaction.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Transaction totals of an account per period, one bucket for every period between {@code from}
+ * and {@code to} (empty ones included). The first and last bucket are cut to the requested range.
+ */
+@Builder
+public record SummarySeriesResponse(
+		String accountNumber,
+		LocalDate from,
+		LocalDate to,
+		SummaryGranularity granularity,
+		List<Bucket> buckets
+) {
+	@Builder
+	public record Bucket(
+			LocalDate periodStart,
+			LocalDate periodEnd,
+			BigDecimal totalAmount,
+			long transactionCount
+	) {
+	}
+}
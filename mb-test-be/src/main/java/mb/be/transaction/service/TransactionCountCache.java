@@ -0,0 +1,113 @@
+package mb.be.transaction.service;
+
+import lombok.extern.slf4j.Slf4j;
+import mb.be.common.logging.LogUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of transaction search counts, keyed by the normalized filter. Writes through
+ * this application drop the entries that can include the written account once they commit; rows
+ * imported by the batch job only show up when an entry expires, after {@code ttl}.
+ */
+@Slf4j
+@Component
+public class TransactionCountCache {
+
+    /**
+     * A search filter in normalized form: blank means absent, account numbers are a sorted set and
+     * the description matches case-insensitively anyway.
+     */
+    public record Key(String customerId, List<String> accountNumbers, String description, LocalDate fromDate, LocalDate toDate) {
+
+        public static Key of(String customerId, List<String> accountNumbers, String description,
+                             LocalDate fromDate, LocalDate toDate) {
+            return new Key(
+                    customerId == null || customerId.isBlank() ? null : customerId,
+                    accountNumbers == null ? List.of() : accountNumbers.stream().distinct().sorted().toList(),
+                    description == null || description.isBlank() ? null : description.toLowerCase(Locale.ROOT),
+                    fromDate,
+                    toDate
+            );
+        }
+
+        boolean covers(String accountNumber) {
+            return accountNumbers.isEmpty() || accountNumbers.contains(accountNumber);
+        }
+    }
+
+    private record Entry(long count, long expiresAtNanos) {
+    }
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // bumped by every invalidation: a count that ran across one may be stale and is not stored
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public TransactionCountCache(
+            @Value("${app.transactions.count-cache.ttl:30s}") Duration ttl,
+            @Value("${app.transactions.count-cache.max-entries:1000}") int maxEntries
+    ) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The cached count for {@code key}, or the result of {@code counter} (which is then cached).
+     */
+    public long get(Key key, LongSupplier counter) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAtNanos() - now > 0) {
+            return entry.count();
+        }
+
+        long gen = generation.get();
+        long count = counter.getAsLong();
+        if (gen == generation.get()) {
+            if (entries.size() >= maxEntries) {
+                entries.values().removeIf(e -> e.expiresAtNanos() - now <= 0);
+                if (entries.size() >= maxEntries) entries.clear();
+            }
+            entries.put(key, new Entry(count, now + ttlNanos));
+        }
+        return count;
+    }
+
+    /**
+     * Drops the counts that may include {@code accountNumber}, after the current transaction commits
+     * (or right away outside of one).
+     */
+    public void invalidateAccount(String accountNumber) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(accountNumber);
+                }
+            });
+        } else {
+            evict(accountNumber);
+        }
+    }
+
+    private void evict(String accountNumber) {
+        generation.incrementAndGet();
+        int before = entries.size();
+        entries.keySet().removeIf(key -> key.covers(accountNumber));
+        log.debug("Count cache invalidated accountNumber={} evicted={}",
+                LogUtils.maskAccountNumber(accountNumber), before - entries.size());
+    }
+}
@@ -1,10 +1,14 @@
 package mb.be.transaction.service;
 
+import mb.be.common.api.CursorPageResponse;
 import mb.be.transaction.dto.CreateTransactionRequest;
 import mb.be.transaction.dto.DailySummaryResponse;
+import mb.be.transaction.dto.SummaryGranularity;
+import mb.be.transaction.dto.SummarySeriesResponse;
 import mb.be.transaction.dto.TransactionResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -18,9 +22,39 @@ public interface TransactionService {
     Page<TransactionResponse> search(String customerId, List<String> accountNumbers, String description,
                                      LocalDate fromDate, LocalDate toDate, Pageable pageable);
 
+    /**
+     * {@link #search} without the count query: only tells whether there is a next page.
+     */
+    Slice<TransactionResponse> searchSlice(String customerId, List<String> accountNumbers, String description,
+                                           LocalDate fromDate, LocalDate toDate, Pageable pageable);
+
+    /**
+     * Number of transactions {@link #search} finds for the filter, served from a short-lived cache.
+     */
+    long countSearch(String customerId, List<String> accountNumbers, String description,
+                     LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * Keyset variant of {@link #listByAccount}: newest first, {@code size} rows after {@code cursor}
+     * (null or blank: the first page), without counting the rest.
+     */
+    CursorPageResponse<TransactionResponse> listByAccountAfter(String accountNumber, LocalDate fromDate, LocalDate toDate,
+                                                               String cursor, int size);
+
+    /**
+     * Keyset variant of {@link #search}, see {@link #listByAccountAfter}.
+     */
+    CursorPageResponse<TransactionResponse> searchAfter(String customerId, List<String> accountNumbers, String description,
+                                                        LocalDate fromDate, LocalDate toDate, String cursor, int size);
+
     TransactionResponse getById(Long id);
 
     TransactionResponse updateDescription(Long id, String description, String ifMatch);
 
     DailySummaryResponse dailySummary(String accountNumber, LocalDate date);
+
+    /**
+     * Totals of the account per {@code granularity} period from {@code from} to {@code to} (inclusive).
+     */
+    SummarySeriesResponse summarySeries(String accountNumber, LocalDate from, LocalDate to, SummaryGranularity granularity);
 }
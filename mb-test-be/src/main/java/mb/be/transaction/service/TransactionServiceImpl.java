@@ -2,13 +2,19 @@ package mb.be.transaction.service;
 
 import mb.be.account.domain.Account;
 import mb.be.account.domain.AccountRepository;
+import mb.be.common.api.CursorPageResponse;
 import mb.be.common.exception.NotFoundException;
 import mb.be.common.logging.LogUtils;
+import mb.be.transaction.domain.DailyTransactionTotals;
 import mb.be.transaction.domain.Transaction;
+import mb.be.transaction.domain.TransactionCursor;
 import mb.be.transaction.domain.TransactionRepository;
 import mb.be.transaction.domain.TransactionSpecifications;
+import mb.be.transaction.domain.TransactionTotals;
 import mb.be.transaction.dto.CreateTransactionRequest;
 import mb.be.transaction.dto.DailySummaryResponse;
+import mb.be.transaction.dto.SummaryGranularity;
+import mb.be.transaction.dto.SummarySeriesResponse;
 import mb.be.transaction.dto.TransactionResponse;
 import mb.be.transaction.mapper.TransactionMapper;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +22,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -26,6 +33,7 @@ import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -34,9 +42,16 @@ import java.util.List;
 @Transactional(readOnly = true)
 public class TransactionServiceImpl implements TransactionService {
 
+    // same cap as the offset endpoints get from spring.data.web.pageable.max-page-size (default 2000)
+    private static final int MAX_CURSOR_PAGE_SIZE = 2000;
+
+    // e.g. daily buckets for a little over two and a half years
+    private static final int MAX_SUMMARY_BUCKETS = 1000;
+
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
     private final TransactionMapper transactionMapper;
+    private final TransactionCountCache countCache;
 
     @Override
     @Transactional
@@ -52,6 +67,7 @@ public class TransactionServiceImpl implements TransactionService {
 
             Transaction entity = transactionMapper.toEntity(request, account);
             Transaction saved = transactionRepository.save(entity);
+            countCache.invalidateAccount(request.accountNumber());
 
             long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
             log.info("Create api (service) ok accountNumber={} tookMs={}", maskedAcc, tookMs);
@@ -112,11 +128,7 @@ public class TransactionServiceImpl implements TransactionService {
                 pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
 
         try {
-            Specification<Transaction> spec = Specification
-                    .where(TransactionSpecifications.customerIdEquals(customerId))
-                    .and(TransactionSpecifications.accountNumberIn(accountNumbers))
-                    .and(TransactionSpecifications.descriptionContains(description))
-                    .and(TransactionSpecifications.trxDateBetween(fromDate, toDate));
+            Specification<Transaction> spec = searchSpec(customerId, accountNumbers, description, fromDate, toDate);
 
             Page<TransactionResponse> page = transactionRepository.findAll(spec, pageable)
                     .map(transactionMapper::toResponse);
@@ -135,6 +147,181 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
 
+    @Override
+    public Slice<TransactionResponse> searchSlice(
+            String customerId,
+            List<String> accountNumbers,
+            String description,
+            LocalDate fromDate,
+            LocalDate toDate,
+            Pageable pageable
+    ) {
+        final long startNanos = System.nanoTime();
+
+        log.info("Search transactions slice (service) start customerIdPresent={} accountNumbersCount={} descriptionPresent={} fromDate={} toDate={} page={} size={} sort={}",
+                customerId != null && !customerId.isBlank(), accountNumbers == null ? 0 : accountNumbers.size(),
+                description != null && !description.isBlank(), fromDate, toDate,
+                pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
+
+        try {
+            Slice<TransactionResponse> slice = transactionRepository
+                    .findSlice(searchSpec(customerId, accountNumbers, description, fromDate, toDate), pageable)
+                    .map(transactionMapper::toResponse);
+
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.info("Search transactions slice (service) ok returned={} hasNext={} tookMs={}",
+                    slice.getNumberOfElements(), slice.hasNext(), tookMs);
+
+            return slice;
+        } catch (RuntimeException ex) {
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.warn("Search transactions slice (service) failed tookMs={} error={}",
+                    tookMs, ex.getClass().getSimpleName(), ex);
+            throw ex;
+        }
+    }
+
+    @Override
+    public long countSearch(
+            String customerId,
+            List<String> accountNumbers,
+            String description,
+            LocalDate fromDate,
+            LocalDate toDate
+    ) {
+        final long startNanos = System.nanoTime();
+        TransactionCountCache.Key key = TransactionCountCache.Key.of(customerId, accountNumbers, description, fromDate, toDate);
+
+        try {
+            long count = countCache.get(key, () ->
+                    transactionRepository.count(searchSpec(customerId, accountNumbers, description, fromDate, toDate)));
+
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.info("Count transactions (service) ok count={} tookMs={}", count, tookMs);
+
+            return count;
+        } catch (RuntimeException ex) {
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.warn("Count transactions (service) failed tookMs={} error={}",
+                    tookMs, ex.getClass().getSimpleName(), ex);
+            throw ex;
+        }
+    }
+
+    private static Specification<Transaction> searchSpec(
+            String customerId,
+            List<String> accountNumbers,
+            String description,
+            LocalDate fromDate,
+            LocalDate toDate
+    ) {
+        return Specification
+                .where(TransactionSpecifications.customerIdEquals(customerId))
+                .and(TransactionSpecifications.accountNumberIn(accountNumbers))
+                .and(TransactionSpecifications.descriptionContains(description))
+                .and(TransactionSpecifications.trxDateBetween(fromDate, toDate));
+    }
+
+    @Override
+    public CursorPageResponse<TransactionResponse> listByAccountAfter(
+            String accountNumber,
+            LocalDate fromDate,
+            LocalDate toDate,
+            String cursor,
+            int size
+    ) {
+        final long startNanos = System.nanoTime();
+        final String maskedAcc = LogUtils.maskAccountNumber(accountNumber);
+
+        log.info("List transactions by cursor (service) start accountNumber={} fromDate={} toDate={} cursorPresent={} size={}",
+                maskedAcc, fromDate, toDate, cursor != null && !cursor.isBlank(), size);
+
+        try {
+            Specification<Transaction> spec = Specification
+                    .where(TransactionSpecifications.accountNumberEquals(accountNumber))
+                    .and(TransactionSpecifications.trxDateBetween(fromDate, toDate));
+
+            CursorPageResponse<TransactionResponse> page = findKeysetPage(spec, cursor, size);
+
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.info("List transactions by cursor (service) ok accountNumber={} returned={} hasNext={} tookMs={}",
+                    maskedAcc, page.content().size(), page.nextCursor() != null, tookMs);
+
+            return page;
+        } catch (RuntimeException ex) {
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.warn("List transactions by cursor (service) failed accountNumber={} tookMs={} error={}",
+                    maskedAcc, tookMs, ex.getClass().getSimpleName(), ex);
+            throw ex;
+        }
+    }
+
+    @Override
+    public CursorPageResponse<TransactionResponse> searchAfter(
+            String customerId,
+            List<String> accountNumbers,
+            String description,
+            LocalDate fromDate,
+            LocalDate toDate,
+            String cursor,
+            int size
+    ) {
+        final long startNanos = System.nanoTime();
+        final boolean hasCustomerId = customerId != null && !customerId.isBlank();
+        final int accCount = accountNumbers == null ? 0 : accountNumbers.size();
+        final boolean hasDesc = description != null && !description.isBlank();
+
+        log.info("Search transactions by cursor (service) start customerIdPresent={} accountNumbersCount={} descriptionPresent={} fromDate={} toDate={} cursorPresent={} size={}",
+                hasCustomerId, accCount, hasDesc, fromDate, toDate, cursor != null && !cursor.isBlank(), size);
+
+        try {
+            Specification<Transaction> spec = searchSpec(customerId, accountNumbers, description, fromDate, toDate);
+
+            CursorPageResponse<TransactionResponse> page = findKeysetPage(spec, cursor, size);
+
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.info("Search transactions by cursor (service) ok returned={} hasNext={} tookMs={}",
+                    page.content().size(), page.nextCursor() != null, tookMs);
+
+            return page;
+        } catch (RuntimeException ex) {
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.warn("Search transactions by cursor (service) failed tookMs={} error={}",
+                    tookMs, ex.getClass().getSimpleName(), ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Fetches one row more than the page holds: whether it exists tells if there is a next page,
+     * so nothing has to be counted.
+     */
+    private CursorPageResponse<TransactionResponse> findKeysetPage(Specification<Transaction> spec, String cursor, int size) {
+        int limit = Math.clamp(size, 1, MAX_CURSOR_PAGE_SIZE);
+        TransactionCursor after = (cursor == null || cursor.isBlank()) ? null : parseCursor(cursor);
+
+        List<Transaction> rows = transactionRepository.findKeysetPage(
+                spec.and(TransactionSpecifications.before(after)), limit + 1);
+
+        boolean hasNext = rows.size() > limit;
+        List<Transaction> content = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? TransactionCursor.of(content.getLast()).encode() : null;
+
+        return new CursorPageResponse<>(
+                content.stream().map(transactionMapper::toResponse).toList(),
+                limit,
+                nextCursor
+        );
+    }
+
+    private static TransactionCursor parseCursor(String cursor) {
+        try {
+            return TransactionCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
     @Override
     public TransactionResponse getById(Long id) {
         final long startNanos = System.nanoTime();
@@ -194,6 +381,8 @@ public class TransactionServiceImpl implements TransactionService {
             tx.setUpdatedAt(LocalDateTime.now());
 
             Transaction saved = transactionRepository.save(tx);
+            // the description filter may match it differently now
+            countCache.invalidateAccount(tx.getAccount().getAccountNumber());
 
             long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
             long newVersion = saved.getVersion() == null ? -1L : saved.getVersion();
@@ -234,15 +423,10 @@ public class TransactionServiceImpl implements TransactionService {
         log.info("Daily summary (service) start accountNumber={} date={}", maskedAcc, date);
 
         try {
-            var page = transactionRepository.findByAccount_AccountNumberAndTrxDateBetween(
-                    accountNumber, date, date, Pageable.unpaged()
-            );
-
-            BigDecimal total = page.getContent().stream()
-                    .map(Transaction::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            TransactionTotals totals = transactionRepository.sumByAccountAndTrxDateBetween(accountNumber, date, date);
 
-            long count = page.getTotalElements();
+            BigDecimal total = totals.totalAmount();
+            long count = totals.transactionCount();
 
             long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
             log.info("Daily summary (service) ok accountNumber={} date={} count={} totalAmount={} tookMs={}",
@@ -262,4 +446,68 @@ public class TransactionServiceImpl implements TransactionService {
         }
     }
 
+    @Override
+    public SummarySeriesResponse summarySeries(String accountNumber, LocalDate from, LocalDate to, SummaryGranularity granularity) {
+        final long startNanos = System.nanoTime();
+        final String maskedAcc = LogUtils.maskAccountNumber(accountNumber);
+
+        log.info("Summary series (service) start accountNumber={} from={} to={} granularity={}",
+                maskedAcc, from, to, granularity);
+
+        if (from.isAfter(to)) {
+            log.warn("Summary series (service) rejected accountNumber={} reason=from_after_to", maskedAcc);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+
+        List<LocalDate> periodStarts = new ArrayList<>();
+        for (LocalDate p = granularity.periodStart(from); !p.isAfter(to); p = granularity.nextPeriodStart(p)) {
+            if (periodStarts.size() == MAX_SUMMARY_BUCKETS) {
+                log.warn("Summary series (service) rejected accountNumber={} reason=too_many_buckets", maskedAcc);
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "More than " + MAX_SUMMARY_BUCKETS + " periods, use a shorter range or a coarser granularity");
+            }
+            periodStarts.add(p);
+        }
+
+        try {
+            // the database groups by day; days are few enough to roll up into weeks and months here
+            List<DailyTransactionTotals> days = transactionRepository.sumByAccountPerDay(accountNumber, from, to);
+
+            List<SummarySeriesResponse.Bucket> buckets = new ArrayList<>(periodStarts.size());
+            int day = 0;
+            for (LocalDate periodStart : periodStarts) {
+                LocalDate next = granularity.nextPeriodStart(periodStart);
+                BigDecimal total = BigDecimal.ZERO;
+                long count = 0;
+                for (; day < days.size() && days.get(day).trxDate().isBefore(next); day++) {
+                    total = total.add(days.get(day).totalAmount());
+                    count += days.get(day).transactionCount();
+                }
+                buckets.add(SummarySeriesResponse.Bucket.builder()
+                        .periodStart(periodStart.isBefore(from) ? from : periodStart)
+                        .periodEnd(next.isAfter(to) ? to : next.minusDays(1))
+                        .totalAmount(total)
+                        .transactionCount(count)
+                        .build());
+            }
+
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.info("Summary series (service) ok accountNumber={} buckets={} activeDays={} tookMs={}",
+                    maskedAcc, buckets.size(), days.size(), tookMs);
+
+            return SummarySeriesResponse.builder()
+                    .accountNumber(accountNumber)
+                    .from(from)
+                    .to(to)
+                    .granularity(granularity)
+                    .buckets(buckets)
+                    .build();
+        } catch (RuntimeException ex) {
+            long tookMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            log.warn("Summary series (service) failed accountNumber={} tookMs={} error={}",
+                    maskedAcc, tookMs, ex.getClass().getSimpleName(), ex);
+            throw ex;
+        }
+    }
+
 }
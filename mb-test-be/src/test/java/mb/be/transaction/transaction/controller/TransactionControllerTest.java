@@ -1,9 +1,12 @@
 package mb.be.transaction.transaction.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import mb.be.common.api.CursorPageResponse;
 import mb.be.transaction.controller.TransactionController;
 import mb.be.transaction.dto.CreateTransactionRequest;
 import mb.be.transaction.dto.DailySummaryResponse;
+import mb.be.transaction.dto.SummaryGranularity;
+import mb.be.transaction.dto.SummarySeriesResponse;
 import mb.be.transaction.dto.TransactionResponse;
 import mb.be.transaction.dto.UpdateTransactionDescriptionRequest;
 import mb.be.transaction.service.TransactionService;
@@ -14,7 +17,9 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -114,6 +119,69 @@ class TransactionControllerTest {
 		assertThat(pageableCaptor.getValue().getPageSize()).isEqualTo(5);
 	}
 
+	@Test
+	void search_totalNone_returnsSliceWithoutCounting() throws Exception {
+		when(service.searchSlice(any(), any(), any(), any(), any(), any(Pageable.class)))
+				.thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 5), true));
+
+		mockMvc.perform(get("/api/v1/transactions")
+						.param("customerId", "C1")
+						.param("total", "NONE")
+						.param("size", "5"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.total").value("NONE"))
+				.andExpect(jsonPath("$.data.hasNext").value(true))
+				.andExpect(jsonPath("$.data.totalElements").doesNotExist());
+
+		verify(service, never()).search(any(), any(), any(), any(), any(), any(Pageable.class));
+		verify(service, never()).countSearch(any(), any(), any(), any(), any());
+	}
+
+	@Test
+	void search_totalApproximate_usesCachedCount() throws Exception {
+		when(service.searchSlice(any(), any(), any(), any(), any(), any(Pageable.class)))
+				.thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 5), true));
+		when(service.countSearch(eq("C1"), any(), any(), any(), any())).thenReturn(12L);
+
+		mockMvc.perform(get("/api/v1/transactions")
+						.param("customerId", "C1")
+						.param("total", "APPROXIMATE")
+						.param("size", "5"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.total").value("APPROXIMATE"))
+				.andExpect(jsonPath("$.data.totalElements").value(12))
+				.andExpect(jsonPath("$.data.totalPages").value(3));
+
+		verify(service, never()).search(any(), any(), any(), any(), any(), any(Pageable.class));
+	}
+
+	@Test
+	void count_returnsCountFromService() throws Exception {
+		when(service.countSearch(eq("C1"), eq(List.of("A1")), isNull(), isNull(), isNull())).thenReturn(7L);
+
+		mockMvc.perform(get("/api/v1/transactions/count")
+						.param("customerId", "C1")
+						.param("accountNumber", "A1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data").value(7));
+	}
+
+	@Test
+	void search_withCursor_usesCursorMode() throws Exception {
+		when(service.searchAfter(any(), any(), any(), any(), any(), any(), anyInt()))
+				.thenReturn(new CursorPageResponse<>(List.of(), 10, "next"));
+
+		mockMvc.perform(get("/api/v1/transactions")
+						.param("customerId", "C1")
+						.param("cursor", "abc")
+						.param("size", "10"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.nextCursor").value("next"));
+
+		verify(service).searchAfter(eq("C1"), isNull(), isNull(), isNull(), isNull(), eq("abc"), eq(10));
+		verify(service, never()).search(any(), any(), any(), any(), any(), any(Pageable.class));
+	}
+
 	@Test
 	void getById_returns200_andSetsEtagFromVersion() throws Exception {
 		TransactionResponse body = mock(TransactionResponse.class);
@@ -180,6 +248,18 @@ class TransactionControllerTest {
 		);
 	}
 
+	@Test
+	void listByAccount_withEmptyCursor_requestsFirstCursorPage() throws Exception {
+		when(service.listByAccountAfter(eq("ACC1"), any(), any(), any(), anyInt()))
+				.thenReturn(new CursorPageResponse<>(List.of(), 20, null));
+
+		mockMvc.perform(get("/api/v1/accounts/{accountNumber}/transactions", "ACC1")
+						.param("cursor", ""))
+				.andExpect(status().isOk());
+
+		verify(service).listByAccountAfter("ACC1", null, null, "", 20);
+	}
+
 	@Test
 	void dailySummary_returns200_andCallsService() throws Exception {
 		DailySummaryResponse summary = DailySummaryResponse.builder()
@@ -197,4 +277,31 @@ class TransactionControllerTest {
 
 		verify(service).dailySummary("ACC1", LocalDate.of(2025, 12, 1));
 	}
+
+	@Test
+	void summarySeries_parsesGranularity_andCallsService() throws Exception {
+		LocalDate from = LocalDate.of(2025, 1, 1);
+		LocalDate to = LocalDate.of(2025, 12, 31);
+		when(service.summarySeries("ACC1", from, to, SummaryGranularity.MONTH))
+				.thenReturn(SummarySeriesResponse.builder().accountNumber("ACC1").buckets(List.of()).build());
+
+		mockMvc.perform(get("/api/v1/accounts/{accountNumber}/transactions/summary", "ACC1")
+						.param("from", "2025-01-01")
+						.param("to", "2025-12-31")
+						.param("granularity", "month"))
+				.andExpect(status().isOk());
+
+		verify(service).summarySeries("ACC1", from, to, SummaryGranularity.MONTH);
+	}
+
+	@Test
+	void summarySeries_unknownGranularity_returns400() throws Exception {
+		mockMvc.perform(get("/api/v1/accounts/{accountNumber}/transactions/summary", "ACC1")
+						.param("from", "2025-01-01")
+						.param("to", "2025-12-31")
+						.param("granularity", "year"))
+				.andExpect(status().isBadRequest());
+
+		verifyNoInteractions(service);
+	}
 }
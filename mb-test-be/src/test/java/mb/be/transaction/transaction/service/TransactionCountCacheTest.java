@@ -0,0 +1,55 @@
+package mb.be.transaction.transaction.service;
+
+import mb.be.transaction.service.TransactionCountCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionCountCacheTest {
+
+	TransactionCountCache cache = new TransactionCountCache(Duration.ofMinutes(1), 100);
+
+	@Test
+	void get_sameNormalizedFilter_countsOnce() {
+		AtomicInteger counted = new AtomicInteger();
+
+		long first = cache.get(TransactionCountCache.Key.of("C1", List.of("A2", "A1"), "Rent", null, null),
+				() -> { counted.incrementAndGet(); return 5L; });
+		long second = cache.get(TransactionCountCache.Key.of("C1", List.of("A1", "A2"), "rent", null, null),
+				() -> { counted.incrementAndGet(); return 6L; });
+
+		assertThat(first).isEqualTo(5L);
+		assertThat(second).isEqualTo(5L);
+		assertThat(counted).hasValue(1);
+	}
+
+	@Test
+	void get_afterTtl_countsAgain() {
+		TransactionCountCache expiring = new TransactionCountCache(Duration.ZERO, 100);
+		TransactionCountCache.Key key = TransactionCountCache.Key.of("C1", null, null, null, null);
+
+		expiring.get(key, () -> 1L);
+
+		assertThat(expiring.get(key, () -> 2L)).isEqualTo(2L);
+	}
+
+	@Test
+	void invalidateAccount_dropsOnlyFiltersThatCanIncludeIt() {
+		TransactionCountCache.Key acc1 = TransactionCountCache.Key.of(null, List.of("A1"), null, null, null);
+		TransactionCountCache.Key acc2 = TransactionCountCache.Key.of(null, List.of("A2"), null, null, null);
+		TransactionCountCache.Key anyAccount = TransactionCountCache.Key.of("C1", null, null, null, null);
+		cache.get(acc1, () -> 1L);
+		cache.get(acc2, () -> 2L);
+		cache.get(anyAccount, () -> 3L);
+
+		cache.invalidateAccount("A1");
+
+		assertThat(cache.get(acc1, () -> 10L)).isEqualTo(10L);
+		assertThat(cache.get(acc2, () -> 20L)).isEqualTo(2L);
+		assertThat(cache.get(anyAccount, () -> 30L)).isEqualTo(30L);
+	}
+}
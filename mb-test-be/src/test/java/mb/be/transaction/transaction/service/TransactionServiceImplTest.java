@@ -2,13 +2,20 @@ package mb.be.transaction.transaction.service;
 
 import mb.be.account.domain.Account;
 import mb.be.account.domain.AccountRepository;
+import mb.be.common.api.CursorPageResponse;
 import mb.be.common.exception.NotFoundException;
+import mb.be.transaction.domain.DailyTransactionTotals;
 import mb.be.transaction.domain.Transaction;
+import mb.be.transaction.domain.TransactionCursor;
 import mb.be.transaction.domain.TransactionRepository;
+import mb.be.transaction.domain.TransactionTotals;
 import mb.be.transaction.dto.CreateTransactionRequest;
 import mb.be.transaction.dto.DailySummaryResponse;
+import mb.be.transaction.dto.SummaryGranularity;
+import mb.be.transaction.dto.SummarySeriesResponse;
 import mb.be.transaction.dto.TransactionResponse;
 import mb.be.transaction.mapper.TransactionMapper;
+import mb.be.transaction.service.TransactionCountCache;
 import mb.be.transaction.service.TransactionServiceImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -38,6 +45,8 @@ class TransactionServiceImplTest {
 	AccountRepository accountRepository;
 	@Mock
 	TransactionMapper transactionMapper;
+	@Mock
+	TransactionCountCache countCache;
 
 	@InjectMocks
 	TransactionServiceImpl service;
@@ -85,6 +94,7 @@ class TransactionServiceImplTest {
 
 		assertThat(out).isSameAs(resp);
 		verify(transactionRepository).save(entity);
+		verify(countCache).invalidateAccount("ACC1");
 	}
 
 	@Test
@@ -152,6 +162,89 @@ class TransactionServiceImplTest {
 		assertThat(specCaptor.getValue()).isNotNull(); // repository supports Specification+Pageable :contentReference[oaicite:3]{index=3}
 	}
 
+	@Test
+	void searchSlice_usesFindSlice_withoutCount() {
+		Transaction tx = mock(Transaction.class);
+		TransactionResponse tr = mock(TransactionResponse.class);
+		Pageable pageable = PageRequest.of(0, 5);
+
+		when(transactionRepository.findSlice(any(Specification.class), eq(pageable)))
+				.thenReturn(new SliceImpl<>(List.of(tx), pageable, true));
+		when(transactionMapper.toResponse(tx)).thenReturn(tr);
+
+		Slice<TransactionResponse> out = service.searchSlice("C1", null, null, null, null, pageable);
+
+		assertThat(out.getContent()).containsExactly(tr);
+		assertThat(out.hasNext()).isTrue();
+		verify(transactionRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+		verify(transactionRepository, never()).count(any(Specification.class));
+	}
+
+	@Test
+	void countSearch_goesThroughCacheWithNormalizedKey() {
+		TransactionCountCache.Key key = TransactionCountCache.Key.of("C1", List.of("A2", "A1"), "Rent", null, null);
+		when(countCache.get(eq(key), any())).thenReturn(42L);
+
+		long out = service.countSearch("C1", List.of("A1", "A2", "A1"), "rent", null, null);
+
+		assertThat(out).isEqualTo(42L);
+		verifyNoInteractions(transactionRepository);
+	}
+
+	@Test
+	void listByAccountAfter_fetchesOneExtraRow_andReturnsCursorOfLastRow() {
+		Transaction t1 = Transaction.builder().id(30L).trxDate(LocalDate.of(2025, 12, 3)).trxTime(LocalTime.of(9, 0)).build();
+		Transaction t2 = Transaction.builder().id(20L).trxDate(LocalDate.of(2025, 12, 2)).trxTime(LocalTime.of(9, 0)).build();
+		Transaction t3 = Transaction.builder().id(10L).trxDate(LocalDate.of(2025, 12, 1)).trxTime(LocalTime.of(9, 0)).build();
+		TransactionResponse r1 = mock(TransactionResponse.class);
+		TransactionResponse r2 = mock(TransactionResponse.class);
+
+		when(transactionRepository.findKeysetPage(any(Specification.class), eq(3))).thenReturn(List.of(t1, t2, t3));
+		when(transactionMapper.toResponse(t1)).thenReturn(r1);
+		when(transactionMapper.toResponse(t2)).thenReturn(r2);
+
+		CursorPageResponse<TransactionResponse> out = service.listByAccountAfter("ACC1", null, null, "", 2);
+
+		assertThat(out.content()).containsExactly(r1, r2);
+		assertThat(out.nextCursor()).isEqualTo(TransactionCursor.of(t2).encode());
+		verify(transactionRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+		verify(transactionRepository, never()).count(any(Specification.class));
+	}
+
+	@Test
+	void searchAfter_lastPage_hasNoNextCursor() {
+		Transaction tx = Transaction.builder().id(10L).trxDate(LocalDate.of(2025, 12, 1)).trxTime(LocalTime.of(9, 0)).build();
+		TransactionResponse tr = mock(TransactionResponse.class);
+		String cursor = new TransactionCursor(LocalDate.of(2025, 12, 2), LocalTime.of(9, 0), 20L).encode();
+
+		when(transactionRepository.findKeysetPage(any(Specification.class), eq(6))).thenReturn(List.of(tx));
+		when(transactionMapper.toResponse(tx)).thenReturn(tr);
+
+		CursorPageResponse<TransactionResponse> out = service.searchAfter(
+				"C1", List.of("A1"), null, null, null, cursor, 5);
+
+		assertThat(out.content()).containsExactly(tr);
+		assertThat(out.nextCursor()).isNull();
+	}
+
+	@Test
+	void searchAfter_invalidCursor_throws400() {
+		ResponseStatusException ex = catchThrowableOfType(
+				() -> service.searchAfter(null, null, null, null, null, "not-a-cursor", 5),
+				ResponseStatusException.class
+		);
+
+		assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		verifyNoInteractions(transactionRepository);
+	}
+
+	@Test
+	void transactionCursor_roundTrips() {
+		TransactionCursor cursor = new TransactionCursor(LocalDate.of(2025, 12, 1), LocalTime.of(10, 15, 30), 42L);
+
+		assertThat(TransactionCursor.decode(cursor.encode())).isEqualTo(cursor);
+	}
+
 	@Test
 	void getById_notFound_throwsNotFound() {
 		when(transactionRepository.findById(1L)).thenReturn(Optional.empty());
@@ -219,8 +312,12 @@ class TransactionServiceImplTest {
 		Transaction saved = mock(Transaction.class);
 		TransactionResponse tr = mock(TransactionResponse.class);
 
+		Account account = mock(Account.class);
+
 		when(transactionRepository.findById(1L)).thenReturn(Optional.of(tx));
 		when(tx.getVersion()).thenReturn(5L);
+		when(tx.getAccount()).thenReturn(account);
+		when(account.getAccountNumber()).thenReturn("ACC1");
 		when(transactionRepository.save(tx)).thenReturn(saved);
 		when(transactionMapper.toResponse(saved)).thenReturn(tr);
 
@@ -230,6 +327,7 @@ class TransactionServiceImplTest {
 		verify(tx).setDescription("new");
 		verify(tx).setUpdatedAt(any());
 		verify(transactionRepository).save(tx);
+		verify(countCache).invalidateAccount("ACC1");
 	}
 
 	@Test
@@ -248,18 +346,11 @@ class TransactionServiceImplTest {
 	}
 
 	@Test
-	void dailySummary_calculatesTotalAndCount() {
+	void dailySummary_usesAggregateQuery() {
 		LocalDate date = LocalDate.of(2025, 12, 1);
 
-		Transaction t1 = mock(Transaction.class);
-		Transaction t2 = mock(Transaction.class);
-		when(t1.getAmount()).thenReturn(new BigDecimal("10.00"));
-		when(t2.getAmount()).thenReturn(new BigDecimal("5.50"));
-
-		Page<Transaction> page = new PageImpl<>(List.of(t1, t2));
-		when(transactionRepository.findByAccount_AccountNumberAndTrxDateBetween(
-				eq("ACC1"), eq(date), eq(date), eq(Pageable.unpaged())
-		)).thenReturn(page);
+		when(transactionRepository.sumByAccountAndTrxDateBetween("ACC1", date, date))
+				.thenReturn(new TransactionTotals(2L, new BigDecimal("15.50")));
 
 		DailySummaryResponse out = service.dailySummary("ACC1", date);
 
@@ -267,5 +358,63 @@ class TransactionServiceImplTest {
 		assertThat(out.date()).isEqualTo(date);
 		assertThat(out.totalAmount()).isEqualByComparingTo(new BigDecimal("15.50"));
 		assertThat(out.transactionCount()).isEqualTo(2);
+		verify(transactionRepository, never()).findByAccount_AccountNumberAndTrxDateBetween(any(), any(), any(), any());
+	}
+
+	@Test
+	void dailySummary_noTransactions_returnsZero() {
+		LocalDate date = LocalDate.of(2025, 12, 1);
+
+		when(transactionRepository.sumByAccountAndTrxDateBetween("ACC1", date, date))
+				.thenReturn(new TransactionTotals(0L, null));
+
+		DailySummaryResponse out = service.dailySummary("ACC1", date);
+
+		assertThat(out.totalAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+		assertThat(out.transactionCount()).isZero();
+	}
+
+	@Test
+	void summarySeries_weekly_rollsUpDaysAndKeepsEmptyWeeks() {
+		// Wed 2025-12-03 .. Tue 2025-12-23: ISO weeks of Dec 1 (cut to Dec 3), Dec 8, Dec 15 and Dec 22 (cut to Dec 23)
+		LocalDate from = LocalDate.of(2025, 12, 3);
+		LocalDate to = LocalDate.of(2025, 12, 23);
+
+		when(transactionRepository.sumByAccountPerDay("ACC1", from, to)).thenReturn(List.of(
+				new DailyTransactionTotals(LocalDate.of(2025, 12, 3), 1L, new BigDecimal("10.00")),
+				new DailyTransactionTotals(LocalDate.of(2025, 12, 7), 2L, new BigDecimal("5.00")),
+				new DailyTransactionTotals(LocalDate.of(2025, 12, 23), 1L, new BigDecimal("1.25"))
+		));
+
+		SummarySeriesResponse out = service.summarySeries("ACC1", from, to, SummaryGranularity.WEEK);
+
+		assertThat(out.buckets()).extracting(SummarySeriesResponse.Bucket::periodStart).containsExactly(
+				LocalDate.of(2025, 12, 3), LocalDate.of(2025, 12, 8), LocalDate.of(2025, 12, 15), LocalDate.of(2025, 12, 22));
+		assertThat(out.buckets()).extracting(SummarySeriesResponse.Bucket::transactionCount).containsExactly(3L, 0L, 0L, 1L);
+		assertThat(out.buckets().get(0).totalAmount()).isEqualByComparingTo(new BigDecimal("15.00"));
+		assertThat(out.buckets().get(0).periodEnd()).isEqualTo(LocalDate.of(2025, 12, 7));
+		assertThat(out.buckets().get(3).periodEnd()).isEqualTo(to);
+	}
+
+	@Test
+	void summarySeries_fromAfterTo_throws400() {
+		ResponseStatusException ex = catchThrowableOfType(
+				() -> service.summarySeries("ACC1", LocalDate.of(2025, 12, 2), LocalDate.of(2025, 12, 1), SummaryGranularity.DAY),
+				ResponseStatusException.class
+		);
+
+		assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		verifyNoInteractions(transactionRepository);
+	}
+
+	@Test
+	void summarySeries_tooManyBuckets_throws400() {
+		ResponseStatusException ex = catchThrowableOfType(
+				() -> service.summarySeries("ACC1", LocalDate.of(2000, 1, 1), LocalDate.of(2025, 12, 31), SummaryGranularity.DAY),
+				ResponseStatusException.class
+		);
+
+		assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		verifyNoInteractions(transactionRepository);
 	}
 }
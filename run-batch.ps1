@@ -5,6 +5,7 @@ Start-Sleep -Seconds 60
 
 docker compose -f $compose run --rm -T --entrypoint java mb-batch `
   -jar /app/app.jar `
+  --spring.profiles.active=docker `
   --spring.batch.job.enabled=true `
   --spring.batch.job.name=importTransactionsJob `
   --app.batch.import-transactions.input-resource=file:/data/transactions-source.txt `